@@ -0,0 +1,98 @@
+package com.supersection.analyticsservice.aggregation;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Maps event type names to dense ids so counters can be indexed by type.
+ * Id 0 is reserved for {@link #OTHER}, which absorbs every type seen after
+ * the dictionary is full, so a producer inventing types cannot grow memory.
+ */
+public final class EventTypeDictionary {
+
+  public static final String OTHER = "OTHER";
+
+  private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+  private final AtomicReferenceArray<String> names;
+
+  public EventTypeDictionary(int capacity) {
+    names = new AtomicReferenceArray<>(capacity);
+    names.set(0, OTHER);
+    ids.put(OTHER, 0);
+  }
+
+  public int capacity() {
+    return names.length();
+  }
+
+  public int idOf(String name) {
+    Integer id = ids.get(name);
+    if (id != null) {
+      return id;
+    }
+    return register(name);
+  }
+
+  /** Number of ids assigned so far, including {@link #OTHER}. */
+  public int size() {
+    return ids.size();
+  }
+
+  /** The type's name, or null if no type has this id yet. */
+  public String nameOf(int id) {
+    return names.get(id);
+  }
+
+  public synchronized int serializedSize() {
+    int bytes = Integer.BYTES;
+    for (int id = 0; id < ids.size(); id++) {
+      bytes += Short.BYTES + names.get(id).getBytes(StandardCharsets.UTF_8).length;
+    }
+    return bytes;
+  }
+
+  public synchronized void writeTo(ByteBuffer buffer) {
+    buffer.putInt(ids.size());
+    for (int id = 0; id < ids.size(); id++) {
+      byte[] name = names.get(id).getBytes(StandardCharsets.UTF_8);
+      buffer.putShort((short) name.length);
+      buffer.put(name);
+    }
+  }
+
+  /**
+   * Registers the serialized names under their original ids. Names already
+   * registered must hold the same ids they had when serialized.
+   */
+  public synchronized void readFrom(ByteBuffer buffer) {
+    int count = buffer.getInt();
+    if (count < 0 || count > names.length()) {
+      throw new IllegalArgumentException("Snapshot has more event types than max-event-types");
+    }
+    for (int id = 0; id < count; id++) {
+      byte[] name = new byte[buffer.getShort()];
+      buffer.get(name);
+      if (register(new String(name, StandardCharsets.UTF_8)) != id) {
+        throw new IllegalArgumentException("Snapshot event type ids do not match");
+      }
+    }
+  }
+
+  private synchronized int register(String name) {
+    Integer id = ids.get(name);
+    if (id != null) {
+      return id;
+    }
+    int next = ids.size();
+    if (next >= names.length()) {
+      return 0;
+    }
+    // Publish the name before the id so readers never see an unnamed id
+    names.set(next, name);
+    ids.put(name, next);
+    return next;
+  }
+}
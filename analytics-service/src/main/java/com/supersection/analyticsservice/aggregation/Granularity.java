@@ -0,0 +1,7 @@
+package com.supersection.analyticsservice.aggregation;
+
+/** Width of the tumbling windows a query reports. */
+public enum Granularity {
+  MINUTE,
+  HOUR
+}
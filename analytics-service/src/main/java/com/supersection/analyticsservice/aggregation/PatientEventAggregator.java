@@ -0,0 +1,178 @@
+package com.supersection.analyticsservice.aggregation;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.supersection.analyticsservice.dto.EventCountsResponseDTO;
+import com.supersection.analyticsservice.dto.RegistrationCountResponseDTO;
+
+/**
+ * Streaming counts of patient events, updated in place as events arrive and
+ * read directly by queries. Counts per event type are kept in per-second,
+ * per-minute and per-hour rings of primitive counters: sliding windows of up
+ * to an hour are summed from the seconds, tumbling windows are the minute and
+ * hour buckets themselves. Memory is fixed at startup and recording
+ * allocates nothing.
+ */
+@Service
+public class PatientEventAggregator {
+
+  static final String REGISTRATION_EVENT_TYPE = "PATIENT_CREATED";
+
+  private static final int SECOND_BUCKETS = 3600;
+
+  private final EventTypeDictionary eventTypes;
+  private final WindowedCounters seconds;
+  private final WindowedCounters minutes;
+  private final WindowedCounters hours;
+  private final int registrationType;
+  private final LongAdder lateEvents = new LongAdder();
+
+  public PatientEventAggregator(
+      @Value("${analytics.aggregation.max-event-types:32}") int maxEventTypes,
+      @Value("${analytics.aggregation.minute-buckets:1440}") int minuteBuckets,
+      @Value("${analytics.aggregation.hour-buckets:168}") int hourBuckets
+  ) {
+    this.eventTypes = new EventTypeDictionary(maxEventTypes);
+    this.seconds = new WindowedCounters(Duration.ofSeconds(1).toMillis(), SECOND_BUCKETS, maxEventTypes);
+    this.minutes = new WindowedCounters(Duration.ofMinutes(1).toMillis(), minuteBuckets, maxEventTypes);
+    this.hours = new WindowedCounters(Duration.ofHours(1).toMillis(), hourBuckets, maxEventTypes);
+    this.registrationType = eventTypes.idOf(REGISTRATION_EVENT_TYPE);
+  }
+
+  /**
+   * Counts one event at the given event time. Events stamped in the future
+   * are counted now, so a producer's clock skew cannot hide them from
+   * sliding windows.
+   */
+  public void record(String eventType, long timestampMillis) {
+    long at = Math.min(timestampMillis, System.currentTimeMillis());
+    int type = eventTypes.idOf(eventType);
+
+    boolean counted = seconds.increment(at, type);
+    counted |= minutes.increment(at, type);
+    counted |= hours.increment(at, type);
+    if (!counted) {
+      lateEvents.increment();
+    }
+  }
+
+  /** Counts per event type over the trailing window, at one-second resolution. */
+  public EventCountsResponseDTO slidingWindow(Duration window) {
+    long windowSeconds = Math.clamp(window.toSeconds(), 1, SECOND_BUCKETS);
+    long last = seconds.bucketOf(System.currentTimeMillis());
+    long first = last - windowSeconds + 1;
+
+    long[] totals = new long[eventTypes.capacity()];
+    seconds.sum(first, last, totals);
+    return toCounts(seconds, first, last, totals);
+  }
+
+  /** Counts per event type in the most recent tumbling windows, newest first. */
+  public List<EventCountsResponseDTO> tumblingWindows(Granularity granularity, int limit) {
+    WindowedCounters counters = countersFor(granularity);
+    long last = counters.bucketOf(System.currentTimeMillis());
+
+    List<EventCountsResponseDTO> windows = new ArrayList<>();
+    for (long bucket = last; bucket > last - bucketLimit(counters, limit); bucket--) {
+      long[] totals = new long[eventTypes.capacity()];
+      counters.sum(bucket, bucket, totals);
+      windows.add(toCounts(counters, bucket, bucket, totals));
+    }
+    return windows;
+  }
+
+  /** Patient registrations in the most recent tumbling windows, newest first. */
+  public List<RegistrationCountResponseDTO> registrations(Granularity granularity, int limit) {
+    WindowedCounters counters = countersFor(granularity);
+    long last = counters.bucketOf(System.currentTimeMillis());
+
+    List<RegistrationCountResponseDTO> windows = new ArrayList<>();
+    for (long bucket = last; bucket > last - bucketLimit(counters, limit); bucket--) {
+      windows.add(new RegistrationCountResponseDTO(
+          bucketStart(counters, bucket),
+          bucketStart(counters, bucket + 1),
+          counters.count(bucket, registrationType)));
+    }
+    return windows;
+  }
+
+  /** Events that arrived too late for even the hour ring. */
+  public long lateEvents() {
+    return lateEvents.sum();
+  }
+
+  /** Size of the state written by {@link #writeTo}; call with recording paused. */
+  public int serializedSize() {
+    return eventTypes.serializedSize()
+        + seconds.serializedSize() + minutes.serializedSize() + hours.serializedSize();
+  }
+
+  /** Writes all counters; call with recording paused. */
+  public void writeTo(ByteBuffer buffer) {
+    eventTypes.writeTo(buffer);
+    seconds.writeTo(buffer);
+    minutes.writeTo(buffer);
+    hours.writeTo(buffer);
+  }
+
+  /**
+   * Restores counters written by {@link #writeTo}. Fails if the settings
+   * that size the rings have changed since, leaving state to be cleared.
+   */
+  public void readFrom(ByteBuffer buffer) {
+    eventTypes.readFrom(buffer);
+    seconds.readFrom(buffer);
+    minutes.readFrom(buffer);
+    hours.readFrom(buffer);
+  }
+
+  /** Forgets all counts. Event type ids stay assigned. */
+  public void clear() {
+    seconds.clear();
+    minutes.clear();
+    hours.clear();
+  }
+
+  private WindowedCounters countersFor(Granularity granularity) {
+    return switch (granularity) {
+      case MINUTE -> minutes;
+      case HOUR -> hours;
+    };
+  }
+
+  private static int bucketLimit(WindowedCounters counters, int limit) {
+    return Math.clamp(limit, 1, counters.slots());
+  }
+
+  private static Instant bucketStart(WindowedCounters counters, long bucket) {
+    return Instant.ofEpochMilli(bucket * counters.bucketMillis());
+  }
+
+  private EventCountsResponseDTO toCounts(
+      WindowedCounters counters, long firstBucket, long lastBucket, long[] totals
+  ) {
+    Map<String, Long> countsByType = new LinkedHashMap<>();
+    long total = 0;
+    for (int type = 0; type < totals.length; type++) {
+      if (totals[type] > 0) {
+        countsByType.put(eventTypes.nameOf(type), totals[type]);
+        total += totals[type];
+      }
+    }
+    return new EventCountsResponseDTO(
+        bucketStart(counters, firstBucket),
+        bucketStart(counters, lastBucket + 1),
+        total,
+        countsByType);
+  }
+}
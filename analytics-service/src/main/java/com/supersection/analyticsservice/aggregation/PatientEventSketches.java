@@ -0,0 +1,174 @@
+package com.supersection.analyticsservice.aggregation;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.supersection.analyticsservice.dto.DistinctPatientsResponseDTO;
+import com.supersection.analyticsservice.dto.HeavyHittersResponseDTO;
+import com.supersection.analyticsservice.sketch.EventSketches;
+import com.supersection.analyticsservice.sketch.TopK;
+
+/**
+ * Approximate long-window analytics: one {@link EventSketches} per hour,
+ * in a ring of {@code hour-buckets} hours. Queries over several hours merge
+ * the hourly sketches, so memory stays at a few KB per hour however many
+ * patients or email domains are seen.
+ */
+@Service
+public class PatientEventSketches {
+
+  private static final long BUCKET_MILLIS = Duration.ofHours(1).toMillis();
+
+  private final int topK;
+  private final AtomicReferenceArray<Bucket> buckets;
+
+  private record Bucket(long number, EventSketches sketches) {
+  }
+
+  public PatientEventSketches(
+      @Value("${analytics.sketches.hour-buckets:168}") int hourBuckets,
+      @Value("${analytics.sketches.top-k:16}") int topK
+  ) {
+    this.topK = topK;
+    this.buckets = new AtomicReferenceArray<>(hourBuckets);
+  }
+
+  public void record(String eventType, String patientId, String email, long timestampMillis) {
+    long at = Math.min(timestampMillis, System.currentTimeMillis());
+    EventSketches sketches = bucketFor(Math.floorDiv(at, BUCKET_MILLIS));
+    if (sketches != null) {
+      sketches.record(eventType, patientId, email);
+    }
+  }
+
+  public DistinctPatientsResponseDTO distinctPatients(int hours) {
+    Window window = window(hours);
+    return new DistinctPatientsResponseDTO(
+        window.start(), window.end(), window.sketches().patients().estimate());
+  }
+
+  public HeavyHittersResponseDTO topEmailDomains(int hours, int limit) {
+    Window window = window(hours);
+    return toHeavyHitters(window, window.sketches().emailDomains(), limit);
+  }
+
+  public HeavyHittersResponseDTO topEventTypes(int hours, int limit) {
+    Window window = window(hours);
+    return toHeavyHitters(window, window.sketches().eventTypes(), limit);
+  }
+
+  /**
+   * The trailing hours merged into one serialized sketch, for merging with
+   * other instances' sketches via {@link EventSketches#fromBytes}.
+   */
+  public byte[] snapshot(int hours) {
+    return window(hours).sketches().toBytes();
+  }
+
+  /** Every hourly bucket, serialized; call with recording paused. */
+  public byte[] toBytes() {
+    List<Bucket> present = new ArrayList<>();
+    List<byte[]> serialized = new ArrayList<>();
+    int size = Integer.BYTES;
+    for (int slot = 0; slot < buckets.length(); slot++) {
+      Bucket bucket = buckets.get(slot);
+      if (bucket != null) {
+        byte[] bytes = bucket.sketches().toBytes();
+        present.add(bucket);
+        serialized.add(bytes);
+        size += Long.BYTES + Integer.BYTES + bytes.length;
+      }
+    }
+
+    ByteBuffer buffer = ByteBuffer.allocate(size);
+    buffer.putInt(present.size());
+    for (int i = 0; i < present.size(); i++) {
+      buffer.putLong(present.get(i).number());
+      buffer.putInt(serialized.get(i).length);
+      buffer.put(serialized.get(i));
+    }
+    return buffer.array();
+  }
+
+  /**
+   * Restores buckets written by {@link #toBytes}, dropping any that no
+   * longer fit the ring or were kept with a different top-k.
+   */
+  public void readFrom(ByteBuffer buffer) {
+    int count = buffer.getInt();
+    for (int i = 0; i < count; i++) {
+      long number = buffer.getLong();
+      byte[] bytes = new byte[buffer.getInt()];
+      buffer.get(bytes);
+
+      EventSketches sketches = EventSketches.fromBytes(bytes);
+      if (sketches.emailDomains().k() != topK) {
+        continue;
+      }
+      int slot = (int) Math.floorMod(number, buckets.length());
+      Bucket current = buckets.get(slot);
+      if (current == null || current.number() < number) {
+        buckets.set(slot, new Bucket(number, sketches));
+      }
+    }
+  }
+
+  public void clear() {
+    for (int slot = 0; slot < buckets.length(); slot++) {
+      buckets.set(slot, null);
+    }
+  }
+
+  private record Window(Instant start, Instant end, EventSketches sketches) {
+  }
+
+  private Window window(int hours) {
+    long last = Math.floorDiv(System.currentTimeMillis(), BUCKET_MILLIS);
+    long first = last - Math.clamp(hours, 1, buckets.length()) + 1;
+
+    EventSketches merged = new EventSketches(topK);
+    for (long number = first; number <= last; number++) {
+      Bucket bucket = buckets.get((int) Math.floorMod(number, buckets.length()));
+      if (bucket != null && bucket.number() == number) {
+        merged.merge(bucket.sketches());
+      }
+    }
+    return new Window(
+        Instant.ofEpochMilli(first * BUCKET_MILLIS),
+        Instant.ofEpochMilli((last + 1) * BUCKET_MILLIS),
+        merged);
+  }
+
+  private static HeavyHittersResponseDTO toHeavyHitters(Window window, TopK sketch, int limit) {
+    List<HeavyHittersResponseDTO.HeavyHitter> top = sketch.top().stream()
+        .limit(Math.max(limit, 0))
+        .map(entry -> new HeavyHittersResponseDTO.HeavyHitter(entry.item(), entry.estimate()))
+        .toList();
+    return new HeavyHittersResponseDTO(window.start(), window.end(), sketch.total(), top);
+  }
+
+  // Returns null if the bucket has already been reused for a later hour
+  private EventSketches bucketFor(long number) {
+    int slot = (int) Math.floorMod(number, buckets.length());
+    while (true) {
+      Bucket current = buckets.get(slot);
+      if (current != null && current.number() == number) {
+        return current.sketches();
+      }
+      if (current != null && current.number() > number) {
+        return null;
+      }
+      Bucket fresh = new Bucket(number, new EventSketches(topK));
+      if (buckets.compareAndSet(slot, current, fresh)) {
+        return fresh.sketches();
+      }
+    }
+  }
+}
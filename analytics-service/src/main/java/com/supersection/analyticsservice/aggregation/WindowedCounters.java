@@ -0,0 +1,135 @@
+package com.supersection.analyticsservice.aggregation;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Event counts per type in fixed-width time buckets, kept in a ring of
+ * {@code slots} buckets, each a primitive array of per-type counts. A slot
+ * is reused once time moves a full ring past it, so memory is fixed at
+ * {@code slots * types} longs however many events arrive. Events older than
+ * the ring are dropped.
+ *
+ * <p>A slot moves on to a newer bucket by swapping in fresh counts rather
+ * than zeroing its array in place, so an increment racing with the move
+ * either lands in the bucket it was counted for or is reported as dropped,
+ * and never leaks into the newer bucket or is wiped by its reset.
+ */
+final class WindowedCounters {
+
+  private record Slot(long bucket, AtomicLongArray counts) {
+  }
+
+  private final long bucketMillis;
+  private final int slots;
+  private final int types;
+  private final Slot empty;
+  private final AtomicReferenceArray<Slot> ring;
+
+  WindowedCounters(long bucketMillis, int slots, int types) {
+    this.bucketMillis = bucketMillis;
+    this.slots = slots;
+    this.types = types;
+    this.empty = new Slot(Long.MIN_VALUE, new AtomicLongArray(types));
+    this.ring = new AtomicReferenceArray<>(slots);
+    clear();
+  }
+
+  long bucketMillis() {
+    return bucketMillis;
+  }
+
+  int slots() {
+    return slots;
+  }
+
+  long bucketOf(long timestampMillis) {
+    return Math.floorDiv(timestampMillis, bucketMillis);
+  }
+
+  /** Returns false if the event is too old for the ring. */
+  boolean increment(long timestampMillis, int type) {
+    long bucket = bucketOf(timestampMillis);
+    int index = (int) Math.floorMod(bucket, slots);
+
+    Slot slot = ring.get(index);
+    while (slot.bucket() < bucket) {
+      Slot claimed = new Slot(bucket, new AtomicLongArray(types));
+      Slot witness = ring.compareAndExchange(index, slot, claimed);
+      slot = witness == slot ? claimed : witness;
+    }
+    if (slot.bucket() != bucket) {
+      return false;
+    }
+
+    slot.counts().getAndIncrement(type);
+    // If the slot moved on meanwhile, the count went with a bucket that left the ring
+    return ring.get(index) == slot;
+  }
+
+  long count(long bucket, int type) {
+    Slot slot = ring.get((int) Math.floorMod(bucket, slots));
+    if (slot.bucket() != bucket) {
+      return 0;
+    }
+    return slot.counts().get(type);
+  }
+
+  /** Adds each type's count over buckets {@code from..to} inclusive into {@code totals}. */
+  void sum(long fromBucket, long toBucket, long[] totals) {
+    for (long bucket = Math.max(fromBucket, toBucket - slots + 1); bucket <= toBucket; bucket++) {
+      Slot slot = ring.get((int) Math.floorMod(bucket, slots));
+      if (slot.bucket() != bucket) {
+        continue;
+      }
+      for (int type = 0; type < types; type++) {
+        totals[type] += slot.counts().get(type);
+      }
+    }
+  }
+
+  void clear() {
+    for (int index = 0; index < slots; index++) {
+      ring.set(index, empty);
+    }
+  }
+
+  int serializedSize() {
+    return Long.BYTES + 2 * Integer.BYTES + (slots + slots * types) * Long.BYTES;
+  }
+
+  void writeTo(ByteBuffer buffer) {
+    buffer.putLong(bucketMillis);
+    buffer.putInt(slots);
+    buffer.putInt(types);
+    Slot[] snapshot = new Slot[slots];
+    for (int index = 0; index < slots; index++) {
+      snapshot[index] = ring.get(index);
+      buffer.putLong(snapshot[index].bucket());
+    }
+    for (Slot slot : snapshot) {
+      for (int type = 0; type < types; type++) {
+        buffer.putLong(slot.counts().get(type));
+      }
+    }
+  }
+
+  /** Overwrites these counters with serialized ones of the same shape. */
+  void readFrom(ByteBuffer buffer) {
+    if (buffer.getLong() != bucketMillis || buffer.getInt() != slots || buffer.getInt() != types) {
+      throw new IllegalArgumentException("Snapshot counters do not match the configured shape");
+    }
+    long[] buckets = new long[slots];
+    for (int index = 0; index < slots; index++) {
+      buckets[index] = buffer.getLong();
+    }
+    for (int index = 0; index < slots; index++) {
+      AtomicLongArray counts = new AtomicLongArray(types);
+      for (int type = 0; type < types; type++) {
+        counts.set(type, buffer.getLong());
+      }
+      ring.set(index, new Slot(buckets[index], counts));
+    }
+  }
+}
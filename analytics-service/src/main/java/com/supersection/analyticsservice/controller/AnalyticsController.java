@@ -0,0 +1,83 @@
+package com.supersection.analyticsservice.controller;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.supersection.analyticsservice.aggregation.Granularity;
+import com.supersection.analyticsservice.aggregation.PatientEventAggregator;
+import com.supersection.analyticsservice.aggregation.PatientEventSketches;
+import com.supersection.analyticsservice.dto.DistinctPatientsResponseDTO;
+import com.supersection.analyticsservice.dto.EventCountsResponseDTO;
+import com.supersection.analyticsservice.dto.HeavyHittersResponseDTO;
+import com.supersection.analyticsservice.dto.RegistrationCountResponseDTO;
+
+
+@RestController
+@RequestMapping("/analytics")
+public class AnalyticsController {
+
+  private final PatientEventAggregator aggregator;
+  private final PatientEventSketches sketches;
+
+  public AnalyticsController(PatientEventAggregator aggregator, PatientEventSketches sketches) {
+    this.aggregator = aggregator;
+    this.sketches = sketches;
+  }
+
+  @GetMapping("/events/sliding")
+  public EventCountsResponseDTO getSlidingWindow(
+      @RequestParam(defaultValue = "300") long windowSeconds
+  ) {
+    return aggregator.slidingWindow(Duration.ofSeconds(windowSeconds));
+  }
+
+  @GetMapping("/events/tumbling")
+  public List<EventCountsResponseDTO> getTumblingWindows(
+      @RequestParam(defaultValue = "MINUTE") Granularity granularity,
+      @RequestParam(defaultValue = "60") int limit
+  ) {
+    return aggregator.tumblingWindows(granularity, limit);
+  }
+
+  @GetMapping("/registrations")
+  public List<RegistrationCountResponseDTO> getRegistrations(
+      @RequestParam(defaultValue = "MINUTE") Granularity granularity,
+      @RequestParam(defaultValue = "60") int limit
+  ) {
+    return aggregator.registrations(granularity, limit);
+  }
+
+  @GetMapping("/patients/distinct")
+  public DistinctPatientsResponseDTO getDistinctPatients(
+      @RequestParam(defaultValue = "24") int hours
+  ) {
+    return sketches.distinctPatients(hours);
+  }
+
+  @GetMapping("/top/email-domains")
+  public HeavyHittersResponseDTO getTopEmailDomains(
+      @RequestParam(defaultValue = "24") int hours,
+      @RequestParam(defaultValue = "10") int limit
+  ) {
+    return sketches.topEmailDomains(hours, limit);
+  }
+
+  @GetMapping("/top/event-types")
+  public HeavyHittersResponseDTO getTopEventTypes(
+      @RequestParam(defaultValue = "24") int hours,
+      @RequestParam(defaultValue = "10") int limit
+  ) {
+    return sketches.topEventTypes(hours, limit);
+  }
+
+  @GetMapping(value = "/sketches", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+  public byte[] getSketches(@RequestParam(defaultValue = "24") int hours) {
+    return sketches.snapshot(hours);
+  }
+}
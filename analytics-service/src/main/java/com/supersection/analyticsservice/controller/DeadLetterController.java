@@ -0,0 +1,28 @@
+package com.supersection.analyticsservice.controller;
+
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.supersection.analyticsservice.dto.DeadLetterReplayResponseDTO;
+import com.supersection.analyticsservice.kafka.DeadLetterReplayer;
+
+
+@RestController
+@RequestMapping("/analytics/dead-letters")
+public class DeadLetterController {
+
+  private final DeadLetterReplayer deadLetterReplayer;
+
+  public DeadLetterController(DeadLetterReplayer deadLetterReplayer) {
+    this.deadLetterReplayer = deadLetterReplayer;
+  }
+
+  @PostMapping("/replay")
+  public DeadLetterReplayResponseDTO replay(
+      @RequestParam(defaultValue = "10000") int maxRecords
+  ) {
+    return new DeadLetterReplayResponseDTO(deadLetterReplayer.replay(maxRecords));
+  }
+}
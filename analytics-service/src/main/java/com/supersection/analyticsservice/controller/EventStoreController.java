@@ -0,0 +1,41 @@
+package com.supersection.analyticsservice.controller;
+
+import java.time.Instant;
+import java.util.Set;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.supersection.analyticsservice.dto.StoreQueryResponseDTO;
+import com.supersection.analyticsservice.store.EventStore;
+import com.supersection.analyticsservice.store.TimeGrouping;
+
+
+@RestController
+@RequestMapping("/analytics/store")
+public class EventStoreController {
+
+  private final EventStore eventStore;
+
+  public EventStoreController(EventStore eventStore) {
+    this.eventStore = eventStore;
+  }
+
+  @GetMapping("/counts")
+  public StoreQueryResponseDTO getCounts(
+      @RequestParam Instant from,
+      @RequestParam Instant to,
+      @RequestParam(defaultValue = "DAY") TimeGrouping grouping,
+      @RequestParam(defaultValue = "false") boolean byEventType,
+      @RequestParam(defaultValue = "") Set<String> eventType
+  ) {
+    if (!from.isBefore(to)) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must be before to");
+    }
+    return eventStore.count(from, to, grouping, byEventType, eventType);
+  }
+}
@@ -0,0 +1,4 @@
+package com.supersection.analyticsservice.dto;
+
+public record DeadLetterReplayResponseDTO(int replayed) {
+}
@@ -0,0 +1,6 @@
+package com.supersection.analyticsservice.dto;
+
+import java.time.Instant;
+
+public record DistinctPatientsResponseDTO(Instant start, Instant end, long estimate) {
+}
@@ -0,0 +1,12 @@
+package com.supersection.analyticsservice.dto;
+
+import java.time.Instant;
+import java.util.Map;
+
+public record EventCountsResponseDTO(
+    Instant start,
+    Instant end,
+    long total,
+    Map<String, Long> countsByEventType
+) {
+}
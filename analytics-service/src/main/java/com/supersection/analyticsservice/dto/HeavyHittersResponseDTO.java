@@ -0,0 +1,15 @@
+package com.supersection.analyticsservice.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+public record HeavyHittersResponseDTO(
+    Instant start,
+    Instant end,
+    long total,
+    List<HeavyHitter> top
+) {
+
+  public record HeavyHitter(String item, long estimate) {
+  }
+}
@@ -0,0 +1,6 @@
+package com.supersection.analyticsservice.dto;
+
+import java.time.Instant;
+
+public record RegistrationCountResponseDTO(Instant start, Instant end, long count) {
+}
@@ -0,0 +1,16 @@
+package com.supersection.analyticsservice.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+public record StoreQueryResponseDTO(
+    Instant from,
+    Instant to,
+    long rowsScanned,
+    List<Row> rows
+) {
+
+  /** One group; eventType is null unless the query grouped by it. */
+  public record Row(Instant bucketStart, String eventType, long count) {
+  }
+}
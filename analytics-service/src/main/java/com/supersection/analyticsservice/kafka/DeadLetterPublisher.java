@@ -0,0 +1,135 @@
+package com.supersection.analyticsservice.kafka;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Sends events that could not be counted to the dead-letter topic. The
+ * original key, value, timestamp and headers are kept, and further headers
+ * record where the record came from and why it failed, so it can be
+ * replayed unchanged. Replays go to {@code replay-topic}, which only this
+ * service consumes. Sends are asynchronous and never hold up the listener;
+ * callers learn from the returned future whether the topic has the record.
+ *
+ * <p>Publishes {@code analytics.events.failed} (per failure type and
+ * exception), {@code analytics.events.dead-lettered} (per failure type) and
+ * {@code analytics.dead-letter.publish-failures}.
+ */
+@Component
+public class DeadLetterPublisher {
+
+  public static final String ORIGINAL_TOPIC = "dlt-original-topic";
+  public static final String ORIGINAL_PARTITION = "dlt-original-partition";
+  public static final String ORIGINAL_OFFSET = "dlt-original-offset";
+  public static final String FAILURE_TYPE = "dlt-failure-type";
+  public static final String EXCEPTION = "dlt-exception";
+  public static final String EXCEPTION_MESSAGE = "dlt-exception-message";
+  public static final String ATTEMPTS = "dlt-attempts";
+  // Present once the event is counted by the aggregator, so it is not counted again
+  public static final String AGGREGATED = "dlt-aggregated";
+
+  private static final Logger log = LoggerFactory.getLogger(DeadLetterPublisher.class);
+
+  private final KafkaTemplate<String, byte[]> kafkaTemplate;
+  private final MeterRegistry meterRegistry;
+  private final String topic;
+  private final String replayTopic;
+  private final Map<String, Counter> failures = new ConcurrentHashMap<>();
+  private final Map<FailureType, Counter> deadLettered = new ConcurrentHashMap<>();
+  private final Counter publishFailures;
+
+  public DeadLetterPublisher(
+      KafkaTemplate<String, byte[]> kafkaTemplate,
+      MeterRegistry meterRegistry,
+      @Value("${analytics.dead-letter.topic:patient.DLT}") String topic,
+      @Value("${analytics.dead-letter.replay-topic:patient.analytics-retry}") String replayTopic
+  ) {
+    this.kafkaTemplate = kafkaTemplate;
+    this.meterRegistry = meterRegistry;
+    this.topic = topic;
+    this.replayTopic = replayTopic;
+    this.publishFailures = meterRegistry.counter("analytics.dead-letter.publish-failures");
+  }
+
+  public String topic() {
+    return topic;
+  }
+
+  public String replayTopic() {
+    return replayTopic;
+  }
+
+  /** Counts a failed attempt, whether or not it will be retried. */
+  public void recordFailure(FailureType type, Throwable failure) {
+    String exception = failure.getClass().getSimpleName();
+    failures.computeIfAbsent(type + "/" + exception, key -> Counter
+        .builder("analytics.events.failed")
+        .tag("type", type.name())
+        .tag("exception", exception)
+        .register(meterRegistry))
+        .increment();
+  }
+
+  /** Completes once the dead-letter topic has the record, exceptionally if the send failed. */
+  public CompletableFuture<Void> publish(
+      ConsumerRecord<String, byte[]> record,
+      FailureType type,
+      Throwable failure,
+      int attempts
+  ) {
+    ProducerRecord<String, byte[]> deadLetter = new ProducerRecord<>(
+        topic, null, record.timestamp(), record.key(), record.value(), record.headers());
+    Headers headers = deadLetter.headers();
+    header(headers, ORIGINAL_TOPIC, record.topic());
+    header(headers, ORIGINAL_PARTITION, String.valueOf(record.partition()));
+    header(headers, ORIGINAL_OFFSET, String.valueOf(record.offset()));
+    header(headers, FAILURE_TYPE, type.name());
+    header(headers, EXCEPTION, failure.getClass().getName());
+    header(headers, EXCEPTION_MESSAGE, String.valueOf(failure.getMessage()));
+    header(headers, ATTEMPTS, String.valueOf(attempts));
+
+    log.warn("Dead-lettering {} failure for {}-{}@{} after {} attempt(s): {}",
+        type, record.topic(), record.partition(), record.offset(), attempts, failure.toString());
+
+    return kafkaTemplate.send(deadLetter).whenComplete((result, sendFailure) -> {
+      if (sendFailure != null) {
+        publishFailures.increment();
+        log.error("Failed to dead-letter {}-{}@{}: {}",
+            record.topic(), record.partition(), record.offset(), sendFailure.getMessage());
+      } else {
+        deadLettered.computeIfAbsent(type, key -> Counter
+            .builder("analytics.events.dead-lettered")
+            .tag("type", key.name())
+            .register(meterRegistry))
+            .increment();
+      }
+    }).thenAccept(result -> { });
+  }
+
+  /** The value of the record's last header with this name, or null. */
+  public static String header(ConsumerRecord<String, byte[]> record, String name) {
+    Header header = record.headers().lastHeader(name);
+    return header == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+  }
+
+  // Replaces any value left by an earlier failure of a replayed record
+  private static void header(Headers headers, String name, String value) {
+    headers.remove(name);
+    headers.add(name, value.getBytes(StandardCharsets.UTF_8));
+  }
+}
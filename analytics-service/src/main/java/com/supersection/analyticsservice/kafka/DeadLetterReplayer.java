@@ -0,0 +1,125 @@
+package com.supersection.analyticsservice.kafka;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Re-injects dead letters, with their original key, timestamp and headers,
+ * once whatever made them fail has been fixed. They go to the replay topic
+ * rather than back to the topic they came from, which other services
+ * consume too; the analytics listener reads both. A replay covers the dead
+ * letters present when it starts. Replays read the dead-letter topic as
+ * their own consumer group and commit only after every re-injected record
+ * has been acknowledged, so a failed replay repeats records rather than
+ * skipping them. Records that fail again are dead-lettered again.
+ */
+@Component
+public class DeadLetterReplayer {
+
+  private static final Logger log = LoggerFactory.getLogger(DeadLetterReplayer.class);
+
+  private static final String GROUP_ID = "analytics-service-dlt-replay";
+  private static final Duration POLL_TIMEOUT = Duration.ofSeconds(2);
+
+  private final ConsumerFactory<String, byte[]> consumerFactory;
+  private final KafkaTemplate<String, byte[]> kafkaTemplate;
+  private final String deadLetterTopic;
+  private final String replayTopic;
+  private final Counter replayed;
+
+  public DeadLetterReplayer(
+      ConsumerFactory<String, byte[]> consumerFactory,
+      KafkaTemplate<String, byte[]> kafkaTemplate,
+      DeadLetterPublisher deadLetterPublisher,
+      MeterRegistry meterRegistry
+  ) {
+    this.consumerFactory = consumerFactory;
+    this.kafkaTemplate = kafkaTemplate;
+    this.deadLetterTopic = deadLetterPublisher.topic();
+    this.replayTopic = deadLetterPublisher.replayTopic();
+    this.replayed = meterRegistry.counter("analytics.dead-letter.replayed");
+  }
+
+  /**
+   * Replays dead letters not replayed before, a poll at a time, until the
+   * topic is drained or at least {@code maxRecords} have been replayed.
+   *
+   * @return how many were re-injected
+   */
+  public synchronized int replay(int maxRecords) {
+    Properties overrides = new Properties();
+    overrides.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+    overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+    overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, "500");
+
+    int count = 0;
+    try (Consumer<String, byte[]> consumer =
+        consumerFactory.createConsumer(GROUP_ID, null, null, overrides)) {
+      List<TopicPartition> partitions = consumer.partitionsFor(deadLetterTopic).stream()
+          .map(info -> new TopicPartition(info.topic(), info.partition()))
+          .toList();
+      consumer.assign(partitions);
+
+      // Stop at the records present now, or records that fail again on
+      // replay would be picked up and replayed in a loop
+      Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions);
+
+      while (count < maxRecords && !caughtUp(consumer, endOffsets)) {
+        ConsumerRecords<String, byte[]> records = consumer.poll(POLL_TIMEOUT);
+
+        List<CompletableFuture<?>> sends = new ArrayList<>();
+        Map<TopicPartition, OffsetAndMetadata> replayedUpTo = new HashMap<>();
+        for (ConsumerRecord<String, byte[]> record : records) {
+          TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+          if (record.offset() >= endOffsets.get(partition)) {
+            continue;
+          }
+          replayedUpTo.put(partition, new OffsetAndMetadata(record.offset() + 1));
+
+          sends.add(kafkaTemplate.send(new ProducerRecord<>(replayTopic, null,
+              record.timestamp(), record.key(), record.value(), record.headers())));
+        }
+
+        // Commit only once everything polled has been re-injected; a failed
+        // send fails the replay and leaves the batch to be replayed again
+        CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).join();
+        if (!replayedUpTo.isEmpty()) {
+          consumer.commitSync(replayedUpTo);
+        }
+        replayed.increment(sends.size());
+        count += sends.size();
+      }
+    }
+
+    log.info("Replayed {} dead letters from {} to {}", count, deadLetterTopic, replayTopic);
+    return count;
+  }
+
+  private static boolean caughtUp(
+      Consumer<String, byte[]> consumer, Map<TopicPartition, Long> endOffsets
+  ) {
+    return endOffsets.entrySet().stream()
+        .allMatch(end -> consumer.position(end.getKey()) >= end.getValue());
+  }
+}
@@ -0,0 +1,171 @@
+package com.supersection.analyticsservice.kafka;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Retries events that failed processing on a scheduler thread, so the
+ * listener moves straight on to the rest of the partition. Attempts back
+ * off exponentially from {@code initial-backoff-ms}; after
+ * {@code max-attempts} the raw record is dead-lettered. At most
+ * {@code max-pending} retries wait at once, beyond which failures are
+ * dead-lettered immediately, and retries still waiting at shutdown are
+ * dead-lettered rather than lost. Either way the caller hears when the
+ * record is done with, so it can mark it complete only then.
+ *
+ * <p>A record only counts as dead-lettered once the dead-letter topic has
+ * it. Failed sends are retried with the same backoff, capped at
+ * {@code initial-backoff-ms << 6}, for as long as the service runs; a
+ * record whose send never succeeds stays incomplete and is consumed again
+ * after a restart.
+ */
+@Component
+public class EventRetryScheduler {
+
+  private static final Logger log = LoggerFactory.getLogger(EventRetryScheduler.class);
+
+  private static final int MAX_BACKOFF_SHIFT = 6;
+
+  private final DeadLetterPublisher deadLetterPublisher;
+  private final ScheduledExecutorService scheduler;
+  private final int maxAttempts;
+  private final long initialBackoffMs;
+  private final int maxPending;
+  private final Set<PendingRetry> pending = ConcurrentHashMap.newKeySet();
+  private final Counter retried;
+
+  private record PendingRetry(
+      ConsumerRecord<String, byte[]> record,
+      Runnable action,
+      Runnable deadLettered,
+      int attempt,
+      RuntimeException lastFailure
+  ) {
+  }
+
+  public EventRetryScheduler(
+      DeadLetterPublisher deadLetterPublisher,
+      MeterRegistry meterRegistry,
+      @Value("${analytics.retry.max-attempts:3}") int maxAttempts,
+      @Value("${analytics.retry.initial-backoff-ms:1000}") long initialBackoffMs,
+      @Value("${analytics.retry.max-pending:10000}") int maxPending
+  ) {
+    this.deadLetterPublisher = deadLetterPublisher;
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(
+        Thread.ofPlatform().name("event-retry").daemon().factory());
+    this.maxAttempts = maxAttempts;
+    this.initialBackoffMs = initialBackoffMs;
+    this.maxPending = maxPending;
+    this.retried = meterRegistry.counter("analytics.events.retried");
+    Gauge.builder("analytics.events.retry-pending", pending, Set::size).register(meterRegistry);
+  }
+
+  /**
+   * Handles the first failure of {@code action}, which processes
+   * {@code record}'s event. {@code deadLettered} runs instead of a
+   * successful {@code action} if the record is dead-lettered.
+   */
+  public void failed(
+      ConsumerRecord<String, byte[]> record,
+      Runnable action,
+      Runnable deadLettered,
+      RuntimeException failure
+  ) {
+    deadLetterPublisher.recordFailure(FailureType.PROCESSING, failure);
+    retryOrDeadLetter(new PendingRetry(record, action, deadLettered, 1, failure));
+  }
+
+  /**
+   * Sends {@code record} to the dead-letter topic, retrying failed sends.
+   * {@code deadLettered} runs once the topic has it.
+   */
+  public void deadLetter(
+      ConsumerRecord<String, byte[]> record,
+      FailureType type,
+      Throwable failure,
+      int attempts,
+      Runnable deadLettered
+  ) {
+    send(record, type, failure, attempts, deadLettered, 0);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    scheduler.shutdownNow();
+    pending.forEach(retry -> {
+      if (pending.remove(retry)) {
+        deadLetter(retry);
+      }
+    });
+  }
+
+  private void retryOrDeadLetter(PendingRetry retry) {
+    if (retry.attempt() >= maxAttempts || pending.size() >= maxPending) {
+      deadLetter(retry);
+      return;
+    }
+
+    pending.add(retry);
+    long backoff = initialBackoffMs << (retry.attempt() - 1);
+    scheduler.schedule(() -> attempt(retry), backoff, TimeUnit.MILLISECONDS);
+  }
+
+  private void attempt(PendingRetry retry) {
+    if (!pending.remove(retry)) {
+      return;
+    }
+    retried.increment();
+    try {
+      retry.action().run();
+    } catch (RuntimeException e) {
+      deadLetterPublisher.recordFailure(FailureType.PROCESSING, e);
+      retryOrDeadLetter(new PendingRetry(
+          retry.record(), retry.action(), retry.deadLettered(), retry.attempt() + 1, e));
+    }
+  }
+
+  private void deadLetter(PendingRetry retry) {
+    deadLetter(retry.record(), FailureType.PROCESSING, retry.lastFailure(), retry.attempt(),
+        retry.deadLettered());
+  }
+
+  private void send(
+      ConsumerRecord<String, byte[]> record,
+      FailureType type,
+      Throwable failure,
+      int attempts,
+      Runnable deadLettered,
+      int failedSends
+  ) {
+    deadLetterPublisher.publish(record, type, failure, attempts).whenComplete((ok, e) -> {
+      if (e == null) {
+        deadLettered.run();
+        return;
+      }
+      long backoff = initialBackoffMs << Math.min(failedSends, MAX_BACKOFF_SHIFT);
+      try {
+        scheduler.schedule(
+            () -> send(record, type, failure, attempts, deadLettered, failedSends + 1),
+            backoff, TimeUnit.MILLISECONDS);
+      } catch (RejectedExecutionException rejected) {
+        log.warn("Shutting down before {}-{}@{} was dead-lettered; it will be consumed again",
+            record.topic(), record.partition(), record.offset());
+      }
+    });
+  }
+}
@@ -0,0 +1,9 @@
+package com.supersection.analyticsservice.kafka;
+
+/** Why an event was not counted; tags failure metrics and dead letters. */
+public enum FailureType {
+  /** The record is not a valid PatientEvent. Never retried. */
+  DECODE,
+  /** The event decoded but could not be applied. Retried before dead-lettering. */
+  PROCESSING
+}
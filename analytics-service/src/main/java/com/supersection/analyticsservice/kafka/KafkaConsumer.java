@@ -1,33 +1,265 @@
 package com.supersection.analyticsservice.kafka;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
 import org.springframework.stereotype.Service;
 
-import com.google.protobuf.InvalidProtocolBufferException;
+import com.supersection.analyticsservice.aggregation.PatientEventAggregator;
+import com.supersection.analyticsservice.aggregation.PatientEventSketches;
+import com.supersection.analyticsservice.snapshot.AnalyticsSnapshotter;
+import com.supersection.analyticsservice.snapshot.PartitionProgress;
+import com.supersection.analyticsservice.store.EventStore;
 
 import patient.events.PatientEvent;
 
-
+/**
+ * Consumes whole poll batches. Decoding fans out across the decoder's
+ * worker pool. By default events are then aggregated on the listener
+ * thread in poll order, which keeps every partition in offset order. With
+ * {@code analytics.consumer.lanes} set, events are instead fanned out to
+ * {@link ProcessingLanes} by patient ID, which keeps each patient's events
+ * in order while one partition is processed by many threads.
+ *
+ * <p>Either way each partition's {@link PartitionProgress} tracks which
+ * records are applied, and after every poll the listener commits each
+ * partition's watermark, below which every record is applied.
+ *
+ * <p>No single event can hold up its partition: undecodable records are
+ * dead-lettered at once, and events that fail processing are handed to the
+ * retry scheduler while the batch carries on. Either stays incomplete,
+ * holding back its partition's watermark, until it is applied or the
+ * dead-letter topic has it, so a restart in between consumes it again
+ * rather than losing it. Replayed dead letters arrive
+ * on the replay topic and are processed like any other event. An event
+ * already counted by the aggregator before a later step failed carries a
+ * header saying so, and retries and replays do not count it again.
+ *
+ * <p>Committed offsets only say what earlier runs consumed, not what the
+ * restored state contains, so assigned partitions are repositioned to
+ * where the snapshotter's state ends, or to the beginning if it has none.
+ * The event store checkpoints separately, so partitions resume at the
+ * earlier of the two positions and each side skips records it already has.
+ */
 @Service
-public class KafkaConsumer {
+public class KafkaConsumer implements ConsumerSeekAware {
 
   private static final Logger log = LoggerFactory.getLogger(KafkaConsumer.class);
 
-  @KafkaListener(topics = "patient", groupId = "analytics-service")
-  public void consumeEvent(byte[] event) {
+  private final PatientEventDecoder decoder;
+  private final PatientEventAggregator aggregator;
+  private final PatientEventSketches sketches;
+  private final AnalyticsSnapshotter snapshotter;
+  private final DeadLetterPublisher deadLetterPublisher;
+  private final EventRetryScheduler retryScheduler;
+  private final EventStore eventStore;
+  private final ProcessingLanes lanes;
+
+  public KafkaConsumer(
+      PatientEventDecoder decoder,
+      PatientEventAggregator aggregator,
+      PatientEventSketches sketches,
+      AnalyticsSnapshotter snapshotter,
+      DeadLetterPublisher deadLetterPublisher,
+      EventRetryScheduler retryScheduler,
+      EventStore eventStore,
+      ProcessingLanes lanes
+  ) {
+    this.decoder = decoder;
+    this.aggregator = aggregator;
+    this.sketches = sketches;
+    this.snapshotter = snapshotter;
+    this.deadLetterPublisher = deadLetterPublisher;
+    this.retryScheduler = retryScheduler;
+    this.eventStore = eventStore;
+    this.lanes = lanes;
+  }
+
+  @Override
+  public void onPartitionsAssigned(
+      Map<TopicPartition, Long> assignments,
+      ConsumerSeekCallback callback
+  ) {
+    assignments.keySet().forEach(partition -> {
+      Optional<Long> resumeOffset = snapshotter.resumeOffset(partition);
+      if (eventStore.enabled() && resumeOffset.isPresent()) {
+        long snapshotOffset = resumeOffset.get();
+        resumeOffset = eventStore.resumeOffset(partition)
+            .map(storeOffset -> Math.min(storeOffset, snapshotOffset));
+      }
+      if (resumeOffset.isPresent()) {
+        callback.seek(partition.topic(), partition.partition(), resumeOffset.get());
+      } else {
+        callback.seekToBeginning(partition.topic(), partition.partition());
+      }
+    });
+    log.info("Resuming analytics partitions {}", assignments.keySet());
+  }
+
+  @KafkaListener(
+      topics = {"patient", "${analytics.dead-letter.replay-topic:patient.analytics-retry}"},
+      groupId = "analytics-service",
+      batch = "true")
+  public void consumeEvents(List<ConsumerRecord<String, byte[]>> records, Consumer<?, ?> consumer) {
+    PatientEventDecoder.Decoded decoded = decoder.decode(records);
+    eventStore.append(records, storable(records, decoded.events()));
+
+    if (lanes.enabled()) {
+      dispatch(records, decoded);
+    } else {
+      snapshotter.apply(() -> applyInOrder(records, decoded));
+    }
+
+    commitWatermarks(consumer);
+    log.debug("Processed batch of {} patient events", records.size());
+  }
+
+  private void applyInOrder(
+      List<ConsumerRecord<String, byte[]>> records,
+      PatientEventDecoder.Decoded decoded
+  ) {
+    TopicPartition partition = null;
+    PartitionProgress progress = null;
+    for (int i = 0; i < records.size(); i++) {
+      ConsumerRecord<String, byte[]> record = records.get(i);
+      if (partition == null || partition.partition() != record.partition()
+          || !partition.topic().equals(record.topic())) {
+        partition = new TopicPartition(record.topic(), record.partition());
+        progress = snapshotter.progress(partition);
+      }
+
+      // False for records replayed only for the event store
+      if (progress.begin(record.offset())) {
+        handle(record, decoded.events()[i], decoded.failures()[i], progress);
+      }
+    }
+  }
+
+  // Records of one patient go to one lane, so they are applied in offset order
+  private void dispatch(
+      List<ConsumerRecord<String, byte[]>> records,
+      PatientEventDecoder.Decoded decoded
+  ) {
+    TopicPartition partition = null;
+    PartitionProgress progress = null;
+    for (int i = 0; i < records.size(); i++) {
+      ConsumerRecord<String, byte[]> record = records.get(i);
+      if (partition == null || partition.partition() != record.partition()
+          || !partition.topic().equals(record.topic())) {
+        partition = new TopicPartition(record.topic(), record.partition());
+        progress = snapshotter.progress(partition);
+      }
+      if (!progress.begin(record.offset())) {
+        continue;
+      }
+
+      PatientEvent patientEvent = decoded.events()[i];
+      Exception failure = decoded.failures()[i];
+      PartitionProgress recordProgress = progress;
+      if (patientEvent == null) {
+        snapshotter.apply(() -> handle(record, null, failure, recordProgress));
+      } else {
+        lanes.submit(patientEvent.getPatientId(), () -> snapshotter.apply(
+            () -> handle(record, patientEvent, null, recordProgress)));
+      }
+    }
+  }
+
+  private void handle(
+      ConsumerRecord<String, byte[]> record,
+      PatientEvent patientEvent,
+      Exception failure,
+      PartitionProgress progress
+  ) {
+    if (patientEvent == null) {
+      deadLetterPublisher.recordFailure(FailureType.DECODE, failure);
+      retryScheduler.deadLetter(record, FailureType.DECODE, failure, 1,
+          () -> snapshotter.apply(() -> progress.complete(record.offset())));
+      return;
+    }
+
     try {
-      PatientEvent patientEvent = PatientEvent.parseFrom(event);
-      // ... perform any business related to analytics here
+      process(record, patientEvent);
+    } catch (RuntimeException e) {
+      retryScheduler.failed(record,
+          () -> snapshotter.apply(() -> {
+            process(record, patientEvent);
+            progress.complete(record.offset());
+          }),
+          () -> snapshotter.apply(() -> progress.complete(record.offset())),
+          e);
+      return;
+    }
+    progress.complete(record.offset());
+  }
 
-      log.info("Received Patient Event: [PatientId={},PatientName={},PatientEmail={}]",
+  // With lanes the watermark trails the poll position, and catches up on later polls
+  private void commitWatermarks(Consumer<?, ?> consumer) {
+    Map<TopicPartition, OffsetAndMetadata> watermarks = new HashMap<>();
+    for (TopicPartition partition : consumer.assignment()) {
+      snapshotter.watermark(partition).ifPresent(
+          watermark -> watermarks.put(partition, new OffsetAndMetadata(watermark)));
+    }
+    if (!watermarks.isEmpty()) {
+      consumer.commitAsync(watermarks, (offsets, e) -> {
+        if (e != null) {
+          log.warn("Failed to commit analytics offsets {}: {}", offsets, e.getMessage());
+        }
+      });
+    }
+  }
+
+  // Replays of events that failed processing were stored when first consumed
+  private PatientEvent[] storable(
+      List<ConsumerRecord<String, byte[]>> records,
+      PatientEvent[] events
+  ) {
+    PatientEvent[] storable = events;
+    for (int i = 0; i < records.size(); i++) {
+      ConsumerRecord<String, byte[]> record = records.get(i);
+      if (record.topic().equals(deadLetterPublisher.replayTopic())
+          && FailureType.PROCESSING.name().equals(
+              DeadLetterPublisher.header(record, DeadLetterPublisher.FAILURE_TYPE))) {
+        if (storable == events) {
+          storable = events.clone();
+        }
+        storable[i] = null;
+      }
+    }
+    return storable;
+  }
+
+  // The record timestamp is when the producer created the event. Marks the
+  // record if the aggregator counted it and the sketches then failed, so a
+  // retry of the same record, or a replay of its dead letter, skips it
+  private void process(ConsumerRecord<String, byte[]> record, PatientEvent patientEvent) {
+    long timestamp = record.timestamp();
+    boolean aggregated = record.headers().lastHeader(DeadLetterPublisher.AGGREGATED) != null;
+    if (!aggregated) {
+      aggregator.record(patientEvent.getEventType(), timestamp);
+    }
+
+    try {
+      sketches.record(
+          patientEvent.getEventType(),
           patientEvent.getPatientId(),
-          patientEvent.getName(),
-          patientEvent.getEmail()
-      );
-    } catch (InvalidProtocolBufferException e) {
-      log.error("Error deserializing event {}", e.getMessage());
+          patientEvent.getEmail(),
+          timestamp);
+    } catch (RuntimeException e) {
+      if (!aggregated) {
+        record.headers().add(DeadLetterPublisher.AGGREGATED, new byte[0]);
+      }
+      throw e;
     }
   }
 }
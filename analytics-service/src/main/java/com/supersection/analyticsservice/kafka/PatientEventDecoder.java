@@ -0,0 +1,101 @@
+package com.supersection.analyticsservice.kafka;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+
+import jakarta.annotation.PreDestroy;
+import patient.events.PatientEvent;
+
+/**
+ * Decodes a poll batch of PatientEvents on a shared worker pool. The batch
+ * is split into contiguous chunks decoded in parallel, and results are
+ * returned by position, so callers can apply them in the order they were
+ * polled. Batches smaller than two chunks are decoded on the caller's
+ * thread, where a handoff would cost more than it saves. A record without
+ * a value, or one that fails to decode in any way, fails on its own and
+ * never takes the rest of the batch with it.
+ */
+@Component
+public class PatientEventDecoder {
+
+  private final ExecutorService workers;
+  private final int chunkSize;
+
+  public PatientEventDecoder(
+      @Value("${analytics.consumer.decode-threads:0}") int decodeThreads,
+      @Value("${analytics.consumer.decode-chunk-size:256}") int chunkSize
+  ) {
+    int threads = decodeThreads > 0 ? decodeThreads : Runtime.getRuntime().availableProcessors();
+    this.workers = Executors.newFixedThreadPool(
+        threads, Thread.ofPlatform().name("event-decoder-", 0).daemon().factory());
+    this.chunkSize = chunkSize;
+  }
+
+  /**
+   * One slot per record, in record order. A record that could not be
+   * decoded has a null event and its failure at the same index.
+   */
+  public record Decoded(PatientEvent[] events, Exception[] failures) {
+  }
+
+  public Decoded decode(List<ConsumerRecord<String, byte[]>> records) {
+    Decoded decoded = new Decoded(
+        new PatientEvent[records.size()], new Exception[records.size()]);
+    if (records.size() < 2 * chunkSize) {
+      decodeRange(records, decoded, 0, records.size());
+      return decoded;
+    }
+
+    List<Future<?>> chunks = new ArrayList<>();
+    for (int from = 0; from < records.size(); from += chunkSize) {
+      int start = from;
+      int end = Math.min(from + chunkSize, records.size());
+      chunks.add(workers.submit(() -> decodeRange(records, decoded, start, end)));
+    }
+
+    // Future.get makes each chunk's writes visible to this thread
+    for (Future<?> chunk : chunks) {
+      try {
+        chunk.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while decoding patient events", e);
+      } catch (ExecutionException e) {
+        throw new IllegalStateException("Failed to decode patient events", e.getCause());
+      }
+    }
+    return decoded;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    workers.shutdownNow();
+  }
+
+  private static void decodeRange(
+      List<ConsumerRecord<String, byte[]>> records, Decoded decoded, int from, int to
+  ) {
+    for (int i = from; i < to; i++) {
+      byte[] value = records.get(i).value();
+      try {
+        // An empty value would otherwise decode to an event with every field unset
+        if (value == null || value.length == 0) {
+          throw new InvalidProtocolBufferException("Patient event has no value");
+        }
+        decoded.events()[i] = PatientEvent.parseFrom(value);
+      } catch (InvalidProtocolBufferException | RuntimeException e) {
+        decoded.failures()[i] = e;
+      }
+    }
+  }
+}
@@ -0,0 +1,118 @@
+package com.supersection.analyticsservice.kafka;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * A fixed set of lanes, each a single thread draining a bounded queue.
+ * Work for one key always goes to the same lane, so it runs in submission
+ * order, while different keys run in parallel on as many lanes as are
+ * configured, however many partitions the topic has. A full lane blocks
+ * the submitter, which holds back the next poll instead of buffering
+ * without bound. With {@code lanes} 0 nothing is started.
+ */
+@Component
+public class ProcessingLanes {
+
+  private static final Logger log = LoggerFactory.getLogger(ProcessingLanes.class);
+
+  private static final Runnable STOP = () -> { };
+
+  private final BlockingQueue<Runnable>[] queues;
+  private final Thread[] threads;
+
+  @SuppressWarnings("unchecked")
+  public ProcessingLanes(
+      @Value("${analytics.consumer.lanes:0}") int lanes,
+      @Value("${analytics.consumer.lane-capacity:1024}") int capacity,
+      MeterRegistry meterRegistry
+  ) {
+    this.queues = new BlockingQueue[lanes];
+    this.threads = new Thread[lanes];
+    for (int lane = 0; lane < lanes; lane++) {
+      BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(capacity);
+      queues[lane] = queue;
+      threads[lane] = Thread.ofPlatform()
+          .name("analytics-lane-" + lane)
+          .daemon()
+          .start(() -> drain(queue));
+    }
+
+    Gauge.builder("analytics.lanes.queued", this, ProcessingLanes::queued)
+        .description("Events waiting on processing lanes")
+        .register(meterRegistry);
+  }
+
+  public boolean enabled() {
+    return queues.length > 0;
+  }
+
+  /** Queues {@code task} behind earlier work for the same key. */
+  public void submit(String key, Runnable task) {
+    BlockingQueue<Runnable> queue = queues[Math.floorMod(key.hashCode(), queues.length)];
+
+    // Lanes always make progress, so waiting out an interrupt is safe and
+    // never loses a task that was already registered
+    boolean interrupted = false;
+    while (true) {
+      try {
+        queue.put(task);
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @PreDestroy
+  public void close() throws InterruptedException {
+    for (BlockingQueue<Runnable> queue : queues) {
+      queue.put(STOP);
+    }
+    for (Thread thread : threads) {
+      thread.join(TimeUnit.SECONDS.toMillis(10));
+    }
+  }
+
+  private int queued() {
+    int queued = 0;
+    for (BlockingQueue<Runnable> queue : queues) {
+      queued += queue.size();
+    }
+    return queued;
+  }
+
+  private static void drain(BlockingQueue<Runnable> queue) {
+    while (true) {
+      Runnable task;
+      try {
+        task = queue.take();
+      } catch (InterruptedException e) {
+        return;
+      }
+      if (task == STOP) {
+        return;
+      }
+
+      try {
+        task.run();
+      } catch (RuntimeException e) {
+        // Tasks handle their own failures; this only keeps the lane alive
+        log.error("Unexpected failure on processing lane: {}", e.getMessage(), e);
+      }
+    }
+  }
+}
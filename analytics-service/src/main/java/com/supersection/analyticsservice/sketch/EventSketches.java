@@ -0,0 +1,96 @@
+package com.supersection.analyticsservice.sketch;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The sketches kept for one time bucket of patient events: distinct
+ * patients, and the heaviest email domains and event types. About 12 KB
+ * with default settings. Buckets merge into a bucket covering their union
+ * and serialize to a compact, versioned binary form.
+ */
+public final class EventSketches {
+
+  private static final byte FORMAT_VERSION = 1;
+
+  private final int topK;
+  private final HyperLogLog patients;
+  private final TopK emailDomains;
+  private final TopK eventTypes;
+
+  public EventSketches(int topK) {
+    this(topK, new HyperLogLog(), new TopK(topK, true), new TopK(topK, false));
+  }
+
+  private EventSketches(int topK, HyperLogLog patients, TopK emailDomains, TopK eventTypes) {
+    this.topK = topK;
+    this.patients = patients;
+    this.emailDomains = emailDomains;
+    this.eventTypes = eventTypes;
+  }
+
+  public void record(String eventType, String patientId, String email) {
+    if (!patientId.isEmpty()) {
+      patients.add(patientId);
+    }
+    int at = email.lastIndexOf('@');
+    if (at >= 0 && at < email.length() - 1) {
+      emailDomains.add(email, at + 1, email.length());
+    }
+    eventTypes.add(eventType);
+  }
+
+  public HyperLogLog patients() {
+    return patients;
+  }
+
+  public TopK emailDomains() {
+    return emailDomains;
+  }
+
+  public TopK eventTypes() {
+    return eventTypes;
+  }
+
+  public void merge(EventSketches other) {
+    patients.merge(other.patients);
+    emailDomains.merge(other.emailDomains);
+    eventTypes.merge(other.eventTypes);
+  }
+
+  /**
+   * Serializes a copy of this bucket, so it is safe to call while events
+   * are still being recorded into it.
+   */
+  public byte[] toBytes() {
+    EventSketches copy = new EventSketches(topK);
+    copy.merge(this);
+
+    ByteBuffer buffer = ByteBuffer.allocate(copy.serializedSize());
+    copy.writeTo(buffer);
+    return buffer.array();
+  }
+
+  public static EventSketches fromBytes(byte[] bytes) {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    byte version = buffer.get();
+    if (version != FORMAT_VERSION) {
+      throw new IllegalArgumentException("Unsupported sketch format version " + version);
+    }
+    HyperLogLog patients = HyperLogLog.readFrom(buffer);
+    TopK emailDomains = TopK.readFrom(buffer);
+    TopK eventTypes = TopK.readFrom(buffer);
+    return new EventSketches(emailDomains.k(), patients, emailDomains, eventTypes);
+  }
+
+  private int serializedSize() {
+    return 1 + patients.serializedSize()
+        + emailDomains.serializedSize() + eventTypes.serializedSize();
+  }
+
+  private void writeTo(ByteBuffer buffer) {
+    buffer.put(FORMAT_VERSION);
+    patients.writeTo(buffer);
+    emailDomains.writeTo(buffer);
+    eventTypes.writeTo(buffer);
+  }
+}
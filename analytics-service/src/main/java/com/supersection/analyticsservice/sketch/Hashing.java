@@ -0,0 +1,28 @@
+package com.supersection.analyticsservice.sketch;
+
+/** 64-bit hashing of string ranges without copying them. */
+final class Hashing {
+
+  private Hashing() {
+  }
+
+  static long hash(String value) {
+    return hash(value, 0, value.length(), false);
+  }
+
+  // FNV-1a over the chars, finished with the MurmurHash3 fmix64 mixer
+  static long hash(String value, int from, int to, boolean ignoreCase) {
+    long hash = 0xCBF29CE484222325L;
+    for (int i = from; i < to; i++) {
+      char c = value.charAt(i);
+      hash ^= ignoreCase ? Character.toLowerCase(c) : c;
+      hash *= 0x100000001B3L;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xFF51AFD7ED558CCDL;
+    hash ^= hash >>> 33;
+    hash *= 0xC4CEB9FE1A85EC53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
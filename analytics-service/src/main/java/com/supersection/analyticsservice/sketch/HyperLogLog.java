@@ -0,0 +1,108 @@
+package com.supersection.analyticsservice.sketch;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Distinct-count estimate in 2^precision one-byte registers, each the
+ * longest run of leading zeros seen among hashes routed to it. Standard
+ * error is 1.04 / sqrt(2^precision): 1.6% in 4 KB at the default precision
+ * of 12. Two sketches of equal precision merge losslessly by taking the
+ * larger of each register, so partitions and instances can be combined.
+ */
+public final class HyperLogLog {
+
+  public static final int DEFAULT_PRECISION = 12;
+
+  private final int precision;
+  // Four one-byte registers per int, so updates can CAS without locking
+  private final AtomicIntegerArray registers;
+
+  public HyperLogLog() {
+    this(DEFAULT_PRECISION);
+  }
+
+  public HyperLogLog(int precision) {
+    if (precision < 4 || precision > 18) {
+      throw new IllegalArgumentException("precision must be between 4 and 18");
+    }
+    this.precision = precision;
+    this.registers = new AtomicIntegerArray((1 << precision) / 4);
+  }
+
+  public void add(String value) {
+    long hash = Hashing.hash(value);
+    int index = (int) (hash >>> (64 - precision));
+    // Sentinel bit caps the run length when the remaining bits are all zero
+    int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+    raise(index, rank);
+  }
+
+  public long estimate() {
+    int m = 1 << precision;
+    double sum = 0;
+    int zeros = 0;
+    for (int i = 0; i < m; i++) {
+      int register = register(i);
+      sum += 1.0 / (1L << register);
+      if (register == 0) {
+        zeros++;
+      }
+    }
+
+    double alpha = 0.7213 / (1 + 1.079 / m);
+    double estimate = alpha * m * m / sum;
+    // Linear counting is far more accurate while many registers are empty
+    if (estimate <= 2.5 * m && zeros > 0) {
+      estimate = m * Math.log((double) m / zeros);
+    }
+    return Math.round(estimate);
+  }
+
+  public void merge(HyperLogLog other) {
+    if (other.precision != precision) {
+      throw new IllegalArgumentException("Cannot merge HyperLogLogs of different precision");
+    }
+    for (int i = 0; i < 1 << precision; i++) {
+      raise(i, other.register(i));
+    }
+  }
+
+  int serializedSize() {
+    return 1 + (1 << precision);
+  }
+
+  void writeTo(ByteBuffer buffer) {
+    buffer.put((byte) precision);
+    for (int i = 0; i < 1 << precision; i++) {
+      buffer.put((byte) register(i));
+    }
+  }
+
+  static HyperLogLog readFrom(ByteBuffer buffer) {
+    HyperLogLog sketch = new HyperLogLog(buffer.get());
+    for (int i = 0; i < 1 << sketch.precision; i++) {
+      sketch.raise(i, buffer.get());
+    }
+    return sketch;
+  }
+
+  private int register(int index) {
+    return (registers.get(index >>> 2) >>> ((index & 3) * 8)) & 0xFF;
+  }
+
+  private void raise(int index, int rank) {
+    int word = index >>> 2;
+    int shift = (index & 3) * 8;
+    while (true) {
+      int current = registers.get(word);
+      if (((current >>> shift) & 0xFF) >= rank) {
+        return;
+      }
+      int updated = (current & ~(0xFF << shift)) | (rank << shift);
+      if (registers.compareAndSet(word, current, updated)) {
+        return;
+      }
+    }
+  }
+}
@@ -0,0 +1,163 @@
+package com.supersection.analyticsservice.sketch;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The k most frequent items of a stream: a {@link CountMinSketch} counts
+ * every item, and the k items with the highest estimates are kept as
+ * candidates. Estimates carry the sketch's error bound, so an item whose
+ * true count is within e / width of the total of the k-th may be missed or
+ * misranked. Merging merges the sketches and re-ranks the union of both
+ * candidate lists against the merged counts.
+ */
+public final class TopK {
+
+  public static final int DEFAULT_K = 16;
+
+  private final int k;
+  private final boolean ignoreCase;
+  private final CountMinSketch counts;
+
+  // Guarded by this; k is small, so linear scans beat a map here
+  private final String[] items;
+  private final long[] estimates;
+  private int size;
+
+  public TopK(int k, boolean ignoreCase) {
+    this(k, ignoreCase, new CountMinSketch());
+  }
+
+  private TopK(int k, boolean ignoreCase, CountMinSketch counts) {
+    if (k < 1) {
+      throw new IllegalArgumentException("k must be positive");
+    }
+    this.k = k;
+    this.ignoreCase = ignoreCase;
+    this.counts = counts;
+    this.items = new String[k];
+    this.estimates = new long[k];
+  }
+
+  public void add(String value) {
+    add(value, 0, value.length());
+  }
+
+  /** Adds {@code value[from, to)}; the substring is only copied if it becomes a candidate. */
+  public void add(String value, int from, int to) {
+    long hash = Hashing.hash(value, from, to, ignoreCase);
+    counts.add(hash);
+    offer(value, from, to, counts.estimate(hash));
+  }
+
+  public record Entry(String item, long estimate) {
+  }
+
+  /** Candidates by descending estimate. */
+  public synchronized List<Entry> top() {
+    List<Entry> top = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      top.add(new Entry(items[i], estimates[i]));
+    }
+    top.sort(Comparator.comparingLong(Entry::estimate).reversed());
+    return top;
+  }
+
+  public int k() {
+    return k;
+  }
+
+  public long total() {
+    return counts.total();
+  }
+
+  public void merge(TopK other) {
+    if (other.k != k || other.ignoreCase != ignoreCase) {
+      throw new IllegalArgumentException("Cannot merge top-k sketches of different shape");
+    }
+    // Read the other side before locking this one, so opposing merges cannot deadlock
+    List<Entry> theirs = other.top();
+    counts.merge(other.counts);
+
+    synchronized (this) {
+      // Existing candidates' counts may have grown too, so re-estimate them all
+      for (int i = 0; i < size; i++) {
+        estimates[i] = estimate(items[i]);
+      }
+      for (Entry entry : theirs) {
+        offer(entry.item(), 0, entry.item().length(), estimate(entry.item()));
+      }
+    }
+  }
+
+  synchronized int serializedSize() {
+    int bytes = Integer.BYTES + 1 + counts.serializedSize() + Integer.BYTES;
+    for (int i = 0; i < size; i++) {
+      bytes += Integer.BYTES + items[i].getBytes(StandardCharsets.UTF_8).length + Long.BYTES;
+    }
+    return bytes;
+  }
+
+  synchronized void writeTo(ByteBuffer buffer) {
+    buffer.putInt(k);
+    buffer.put((byte) (ignoreCase ? 1 : 0));
+    counts.writeTo(buffer);
+    buffer.putInt(size);
+    for (int i = 0; i < size; i++) {
+      byte[] item = items[i].getBytes(StandardCharsets.UTF_8);
+      buffer.putInt(item.length);
+      buffer.put(item);
+      buffer.putLong(estimates[i]);
+    }
+  }
+
+  static TopK readFrom(ByteBuffer buffer) {
+    int k = buffer.getInt();
+    boolean ignoreCase = buffer.get() != 0;
+    TopK sketch = new TopK(k, ignoreCase, CountMinSketch.readFrom(buffer));
+
+    int size = buffer.getInt();
+    if (size < 0 || size > k) {
+      throw new IllegalArgumentException("Corrupt top-k sketch");
+    }
+    for (int i = 0; i < size; i++) {
+      byte[] item = new byte[buffer.getInt()];
+      buffer.get(item);
+      sketch.items[i] = new String(item, StandardCharsets.UTF_8);
+      sketch.estimates[i] = buffer.getLong();
+    }
+    sketch.size = size;
+    return sketch;
+  }
+
+  private long estimate(String item) {
+    return counts.estimate(Hashing.hash(item, 0, item.length(), ignoreCase));
+  }
+
+  private synchronized void offer(String value, int from, int to, long estimate) {
+    int length = to - from;
+    int min = -1;
+    for (int i = 0; i < size; i++) {
+      String item = items[i];
+      if (item.length() == length && item.regionMatches(ignoreCase, 0, value, from, length)) {
+        estimates[i] = Math.max(estimates[i], estimate);
+        return;
+      }
+      if (min < 0 || estimates[i] < estimates[min]) {
+        min = i;
+      }
+    }
+
+    if (size < k) {
+      items[size] = value.substring(from, to);
+      estimates[size] = estimate;
+      size++;
+    } else if (estimate > estimates[min]) {
+      items[min] = value.substring(from, to);
+      estimates[min] = estimate;
+    }
+  }
+}
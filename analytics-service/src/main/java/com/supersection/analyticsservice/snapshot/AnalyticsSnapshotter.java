@@ -0,0 +1,242 @@
+package com.supersection.analyticsservice.snapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.supersection.analyticsservice.aggregation.PatientEventAggregator;
+import com.supersection.analyticsservice.aggregation.PatientEventSketches;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Makes analytics state survive restarts. Listeners apply events through
+ * {@link #apply} under a shared lock and track which records each
+ * partition's state holds in its {@link PartitionProgress}; a snapshot
+ * takes the lock exclusively for the few milliseconds it needs to copy
+ * state and progress, so every snapshot holds exactly the events its
+ * progress lists, even when records complete out of offset order.
+ * Snapshots are written every {@code interval-ms} and on shutdown, and
+ * restored on startup, after which listeners resume each partition from
+ * its snapshot watermark and skip the records above it already applied.
+ */
+@Component
+public class AnalyticsSnapshotter {
+
+  private static final Logger log = LoggerFactory.getLogger(AnalyticsSnapshotter.class);
+
+  // Version 1 recorded only the next offset per partition
+  private static final int FORMAT_VERSION = 2;
+
+  private final PatientEventAggregator aggregator;
+  private final PatientEventSketches sketches;
+  private final SnapshotFile file;
+  private final boolean enabled;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  // Every partition this instance has state for
+  private final Map<TopicPartition, PartitionProgress> progress = new ConcurrentHashMap<>();
+  private volatile boolean dirty;
+
+  public AnalyticsSnapshotter(
+      PatientEventAggregator aggregator,
+      PatientEventSketches sketches,
+      @Value("${analytics.snapshot.directory:data/snapshots}") Path directory,
+      @Value("${analytics.snapshot.enabled:true}") boolean enabled
+  ) {
+    this.aggregator = aggregator;
+    this.sketches = sketches;
+    this.file = new SnapshotFile(directory, "analytics.snapshot");
+    this.enabled = enabled;
+  }
+
+  /**
+   * Runs {@code update}, which applies events and marks their records
+   * complete in their partition's progress, so no snapshot sees one
+   * without the other.
+   */
+  public void apply(Runnable update) {
+    lock.readLock().lock();
+    try {
+      update.run();
+      dirty = true;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** The partition's progress, starting at its first record if it has none. */
+  public PartitionProgress progress(TopicPartition partition) {
+    return progress.computeIfAbsent(partition, key -> new PartitionProgress(0, List.of()));
+  }
+
+  /** Every record of the partition below this offset is applied. */
+  public Optional<Long> watermark(TopicPartition partition) {
+    return Optional.ofNullable(progress.get(partition)).map(PartitionProgress::watermark);
+  }
+
+  /**
+   * Where a newly assigned partition should resume so state stays exact:
+   * the offset after the last record begun, or empty if this instance
+   * holds none of the partition's events.
+   */
+  public Optional<Long> resumeOffset(TopicPartition partition) {
+    return Optional.ofNullable(progress.get(partition)).map(PartitionProgress::next);
+  }
+
+  @PostConstruct
+  public void restore() {
+    if (!enabled) {
+      return;
+    }
+
+    long start = System.nanoTime();
+    Optional<ByteBuffer> snapshot;
+    try {
+      snapshot = file.read();
+    } catch (IOException e) {
+      log.warn("Ignoring unreadable analytics snapshot, rebuilding from the topic: {}",
+          e.getMessage());
+      return;
+    }
+    if (snapshot.isEmpty()) {
+      log.info("No analytics snapshot at {}, rebuilding from the topic", file.path());
+      return;
+    }
+
+    try {
+      ByteBuffer buffer = snapshot.get();
+      int version = buffer.getInt();
+      if (version != FORMAT_VERSION && version != 1) {
+        throw new IllegalArgumentException("Unsupported snapshot format version");
+      }
+      Map<TopicPartition, PartitionProgress> restored = readProgress(buffer, version);
+      aggregator.readFrom(buffer);
+      int sketchLength = buffer.getInt();
+      sketches.readFrom(buffer.slice(buffer.position(), sketchLength));
+      progress.putAll(restored);
+    } catch (RuntimeException e) {
+      // Usually a ring or dictionary setting changed since the snapshot was taken
+      log.warn("Discarding incompatible analytics snapshot, rebuilding from the topic: {}",
+          e.getMessage());
+      aggregator.clear();
+      sketches.clear();
+      return;
+    }
+
+    log.info("Restored analytics snapshot covering {} partitions in {} ms",
+        progress.size(), (System.nanoTime() - start) / 1_000_000);
+  }
+
+  @Scheduled(
+      fixedDelayString = "${analytics.snapshot.interval-ms:60000}",
+      initialDelayString = "${analytics.snapshot.interval-ms:60000}"
+  )
+  public void snapshot() {
+    if (!enabled || !dirty) {
+      return;
+    }
+
+    ByteBuffer contents;
+    int partitions;
+    lock.writeLock().lock();
+    try {
+      dirty = false;
+      Map<TopicPartition, PartitionProgress> covered = new HashMap<>(progress);
+      byte[] sketchState = sketches.toBytes();
+
+      contents = ByteBuffer.allocate(Integer.BYTES + progressSize(covered)
+          + aggregator.serializedSize() + Integer.BYTES + sketchState.length);
+      contents.putInt(FORMAT_VERSION);
+      writeProgress(covered, contents);
+      aggregator.writeTo(contents);
+      contents.putInt(sketchState.length);
+      contents.put(sketchState);
+      contents.flip();
+      partitions = covered.size();
+    } finally {
+      lock.writeLock().unlock();
+    }
+
+    try {
+      file.write(contents);
+      log.debug("Wrote {} byte analytics snapshot covering {} partitions",
+          contents.limit(), partitions);
+    } catch (IOException e) {
+      dirty = true;
+      log.error("Failed to write analytics snapshot to {}: {}", file.path(), e.getMessage());
+    }
+  }
+
+  @PreDestroy
+  public void close() {
+    snapshot();
+  }
+
+  private static int progressSize(Map<TopicPartition, PartitionProgress> progress) {
+    int bytes = Integer.BYTES;
+    for (Map.Entry<TopicPartition, PartitionProgress> entry : progress.entrySet()) {
+      bytes += Short.BYTES + entry.getKey().topic().getBytes(StandardCharsets.UTF_8).length
+          + Integer.BYTES + Long.BYTES
+          + Integer.BYTES + entry.getValue().completedAbove().size() * Long.BYTES;
+    }
+    return bytes;
+  }
+
+  // Called with the write lock held, so no progress changes underneath
+  private static void writeProgress(
+      Map<TopicPartition, PartitionProgress> progress, ByteBuffer buffer
+  ) {
+    buffer.putInt(progress.size());
+    progress.forEach((partition, partitionProgress) -> {
+      byte[] topic = partition.topic().getBytes(StandardCharsets.UTF_8);
+      buffer.putShort((short) topic.length);
+      buffer.put(topic);
+      buffer.putInt(partition.partition());
+      buffer.putLong(partitionProgress.watermark());
+      List<Long> completedAbove = partitionProgress.completedAbove();
+      buffer.putInt(completedAbove.size());
+      completedAbove.forEach(buffer::putLong);
+    });
+  }
+
+  private static Map<TopicPartition, PartitionProgress> readProgress(
+      ByteBuffer buffer, int version
+  ) {
+    int count = buffer.getInt();
+    Map<TopicPartition, PartitionProgress> progress = new HashMap<>();
+    for (int i = 0; i < count; i++) {
+      byte[] topic = new byte[buffer.getShort()];
+      buffer.get(topic);
+      TopicPartition partition =
+          new TopicPartition(new String(topic, StandardCharsets.UTF_8), buffer.getInt());
+      long watermark = buffer.getLong();
+      List<Long> completedAbove = new ArrayList<>();
+      if (version > 1) {
+        int completed = buffer.getInt();
+        for (int j = 0; j < completed; j++) {
+          completedAbove.add(buffer.getLong());
+        }
+      }
+      progress.put(partition, new PartitionProgress(watermark, completedAbove));
+    }
+    return progress;
+  }
+}
@@ -0,0 +1,70 @@
+package com.supersection.analyticsservice.snapshot;
+
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Which records of one partition analytics state contains, when records
+ * may finish out of offset order. Every record is registered with
+ * {@link #begin} in offset order on the listener thread and marked with
+ * {@link #complete} once applied, on any thread.
+ *
+ * <p>The watermark is the lowest offset begun but not completed, so every
+ * record below it is applied; it is where Kafka commits go. The few records
+ * above it that already completed are remembered too, so a snapshot can
+ * record exactly which events its state holds.
+ */
+public final class PartitionProgress {
+
+  // Begun but not completed
+  private final TreeSet<Long> pending = new TreeSet<>();
+  // Completed above the watermark
+  private final TreeSet<Long> completedAbove = new TreeSet<>();
+  // The offset after the last record begun
+  private long next;
+
+  PartitionProgress(long watermark, List<Long> completedAbove) {
+    this.next = watermark;
+    this.completedAbove.addAll(completedAbove);
+  }
+
+  /**
+   * Registers a record about to be applied.
+   *
+   * @return false if the record is already applied or in progress, for
+   *     example when a partition is reassigned or replayed for the event store
+   */
+  public synchronized boolean begin(long offset) {
+    if (offset < next) {
+      return false;
+    }
+    next = offset + 1;
+    if (completedAbove.contains(offset)) {
+      return false;
+    }
+    pending.add(offset);
+    return true;
+  }
+
+  public synchronized void complete(long offset) {
+    pending.remove(offset);
+    if (!pending.isEmpty() && offset > pending.first()) {
+      completedAbove.add(offset);
+    }
+    completedAbove.headSet(watermark()).clear();
+  }
+
+  /** The lowest offset whose record is not applied yet. */
+  public synchronized long watermark() {
+    return pending.isEmpty() ? next : pending.first();
+  }
+
+  /** Where to resume fetching so no record is applied twice. */
+  synchronized long next() {
+    return next;
+  }
+
+  synchronized List<Long> completedAbove() {
+    return List.copyOf(completedAbove);
+  }
+}
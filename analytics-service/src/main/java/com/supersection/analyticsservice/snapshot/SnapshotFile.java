@@ -0,0 +1,80 @@
+package com.supersection.analyticsservice.snapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.zip.CRC32C;
+
+/**
+ * One snapshot or checkpoint file on local disk. Writes go to a temporary file that is
+ * forced to disk and then atomically renamed over the previous snapshot,
+ * so a crash mid-write leaves the old one intact. Reads map the file and
+ * verify the CRC32C trailer before handing out its contents.
+ */
+public final class SnapshotFile {
+
+  private static final int MAGIC = 0x414E5331; // "ANS1"
+
+  private final Path path;
+  private final Path tempPath;
+
+  public SnapshotFile(Path directory, String name) {
+    this.path = directory.resolve(name);
+    this.tempPath = directory.resolve(name + ".tmp");
+  }
+
+  public Path path() {
+    return path;
+  }
+
+  public void write(ByteBuffer contents) throws IOException {
+    Files.createDirectories(path.getParent());
+
+    CRC32C crc = new CRC32C();
+    crc.update(contents.duplicate());
+    ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+    header.putInt(MAGIC).flip();
+    ByteBuffer trailer = ByteBuffer.allocate(Long.BYTES);
+    trailer.putLong(crc.getValue()).flip();
+
+    try (FileChannel channel = FileChannel.open(tempPath,
+        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      ByteBuffer[] parts = {header, contents, trailer};
+      while (trailer.hasRemaining()) {
+        channel.write(parts);
+      }
+      channel.force(true);
+    }
+    Files.move(tempPath, path,
+        StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  /** The snapshot's contents, or empty if there is no snapshot yet. */
+  public Optional<ByteBuffer> read() throws IOException {
+    if (!Files.exists(path)) {
+      return Optional.empty();
+    }
+
+    MappedByteBuffer mapped;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    if (mapped.limit() < Integer.BYTES + Long.BYTES || mapped.getInt(0) != MAGIC) {
+      throw new IOException("Not a snapshot file: " + path);
+    }
+
+    ByteBuffer contents = mapped.slice(Integer.BYTES, mapped.limit() - Integer.BYTES - Long.BYTES);
+    CRC32C crc = new CRC32C();
+    crc.update(contents.duplicate());
+    if (crc.getValue() != mapped.getLong(mapped.limit() - Long.BYTES)) {
+      throw new IOException("Snapshot file is corrupt: " + path);
+    }
+    return Optional.of(contents);
+  }
+}
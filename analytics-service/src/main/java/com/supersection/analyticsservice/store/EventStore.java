@@ -0,0 +1,465 @@
+package com.supersection.analyticsservice.store;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.supersection.analyticsservice.aggregation.EventTypeDictionary;
+import com.supersection.analyticsservice.dto.StoreQueryResponseDTO;
+import com.supersection.analyticsservice.snapshot.SnapshotFile;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import patient.events.PatientEvent;
+
+/**
+ * Embedded, append-only columnar store of every patient event, one
+ * {@link Segment} file per UTC day, for ad-hoc range and group-by queries
+ * over long histories. Rows are buffered per day and written as column
+ * blocks when a block fills or at each checkpoint.
+ *
+ * <p>A checkpoint forces segments to disk and then atomically records their
+ * lengths, the event type dictionary and the next offset per partition. On
+ * startup segments are truncated back to the checkpoint and records below
+ * the checkpointed offsets are ignored, so replays after a restart never
+ * store an event twice, independently of the analytics snapshot. A
+ * checkpoint that cannot be read, or that lists more data than its segments
+ * hold, is discarded with every segment, and the store is rebuilt from the
+ * topic. If a write fails the store stops accepting rows until restart,
+ * when the rows since the last checkpoint are replayed.
+ */
+@Component
+public class EventStore {
+
+  private static final Logger log = LoggerFactory.getLogger(EventStore.class);
+
+  private static final int CHECKPOINT_VERSION = 1;
+  private static final String SEGMENT_SUFFIX = ".seg";
+  private static final long HOUR_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+  private final Path directory;
+  private final SnapshotFile checkpointFile;
+  private final int blockRows;
+  private final int retentionDays;
+  private final boolean enabled;
+
+  // Byte-sized ids, with id 0 (OTHER) absorbing types beyond 255
+  private final EventTypeDictionary eventTypes = new EventTypeDictionary(256);
+  private final Map<Long, Segment> segments = new ConcurrentSkipListMap<>();
+
+  // Guarded by this
+  private final Map<Long, ActiveBlock> activeBlocks = new HashMap<>();
+  private final Map<TopicPartition, Long> skipBelow = new HashMap<>();
+  private final Map<TopicPartition, Long> nextOffsets = new HashMap<>();
+  private boolean failed;
+
+  private final AtomicLong rowsAppended = new AtomicLong();
+
+  private static final class ActiveBlock {
+    final int[] offsets;
+    final byte[] types;
+    int rows;
+
+    ActiveBlock(int capacity) {
+      offsets = new int[capacity];
+      types = new byte[capacity];
+    }
+  }
+
+  public EventStore(
+      @Value("${analytics.store.directory:data/store}") Path directory,
+      @Value("${analytics.store.block-rows:65536}") int blockRows,
+      @Value("${analytics.store.retention-days:400}") int retentionDays,
+      @Value("${analytics.store.enabled:true}") boolean enabled
+  ) {
+    this.directory = directory;
+    this.checkpointFile = new SnapshotFile(directory, "store.checkpoint");
+    this.blockRows = blockRows;
+    this.retentionDays = retentionDays;
+    this.enabled = enabled;
+  }
+
+  @PostConstruct
+  public synchronized void open() throws IOException {
+    if (!enabled) {
+      return;
+    }
+    Files.createDirectories(directory);
+
+    Map<Long, Path> files = new HashMap<>();
+    try (DirectoryStream<Path> found = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+      for (Path file : found) {
+        String name = file.getFileName().toString();
+        try {
+          files.put(LocalDate.parse(name.substring(0, name.length() - SEGMENT_SUFFIX.length()))
+              .toEpochDay(), file);
+        } catch (DateTimeParseException e) {
+          log.warn("Ignoring {} in the event store directory, not a day segment", file);
+        }
+      }
+    }
+
+    Optional<Checkpoint> checkpoint = readCheckpoint(files);
+    checkpoint.ifPresent(restored -> {
+      eventTypes.readFrom(restored.eventTypes());
+      skipBelow.putAll(restored.nextOffsets());
+      nextOffsets.putAll(restored.nextOffsets());
+    });
+    Map<Long, Long> lengths = checkpoint.map(Checkpoint::lengths).orElse(Map.of());
+
+    for (Map.Entry<Long, Path> file : files.entrySet()) {
+      Long length = lengths.get(file.getKey());
+      if (length == null) {
+        // Created after the last checkpoint; its rows will be replayed
+        Files.delete(file.getValue());
+      } else {
+        segments.put(file.getKey(), new Segment(file.getKey(), file.getValue(), length));
+      }
+    }
+
+    log.info("Opened event store at {} with {} day segments", directory, segments.size());
+  }
+
+  /** Stores the decoded events of a batch, skipping records stored before a restart. */
+  public synchronized void append(List<ConsumerRecord<String, byte[]>> records, PatientEvent[] events) {
+    if (!enabled || failed) {
+      return;
+    }
+
+    TopicPartition partition = null;
+    long skip = -1;
+    long oldestDay = currentDay() - retentionDays + 1;
+    int stored = 0;
+    try {
+      for (int i = 0; i < records.size(); i++) {
+        ConsumerRecord<String, byte[]> record = records.get(i);
+        if (partition == null || partition.partition() != record.partition()
+            || !partition.topic().equals(record.topic())) {
+          if (partition != null) {
+            nextOffsets.merge(partition, records.get(i - 1).offset() + 1, Math::max);
+          }
+          partition = new TopicPartition(record.topic(), record.partition());
+          skip = skipBelow.getOrDefault(partition, -1L);
+        }
+
+        PatientEvent event = events[i];
+        long timestamp = Math.min(record.timestamp(), System.currentTimeMillis());
+        long epochDay = Math.floorDiv(timestamp, Segment.DAY_MILLIS);
+        if (event == null || record.offset() < skip || epochDay < oldestDay) {
+          continue;
+        }
+
+        ActiveBlock block = activeBlocks.computeIfAbsent(epochDay, day -> new ActiveBlock(blockRows));
+        block.offsets[block.rows] = (int) (timestamp - epochDay * Segment.DAY_MILLIS);
+        block.types[block.rows] = (byte) eventTypes.idOf(event.getEventType());
+        stored++;
+        if (++block.rows == blockRows) {
+          writeBlock(epochDay, block);
+        }
+      }
+      if (partition != null) {
+        nextOffsets.merge(partition, records.getLast().offset() + 1, Math::max);
+      }
+      rowsAppended.addAndGet(stored);
+    } catch (IOException e) {
+      fail(e);
+    }
+  }
+
+  /**
+   * Writes buffered rows, forces every segment to disk and then records the
+   * checkpoint. Old segments past {@code retention-days} are deleted.
+   */
+  @Scheduled(
+      fixedDelayString = "${analytics.store.checkpoint-interval-ms:10000}",
+      initialDelayString = "${analytics.store.checkpoint-interval-ms:10000}"
+  )
+  public synchronized void checkpoint() {
+    if (!enabled || failed) {
+      return;
+    }
+
+    try {
+      for (Map.Entry<Long, ActiveBlock> active : activeBlocks.entrySet()) {
+        if (active.getValue().rows > 0) {
+          writeBlock(active.getKey(), active.getValue());
+        }
+      }
+      activeBlocks.clear();
+      for (Segment segment : segments.values()) {
+        segment.force();
+      }
+      checkpointFile.write(checkpointContents());
+      deleteExpiredSegments();
+    } catch (IOException e) {
+      fail(e);
+    }
+  }
+
+  @PreDestroy
+  public void close() throws IOException {
+    checkpoint();
+    for (Segment segment : segments.values()) {
+      segment.close();
+    }
+  }
+
+  /**
+   * Counts stored events with timestamps in {@code [from, to)}, grouped by
+   * time bucket and optionally by event type, counting only
+   * {@code eventTypeFilter} types if it is non-empty. Events are visible
+   * once their block is written, at the latest one checkpoint interval
+   * after they arrive.
+   */
+  public StoreQueryResponseDTO count(
+      Instant from,
+      Instant to,
+      TimeGrouping grouping,
+      boolean byEventType,
+      Set<String> eventTypeFilter
+  ) {
+    int types = eventTypes.size();
+    boolean[] allowed = new boolean[256];
+    for (int type = 0; type < types; type++) {
+      allowed[type] = eventTypeFilter.isEmpty() || eventTypeFilter.contains(eventTypes.nameOf(type));
+    }
+
+    long fromMillis = from.toEpochMilli();
+    long toMillis = to.toEpochMilli();
+    long firstDay = Math.floorDiv(fromMillis, Segment.DAY_MILLIS);
+    long lastDay = Math.floorDiv(toMillis - 1, Segment.DAY_MILLIS);
+    long bucketMillis = grouping == TimeGrouping.HOUR ? HOUR_MILLIS : 0;
+    int bucketsPerDay = grouping == TimeGrouping.HOUR ? 24 : 1;
+
+    Collection<Segment> inRange = ((ConcurrentSkipListMap<Long, Segment>) segments)
+        .subMap(firstDay, true, lastDay, true).values();
+
+    // Days are scanned in parallel, each into its own counts
+    List<DayCounts> days = inRange.parallelStream()
+        .map(segment -> scan(segment, fromMillis, toMillis, bucketMillis, bucketsPerDay,
+            allowed, types))
+        .toList();
+
+    Map<Instant, long[]> grouped = new TreeMap<>();
+    long scanned = 0;
+    for (DayCounts day : days) {
+      scanned += day.scanned();
+      for (int bucket = 0; bucket < bucketsPerDay; bucket++) {
+        Instant bucketStart = switch (grouping) {
+          case HOUR -> Instant.ofEpochMilli(day.epochDay() * Segment.DAY_MILLIS + bucket * HOUR_MILLIS);
+          case DAY -> Instant.ofEpochMilli(day.epochDay() * Segment.DAY_MILLIS);
+          case NONE -> from;
+        };
+        long[] totals = grouped.computeIfAbsent(bucketStart, key -> new long[types]);
+        for (int type = 0; type < types; type++) {
+          totals[type] += day.counts()[bucket * types + type];
+        }
+      }
+    }
+
+    List<StoreQueryResponseDTO.Row> rows = new ArrayList<>();
+    grouped.forEach((bucketStart, totals) -> {
+      if (byEventType) {
+        for (int type = 0; type < types; type++) {
+          if (totals[type] > 0) {
+            rows.add(new StoreQueryResponseDTO.Row(bucketStart, eventTypes.nameOf(type), totals[type]));
+          }
+        }
+      } else {
+        long total = LongStream.of(totals).sum();
+        if (total > 0) {
+          rows.add(new StoreQueryResponseDTO.Row(bucketStart, null, total));
+        }
+      }
+    });
+    return new StoreQueryResponseDTO(from, to, scanned, rows);
+  }
+
+  public boolean enabled() {
+    return enabled;
+  }
+
+  /**
+   * The offset after the last record of the partition this store holds, or
+   * empty if it holds none.
+   */
+  public synchronized Optional<Long> resumeOffset(TopicPartition partition) {
+    return Optional.ofNullable(nextOffsets.get(partition));
+  }
+
+  public long rowsAppended() {
+    return rowsAppended.get();
+  }
+
+  private record DayCounts(long epochDay, long scanned, long[] counts) {
+  }
+
+  private static DayCounts scan(
+      Segment segment, long fromMillis, long toMillis, long bucketMillis, int bucketsPerDay,
+      boolean[] allowed, int types
+  ) {
+    long dayStart = segment.epochDay() * Segment.DAY_MILLIS;
+    int from = (int) Math.clamp(fromMillis - dayStart, 0, Segment.DAY_MILLIS);
+    int to = (int) Math.clamp(toMillis - dayStart, 0, Segment.DAY_MILLIS);
+    long[] counts = new long[bucketsPerDay * types];
+    try {
+      long scanned = segment.scan(from, to, bucketMillis, allowed, types, counts);
+      return new DayCounts(segment.epochDay(), scanned, counts);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to scan " + segment.path(), e);
+    }
+  }
+
+  private void writeBlock(long epochDay, ActiveBlock block) throws IOException {
+    Segment segment = segments.get(epochDay);
+    if (segment == null) {
+      Path path = directory.resolve(LocalDate.ofEpochDay(epochDay) + SEGMENT_SUFFIX);
+      segment = new Segment(epochDay, path, 0);
+      segments.put(epochDay, segment);
+    }
+    segment.append(block.offsets, block.types, block.rows);
+    block.rows = 0;
+  }
+
+  private ByteBuffer checkpointContents() {
+    List<byte[]> topics = new ArrayList<>();
+    int size = Integer.BYTES + eventTypes.serializedSize()
+        + Integer.BYTES + segments.size() * 2 * Long.BYTES + Integer.BYTES;
+    for (TopicPartition partition : nextOffsets.keySet()) {
+      byte[] topic = partition.topic().getBytes(StandardCharsets.UTF_8);
+      topics.add(topic);
+      size += Short.BYTES + topic.length + Integer.BYTES + Long.BYTES;
+    }
+
+    ByteBuffer buffer = ByteBuffer.allocate(size);
+    buffer.putInt(CHECKPOINT_VERSION);
+    eventTypes.writeTo(buffer);
+    buffer.putInt(segments.size());
+    segments.values().forEach(segment -> {
+      buffer.putLong(segment.epochDay());
+      buffer.putLong(segment.length());
+    });
+    buffer.putInt(nextOffsets.size());
+    int i = 0;
+    for (Map.Entry<TopicPartition, Long> next : nextOffsets.entrySet()) {
+      byte[] topic = topics.get(i++);
+      buffer.putShort((short) topic.length);
+      buffer.put(topic);
+      buffer.putInt(next.getKey().partition());
+      buffer.putLong(next.getValue());
+    }
+    return buffer.flip();
+  }
+
+  private record Checkpoint(
+      ByteBuffer eventTypes,
+      Map<Long, Long> lengths,
+      Map<TopicPartition, Long> nextOffsets
+  ) {
+  }
+
+  /**
+   * The last checkpoint, or empty if there is none or it cannot be used, in
+   * which case every segment is dropped and rebuilt from the topic.
+   */
+  private Optional<Checkpoint> readCheckpoint(Map<Long, Path> files) {
+    try {
+      Optional<ByteBuffer> contents = checkpointFile.read();
+      if (contents.isEmpty()) {
+        return Optional.empty();
+      }
+
+      ByteBuffer buffer = contents.get();
+      if (buffer.getInt() != CHECKPOINT_VERSION) {
+        throw new IllegalArgumentException("Unsupported event store checkpoint version");
+      }
+      // Validated on a scratch dictionary, and only applied once all of it is read
+      int typesAt = buffer.position();
+      new EventTypeDictionary(eventTypes.capacity()).readFrom(buffer);
+      ByteBuffer types = buffer.slice(typesAt, buffer.position() - typesAt);
+
+      Map<Long, Long> lengths = new HashMap<>();
+      int segmentCount = buffer.getInt();
+      for (int i = 0; i < segmentCount; i++) {
+        long epochDay = buffer.getLong();
+        long length = buffer.getLong();
+        Path file = files.get(epochDay);
+        if (length > (file == null ? 0 : Files.size(file))) {
+          throw new IOException("Segment for " + LocalDate.ofEpochDay(epochDay)
+              + " is shorter than its checkpoint");
+        }
+        lengths.put(epochDay, length);
+      }
+
+      Map<TopicPartition, Long> offsets = new HashMap<>();
+      int partitionCount = buffer.getInt();
+      for (int i = 0; i < partitionCount; i++) {
+        byte[] topic = new byte[buffer.getShort()];
+        buffer.get(topic);
+        TopicPartition partition = new TopicPartition(
+            new String(topic, StandardCharsets.UTF_8), buffer.getInt());
+        offsets.put(partition, buffer.getLong());
+      }
+      return Optional.of(new Checkpoint(types, lengths, offsets));
+    } catch (IOException | RuntimeException e) {
+      log.warn("Discarding unusable event store checkpoint, rebuilding from the topic: {}",
+          e.getMessage());
+      return Optional.empty();
+    }
+  }
+
+  // Segments are only deleted once a checkpoint no longer lists them
+  private void deleteExpiredSegments() throws IOException {
+    long oldestDay = currentDay() - retentionDays + 1;
+    List<Segment> expired = new ArrayList<>(
+        ((ConcurrentSkipListMap<Long, Segment>) segments).headMap(oldestDay).values());
+    if (expired.isEmpty()) {
+      return;
+    }
+    expired.forEach(segment -> segments.remove(segment.epochDay()));
+    checkpointFile.write(checkpointContents());
+    for (Segment segment : expired) {
+      segment.close();
+      Files.deleteIfExists(segment.path());
+    }
+    log.info("Deleted {} event store segments older than {} days", expired.size(), retentionDays);
+  }
+
+  private void fail(IOException e) {
+    failed = true;
+    log.error("Event store write failed, no more events will be stored until restart: {}",
+        e.getMessage());
+  }
+
+  private static long currentDay() {
+    return Math.floorDiv(System.currentTimeMillis(), Segment.DAY_MILLIS);
+  }
+}
@@ -0,0 +1,180 @@
+package com.supersection.analyticsservice.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+
+/**
+ * One UTC day of events in an append-only file of column blocks. Each block
+ * holds up to a few tens of thousands of rows:
+ *
+ * <pre>
+ *   int magic, int rows, int minOffset, int maxOffset
+ *   int[rows]  timestamp, as millis since the start of the day
+ *   byte[rows] event type id
+ * </pre>
+ *
+ * Timestamps are frame-of-reference encoded against the day, halving them
+ * to four bytes, and event types are dictionary ids, so a row costs five
+ * bytes. Min/max offsets let range scans skip whole blocks. Readers map the
+ * file and only see blocks written completely, and a scan fails rather
+ * than misread a block without the magic number. A segment is mapped as one
+ * buffer, which caps a day at 2 GB, about 400 million events.
+ */
+final class Segment {
+
+  static final long DAY_MILLIS = Duration.ofDays(1).toMillis();
+
+  private static final int BLOCK_MAGIC = 0x424C4B31; // "BLK1"
+  private static final int HEADER_BYTES = 4 * Integer.BYTES;
+
+  private final long epochDay;
+  private final Path path;
+  private final FileChannel channel;
+
+  // Bytes of complete blocks; only these are visible to scans
+  private volatile long length;
+  private boolean unforced;
+
+  private MappedByteBuffer mapped;
+
+  Segment(long epochDay, Path path, long length) throws IOException {
+    this.epochDay = epochDay;
+    this.path = path;
+    this.channel = FileChannel.open(path,
+        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    // Drop anything written after the last checkpoint; it will be replayed
+    this.channel.truncate(length);
+    this.length = length;
+  }
+
+  long epochDay() {
+    return epochDay;
+  }
+
+  Path path() {
+    return path;
+  }
+
+  long length() {
+    return length;
+  }
+
+  /** Writes one block. Not durable until {@link #force}. */
+  void append(int[] offsets, byte[] types, int rows) throws IOException {
+    int min = Integer.MAX_VALUE;
+    int max = Integer.MIN_VALUE;
+    for (int i = 0; i < rows; i++) {
+      min = Math.min(min, offsets[i]);
+      max = Math.max(max, offsets[i]);
+    }
+
+    ByteBuffer block = ByteBuffer.allocate(HEADER_BYTES + rows * (Integer.BYTES + 1))
+        .order(ByteOrder.LITTLE_ENDIAN);
+    block.putInt(BLOCK_MAGIC).putInt(rows).putInt(min).putInt(max);
+    block.asIntBuffer().put(offsets, 0, rows);
+    block.position(HEADER_BYTES + rows * Integer.BYTES);
+    block.put(types, 0, rows);
+    block.flip();
+
+    if (length + block.limit() > Integer.MAX_VALUE) {
+      throw new IOException("Segment " + path + " is full");
+    }
+    long position = length;
+    while (block.hasRemaining()) {
+      position += channel.write(block, position);
+    }
+    length = position;
+    unforced = true;
+  }
+
+  void force() throws IOException {
+    if (unforced) {
+      channel.force(false);
+      unforced = false;
+    }
+  }
+
+  void close() throws IOException {
+    channel.close();
+  }
+
+  /**
+   * Adds each matching row's count into {@code counts[bucket * types + type]}
+   * and returns the number of rows scanned.
+   *
+   * @param from       first millis of the range, relative to the start of the day
+   * @param to         end of the range (exclusive), relative to the start of the day
+   * @param bucketMillis width of a time bucket, 0 to put every row in bucket 0
+   * @param allowed    which type ids to count
+   */
+  long scan(int from, int to, long bucketMillis, boolean[] allowed, int types, long[] counts)
+      throws IOException {
+    ByteBuffer data = map();
+    long scanned = 0;
+
+    int position = 0;
+    while (position < data.limit()) {
+      // Guards against a checkpoint that points into the middle of a block
+      int room = data.limit() - position - HEADER_BYTES;
+      if (room < 0 || data.getInt(position) != BLOCK_MAGIC) {
+        throw new IOException("No block header at " + position + " in " + path);
+      }
+      int rows = data.getInt(position + Integer.BYTES);
+      if (rows < 0 || rows > room / (Integer.BYTES + 1)) {
+        throw new IOException("Block at " + position + " in " + path + " overruns the segment");
+      }
+      int min = data.getInt(position + 2 * Integer.BYTES);
+      int max = data.getInt(position + 3 * Integer.BYTES);
+      int offsetsAt = position + HEADER_BYTES;
+      int typesAt = offsetsAt + rows * Integer.BYTES;
+      position = typesAt + rows;
+
+      if (max < from || min >= to) {
+        continue;
+      }
+      IntBuffer offsets = data.slice(offsetsAt, rows * Integer.BYTES)
+          .order(ByteOrder.LITTLE_ENDIAN)
+          .asIntBuffer();
+      ByteBuffer typeIds = data.slice(typesAt, rows);
+      scanned += rows;
+
+      if (min >= from && max < to && bucketMillis == 0) {
+        // Whole block in range and no time grouping: a pure type histogram
+        for (int i = 0; i < rows; i++) {
+          int type = typeIds.get(i) & 0xFF;
+          if (allowed[type]) {
+            counts[type]++;
+          }
+        }
+        continue;
+      }
+
+      for (int i = 0; i < rows; i++) {
+        int offset = offsets.get(i);
+        int type = typeIds.get(i) & 0xFF;
+        if (offset < from || offset >= to || !allowed[type]) {
+          continue;
+        }
+        int bucket = bucketMillis == 0 ? 0 : (int) (offset / bucketMillis);
+        counts[bucket * types + type]++;
+      }
+    }
+    return scanned;
+  }
+
+  private synchronized ByteBuffer map() throws IOException {
+    long visible = length;
+    if (mapped == null || mapped.capacity() != visible) {
+      mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, visible);
+      mapped.order(ByteOrder.LITTLE_ENDIAN);
+    }
+    return mapped.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+  }
+}
@@ -0,0 +1,8 @@
+package com.supersection.analyticsservice.store;
+
+/** How a store query groups rows by time. */
+public enum TimeGrouping {
+  HOUR,
+  DAY,
+  NONE
+}
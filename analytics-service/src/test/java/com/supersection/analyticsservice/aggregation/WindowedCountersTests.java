@@ -0,0 +1,89 @@
+package com.supersection.analyticsservice.aggregation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+class WindowedCountersTests {
+
+  @Test
+  void countsAreKeptPerBucketUntilTheRingMovesPastThem() {
+    WindowedCounters counters = new WindowedCounters(1_000, 3, 2);
+
+    assertThat(counters.increment(0, 0)).isTrue();
+    assertThat(counters.increment(999, 0)).isTrue();
+    assertThat(counters.increment(1_000, 1)).isTrue();
+    assertThat(counters.increment(2_500, 1)).isTrue();
+
+    assertThat(counters.count(0, 0)).isEqualTo(2);
+    assertThat(counters.count(1, 1)).isOne();
+    long[] totals = new long[2];
+    counters.sum(0, 2, totals);
+    assertThat(totals).containsExactly(2, 2);
+
+    // Bucket 3 reuses bucket 0's slot, after which bucket 0 is too old
+    assertThat(counters.increment(3_000, 0)).isTrue();
+    assertThat(counters.count(3, 0)).isOne();
+    assertThat(counters.count(0, 0)).isZero();
+    assertThat(counters.increment(500, 0)).isFalse();
+  }
+
+  @Test
+  void incrementsRacingWithASlotMovingOnNeverLeakIntoTheNewBucket() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      for (int round = 0; round < 1_000; round++) {
+        // One slot, so bucket 1 takes it over while bucket 0 is still being written
+        WindowedCounters counters = new WindowedCounters(1, 1, 1);
+        CyclicBarrier barrier = new CyclicBarrier(2);
+
+        Future<Long> old = executor.submit(() -> incrementAll(counters, barrier, 0));
+        Future<Long> current = executor.submit(() -> incrementAll(counters, barrier, 1));
+        old.get();
+
+        assertThat(current.get()).isEqualTo(50);
+        assertThat(counters.count(1, 0)).as("round %d", round).isEqualTo(50);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void serializedCountersRestoreTheSameWindows() {
+    WindowedCounters counters = new WindowedCounters(1_000, 4, 3);
+    counters.increment(1_000, 0);
+    counters.increment(2_000, 2);
+    counters.increment(2_000, 2);
+
+    ByteBuffer buffer = ByteBuffer.allocate(counters.serializedSize());
+    counters.writeTo(buffer);
+    assertThat(buffer.remaining()).isZero();
+
+    WindowedCounters restored = new WindowedCounters(1_000, 4, 3);
+    restored.readFrom(buffer.flip());
+
+    assertThat(restored.count(1, 0)).isOne();
+    assertThat(restored.count(2, 2)).isEqualTo(2);
+    assertThat(restored.increment(5_000, 1)).isTrue();
+    assertThat(restored.count(1, 0)).isZero();
+  }
+
+  private static long incrementAll(WindowedCounters counters, CyclicBarrier barrier, long bucket)
+      throws Exception {
+    barrier.await();
+    long accepted = 0;
+    for (int i = 0; i < 50; i++) {
+      if (counters.increment(bucket, 0)) {
+        accepted++;
+      }
+    }
+    return accepted;
+  }
+}
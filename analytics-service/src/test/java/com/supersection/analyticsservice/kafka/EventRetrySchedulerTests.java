@@ -0,0 +1,99 @@
+package com.supersection.analyticsservice.kafka;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class EventRetrySchedulerTests {
+
+  private final ConsumerRecord<String, byte[]> record =
+      new ConsumerRecord<>("patient", 0, 7, "patient-1", new byte[0]);
+  private final DeadLetterPublisher deadLetterPublisher = mock(DeadLetterPublisher.class);
+  private final EventRetryScheduler scheduler =
+      new EventRetryScheduler(deadLetterPublisher, new SimpleMeterRegistry(), 3, 10, 10);
+
+  private final AtomicInteger attempts = new AtomicInteger();
+  private final AtomicInteger deadLettered = new AtomicInteger();
+
+  @BeforeEach
+  void sendsSucceed() {
+    when(deadLetterPublisher.publish(any(), any(), any(), anyInt()))
+        .thenReturn(CompletableFuture.completedFuture(null));
+  }
+
+  @AfterEach
+  void shutdown() {
+    scheduler.shutdown();
+  }
+
+  @Test
+  void aSuccessfulRetryIsNotDeadLettered() {
+    scheduler.failed(record, attempts::incrementAndGet, deadLettered::incrementAndGet,
+        new IllegalStateException("first attempt"));
+
+    await().atMost(Duration.ofSeconds(5)).until(() -> attempts.get() == 1);
+    assertThat(deadLettered).hasValue(0);
+    verify(deadLetterPublisher, never()).publish(any(), any(), any(), anyInt());
+  }
+
+  @Test
+  void theCallerHearsOnceTheLastAttemptIsDeadLettered() {
+    Runnable failing = () -> {
+      attempts.incrementAndGet();
+      throw new IllegalStateException("still failing");
+    };
+    scheduler.failed(record, failing, deadLettered::incrementAndGet,
+        new IllegalStateException("first attempt"));
+
+    await().atMost(Duration.ofSeconds(5)).until(() -> deadLettered.get() == 1);
+    assertThat(attempts).hasValue(2);
+    verify(deadLetterPublisher).publish(eq(record), eq(FailureType.PROCESSING), any(), eq(3));
+  }
+
+  @Test
+  void retriesWaitingAtShutdownAreDeadLettered() {
+    EventRetryScheduler slow =
+        new EventRetryScheduler(deadLetterPublisher, new SimpleMeterRegistry(), 3, 60_000, 10);
+    slow.failed(record, attempts::incrementAndGet, deadLettered::incrementAndGet,
+        new IllegalStateException("first attempt"));
+    assertThat(deadLettered).hasValue(0);
+
+    slow.shutdown();
+    assertThat(attempts).hasValue(0);
+    assertThat(deadLettered).hasValue(1);
+    verify(deadLetterPublisher).publish(eq(record), eq(FailureType.PROCESSING), any(), eq(1));
+  }
+
+  @Test
+  void theCallerOnlyHearsOnceTheDeadLetterTopicHasTheRecord() {
+    CompletableFuture<Void> firstSend = new CompletableFuture<>();
+    when(deadLetterPublisher.publish(any(), any(), any(), anyInt()))
+        .thenReturn(firstSend, CompletableFuture.completedFuture(null));
+
+    scheduler.deadLetter(record, FailureType.DECODE, new IllegalStateException("undecodable"), 1,
+        deadLettered::incrementAndGet);
+    assertThat(deadLettered).hasValue(0);
+
+    firstSend.completeExceptionally(new IllegalStateException("broker unavailable"));
+    await().atMost(Duration.ofSeconds(5)).until(() -> deadLettered.get() == 1);
+    verify(deadLetterPublisher, times(2)).publish(eq(record), eq(FailureType.DECODE), any(), eq(1));
+  }
+}
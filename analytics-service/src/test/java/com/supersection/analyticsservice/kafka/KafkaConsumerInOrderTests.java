@@ -0,0 +1,8 @@
+package com.supersection.analyticsservice.kafka;
+
+import org.springframework.test.context.TestPropertySource;
+
+// The same batch, applied on the listener thread in poll order
+@TestPropertySource(properties = "analytics.consumer.lanes=0")
+class KafkaConsumerInOrderTests extends KafkaConsumerTests {
+}
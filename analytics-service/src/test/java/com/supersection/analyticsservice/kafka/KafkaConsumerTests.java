@@ -0,0 +1,203 @@
+package com.supersection.analyticsservice.kafka;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.doThrow;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import com.supersection.analyticsservice.aggregation.PatientEventAggregator;
+import com.supersection.analyticsservice.aggregation.PatientEventSketches;
+import com.supersection.analyticsservice.dto.HeavyHittersResponseDTO;
+import com.supersection.analyticsservice.dto.StoreQueryResponseDTO;
+import com.supersection.analyticsservice.store.EventStore;
+import com.supersection.analyticsservice.store.TimeGrouping;
+
+import patient.events.PatientEvent;
+
+@SpringBootTest(properties = {
+    "spring.kafka.consumer.auto-offset-reset=earliest",
+    "spring.kafka.listener.concurrency=3",
+    "analytics.consumer.lanes=4",
+    "analytics.snapshot.enabled=false",
+    "analytics.retry.initial-backoff-ms=50"
+})
+@EmbeddedKafka(topics = {"patient", "patient.DLT", "patient.analytics-retry"}, partitions = 3,
+    bootstrapServersProperty = "spring.kafka.bootstrap-servers")
+class KafkaConsumerTests {
+
+  private static final int EVENTS = 20_000;
+
+  @TempDir
+  static Path storeDirectory;
+
+  @DynamicPropertySource
+  static void storeProperties(DynamicPropertyRegistry registry) {
+    registry.add("analytics.store.directory", storeDirectory::toString);
+  }
+
+  @Autowired
+  private PatientEventAggregator aggregator;
+
+  @MockitoSpyBean
+  private PatientEventSketches sketches;
+
+  @Autowired
+  private DeadLetterReplayer deadLetterReplayer;
+
+  @Autowired
+  private EventStore eventStore;
+
+  @Autowired
+  private EmbeddedKafkaBroker embeddedKafka;
+
+  @Test
+  void batchesAreAggregatedWhileFailedRecordsAreDeadLetteredAndReplayed() throws Exception {
+    KafkaTemplate<String, byte[]> template = new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(
+        KafkaTestUtils.producerProps(embeddedKafka),
+        new StringSerializer(),
+        new ByteArraySerializer()));
+
+    // Counted by the aggregator, then rejected by the sketches on every attempt
+    doThrow(new IllegalStateException("sketches unavailable")).when(sketches)
+        .record(eq("PATIENT_FLAKY"), any(), any(), anyLong());
+
+    template.send(new ProducerRecord<>("patient", "poison", new byte[] {(byte) 0xFF, 0x01}));
+    template.send("patient", "flaky", event("flaky", "flaky@clinic.example", "PATIENT_FLAKY"));
+    for (int i = 0; i < EVENTS; i++) {
+      String patientId = UUID.randomUUID().toString();
+      template.send("patient", patientId, event(patientId,
+          "patient" + i + (i % 4 == 0 ? "@Clinic.example" : "@mail.example"), "PATIENT_CREATED"));
+    }
+    template.flush();
+
+    long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+    while (total() < EVENTS + 1 && System.nanoTime() < deadline) {
+      Thread.sleep(100);
+    }
+
+    assertThat(total()).isEqualTo(EVENTS + 1);
+    assertThat(sketches.distinctPatients(1).estimate()).isBetween(19_000L, 21_000L);
+    assertThat(sketches.topEmailDomains(1, 2).top())
+        .extracting(HeavyHittersResponseDTO.HeavyHitter::item)
+        .containsExactly("mail.example", "Clinic.example");
+
+    Map<String, ConsumerRecord<String, byte[]>> deadLetters = readDeadLetters(2);
+    assertThat(header(deadLetters.get("poison"), DeadLetterPublisher.FAILURE_TYPE))
+        .isEqualTo("DECODE");
+    assertThat(header(deadLetters.get("flaky"), DeadLetterPublisher.FAILURE_TYPE))
+        .isEqualTo("PROCESSING");
+    assertThat(deadLetters.get("flaky").headers().lastHeader(DeadLetterPublisher.AGGREGATED))
+        .isNotNull();
+
+    // Fixed, so the flaky event's replay reaches the sketches; the poison one fails again
+    doCallRealMethod().when(sketches).record(any(), any(), any(), anyLong());
+    assertThat(deadLetterReplayer.replay(100)).isEqualTo(2);
+
+    deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+    while (!sketched("PATIENT_FLAKY") && System.nanoTime() < deadline) {
+      Thread.sleep(100);
+    }
+    assertThat(sketched("PATIENT_FLAKY")).isTrue();
+    assertThat(aggregator.slidingWindow(Duration.ofHours(1)).countsByEventType())
+        .containsEntry("PATIENT_FLAKY", 1L);
+
+    eventStore.checkpoint();
+    Instant now = Instant.now();
+    StoreQueryResponseDTO stored = eventStore.count(
+        now.minus(Duration.ofHours(1)), now.plusSeconds(1), TimeGrouping.NONE, true, Set.of());
+    assertThat(stored.rows())
+        .extracting(StoreQueryResponseDTO.Row::eventType, StoreQueryResponseDTO.Row::count)
+        .containsExactlyInAnyOrder(
+            tuple("PATIENT_CREATED", (long) EVENTS), tuple("PATIENT_FLAKY", 1L));
+
+    // Replays never went back to the shared topic
+    assertThat(endOffsets("patient")).isEqualTo(EVENTS + 2);
+    assertThat(endOffsets("patient.analytics-retry")).isEqualTo(2);
+  }
+
+  private static byte[] event(String patientId, String email, String eventType) {
+    return PatientEvent.newBuilder()
+        .setPatientId(patientId)
+        .setEmail(email)
+        .setEventType(eventType)
+        .build()
+        .toByteArray();
+  }
+
+  private boolean sketched(String eventType) {
+    return sketches.topEventTypes(1, 4).top().stream()
+        .anyMatch(hitter -> hitter.item().equals(eventType));
+  }
+
+  private Map<String, ConsumerRecord<String, byte[]>> readDeadLetters(int count) {
+    try (Consumer<String, byte[]> consumer = consumer("dlt-test")) {
+      embeddedKafka.consumeFromAnEmbeddedTopic(consumer, "patient.DLT");
+      ConsumerRecords<String, byte[]> records =
+          KafkaTestUtils.getRecords(consumer, Duration.ofSeconds(10), count);
+
+      Map<String, ConsumerRecord<String, byte[]>> byKey = new HashMap<>();
+      records.forEach(record -> byKey.put(record.key(), record));
+      return byKey;
+    }
+  }
+
+  private long endOffsets(String topic) {
+    try (Consumer<String, byte[]> consumer = consumer("offsets-test")) {
+      List<TopicPartition> partitions = consumer.partitionsFor(topic).stream()
+          .map(info -> new TopicPartition(topic, info.partition()))
+          .toList();
+      return consumer.endOffsets(partitions).values().stream().mapToLong(Long::longValue).sum();
+    }
+  }
+
+  private Consumer<String, byte[]> consumer(String groupId) {
+    Map<String, Object> props = KafkaTestUtils.consumerProps(groupId, "false", embeddedKafka);
+    props.put("auto.offset.reset", "earliest");
+    return new DefaultKafkaConsumerFactory<>(
+        props, new StringDeserializer(), new ByteArrayDeserializer()).createConsumer();
+  }
+
+  private static String header(ConsumerRecord<String, byte[]> record, String name) {
+    return new String(record.headers().lastHeader(name).value(), StandardCharsets.UTF_8);
+  }
+
+  private long total() {
+    return aggregator.slidingWindow(Duration.ofHours(1)).total();
+  }
+}
@@ -0,0 +1,63 @@
+package com.supersection.analyticsservice.kafka;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import patient.events.PatientEvent;
+
+class PatientEventDecoderTests {
+
+  private static final byte[] VALID = PatientEvent.newBuilder()
+      .setPatientId("patient-1")
+      .setEventType("PATIENT_CREATED")
+      .build()
+      .toByteArray();
+
+  // Starts a length-delimited field that runs past the end of the value
+  private static final byte[] TRUNCATED = {0x0a, 0x7f};
+
+  private final PatientEventDecoder decoder = new PatientEventDecoder(2, 2);
+
+  @AfterEach
+  void shutdown() {
+    decoder.shutdown();
+  }
+
+  @Test
+  void eachUndecodableRecordFailsOnItsOwn() {
+    PatientEventDecoder.Decoded decoded = decoder.decode(
+        records(VALID, null, new byte[0], TRUNCATED, VALID));
+
+    assertThat(decoded.events()[0].getPatientId()).isEqualTo("patient-1");
+    assertThat(decoded.events()[4].getPatientId()).isEqualTo("patient-1");
+    for (int i = 1; i <= 3; i++) {
+      assertThat(decoded.events()[i]).isNull();
+      assertThat(decoded.failures()[i]).isNotNull();
+    }
+    assertThat(decoded.failures()[0]).isNull();
+    assertThat(decoded.failures()[4]).isNull();
+  }
+
+  @Test
+  void aRecordWithoutAValueFailsOnTheCallersThreadToo() {
+    PatientEventDecoder.Decoded decoded = decoder.decode(records(null, VALID));
+
+    assertThat(decoded.events()[0]).isNull();
+    assertThat(decoded.failures()[0]).isNotNull();
+    assertThat(decoded.events()[1]).isNotNull();
+  }
+
+  private static List<ConsumerRecord<String, byte[]>> records(byte[]... values) {
+    List<ConsumerRecord<String, byte[]>> records = new ArrayList<>();
+    for (int i = 0; i < values.length; i++) {
+      records.add(new ConsumerRecord<>("patient", 0, i, "key", values[i]));
+    }
+    return records;
+  }
+}
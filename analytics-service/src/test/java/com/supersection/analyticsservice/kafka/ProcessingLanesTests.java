@@ -0,0 +1,62 @@
+package com.supersection.analyticsservice.kafka;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ProcessingLanesTests {
+
+  @Test
+  void eachKeysWorkRunsInSubmissionOrderAcrossLanes() throws InterruptedException {
+    // Smaller than the work per key, so submitters block on full lanes too
+    ProcessingLanes lanes = new ProcessingLanes(4, 8, new SimpleMeterRegistry());
+    Map<String, List<Integer>> applied = new ConcurrentHashMap<>();
+    Set<String> laneThreads = ConcurrentHashMap.newKeySet();
+
+    for (int i = 0; i < 1_000; i++) {
+      int sequence = i;
+      for (int key = 0; key < 16; key++) {
+        String patientId = "patient-" + key;
+        lanes.submit(patientId, () -> {
+          laneThreads.add(Thread.currentThread().getName());
+          applied.computeIfAbsent(patientId, id -> new ArrayList<>()).add(sequence);
+        });
+      }
+    }
+    lanes.close();
+
+    assertThat(applied).hasSize(16);
+    applied.values().forEach(sequences -> assertThat(sequences).hasSize(1_000).isSorted());
+    assertThat(laneThreads).hasSizeGreaterThan(1);
+  }
+
+  @Test
+  void aFailingTaskDoesNotStopItsLane() throws InterruptedException {
+    ProcessingLanes lanes = new ProcessingLanes(1, 8, new SimpleMeterRegistry());
+    List<String> applied = new ArrayList<>();
+
+    lanes.submit("patient-1", () -> {
+      throw new IllegalStateException("unexpected");
+    });
+    lanes.submit("patient-1", () -> applied.add("after"));
+    lanes.close();
+
+    assertThat(applied).containsExactly("after");
+  }
+
+  @Test
+  void noLanesMeansDisabled() throws InterruptedException {
+    ProcessingLanes lanes = new ProcessingLanes(0, 8, new SimpleMeterRegistry());
+
+    assertThat(lanes.enabled()).isFalse();
+    lanes.close();
+  }
+}
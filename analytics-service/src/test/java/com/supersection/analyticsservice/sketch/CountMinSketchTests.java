@@ -0,0 +1,96 @@
+package com.supersection.analyticsservice.sketch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+
+class CountMinSketchTests {
+
+  private static final int ITEMS = 2_000;
+
+  @Test
+  void estimatesNeverUndercountAndRarelyOvercountByMoreThanEOverWidth() {
+    CountMinSketch sketch = new CountMinSketch();
+    long[] counts = skewedCounts();
+    for (int item = 0; item < ITEMS; item++) {
+      for (long n = 0; n < counts[item]; n++) {
+        sketch.add(hash(item));
+      }
+    }
+
+    double bound = Math.E / CountMinSketch.DEFAULT_WIDTH * sketch.total();
+    int outside = 0;
+    for (int item = 0; item < ITEMS; item++) {
+      long estimate = sketch.estimate(hash(item));
+      assertThat(estimate).isGreaterThanOrEqualTo(counts[item]);
+      if (estimate - counts[item] > bound) {
+        outside++;
+      }
+    }
+    // At most e^-depth, under 2%, of items may exceed the bound
+    assertThat(outside).isLessThanOrEqualTo(ITEMS / 50);
+  }
+
+  @Test
+  void mergingHalvesGivesTheSameCountsAsAddingEverything() {
+    CountMinSketch all = new CountMinSketch();
+    CountMinSketch first = new CountMinSketch();
+    CountMinSketch second = new CountMinSketch();
+    long[] counts = skewedCounts();
+    for (int item = 0; item < ITEMS; item++) {
+      for (long n = 0; n < counts[item]; n++) {
+        all.add(hash(item));
+        (n % 2 == 0 ? first : second).add(hash(item));
+      }
+    }
+
+    first.merge(second);
+
+    assertThat(first.total()).isEqualTo(all.total());
+    assertThat(bytes(first)).isEqualTo(bytes(all));
+  }
+
+  @Test
+  void aSerializedSketchReadsBackUnchanged() {
+    CountMinSketch sketch = new CountMinSketch(64, 3);
+    for (int item = 0; item < ITEMS; item++) {
+      sketch.add(hash(item));
+    }
+
+    CountMinSketch read = CountMinSketch.readFrom(ByteBuffer.wrap(bytes(sketch)));
+
+    assertThat(bytes(read)).isEqualTo(bytes(sketch));
+    assertThat(read.estimate(hash(7))).isEqualTo(sketch.estimate(hash(7)));
+  }
+
+  @Test
+  void sketchesOfDifferentShapeAreRejected() {
+    assertThatThrownBy(() -> new CountMinSketch(0, 4)).isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new CountMinSketch(256, 4).merge(new CountMinSketch(128, 4)))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new CountMinSketch(256, 4).merge(new CountMinSketch(256, 3)))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  // Item i occurs about 1000 / (i + 1) times, so a few items dominate the total
+  private static long[] skewedCounts() {
+    long[] counts = new long[ITEMS];
+    for (int item = 0; item < ITEMS; item++) {
+      counts[item] = 1 + 1_000 / (item + 1);
+    }
+    return counts;
+  }
+
+  private static long hash(int item) {
+    return Hashing.hash("item-" + item);
+  }
+
+  private static byte[] bytes(CountMinSketch sketch) {
+    ByteBuffer buffer = ByteBuffer.allocate(sketch.serializedSize());
+    sketch.writeTo(buffer);
+    return buffer.array();
+  }
+}
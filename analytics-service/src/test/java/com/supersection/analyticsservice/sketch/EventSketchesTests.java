@@ -0,0 +1,67 @@
+package com.supersection.analyticsservice.sketch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+class EventSketchesTests {
+
+  @Test
+  void eventsAreSketchedByPatientEmailDomainAndType() {
+    EventSketches sketches = new EventSketches(4);
+    sketches.record("PATIENT_CREATED", "patient-1", "one@Clinic.example");
+    sketches.record("PATIENT_UPDATED", "patient-1", "one@clinic.example");
+    sketches.record("PATIENT_CREATED", "patient-2", "no-domain@");
+    sketches.record("PATIENT_CREATED", "", "");
+
+    assertThat(sketches.patients().estimate()).isEqualTo(2);
+    assertThat(sketches.emailDomains().top())
+        .containsExactly(new TopK.Entry("Clinic.example", 2));
+    assertThat(sketches.eventTypes().top())
+        .containsExactly(
+            new TopK.Entry("PATIENT_CREATED", 3), new TopK.Entry("PATIENT_UPDATED", 1));
+  }
+
+  @Test
+  void aSerializedBucketReadsBackUnchanged() {
+    EventSketches sketches = new EventSketches(4);
+    for (int i = 0; i < 10_000; i++) {
+      sketches.record(i % 3 == 0 ? "PATIENT_UPDATED" : "PATIENT_CREATED",
+          "patient-" + i, "patient" + i + "@domain-" + (i % 7) + ".example");
+    }
+
+    byte[] bytes = sketches.toBytes();
+    EventSketches read = EventSketches.fromBytes(bytes);
+
+    assertThat(read.toBytes()).isEqualTo(bytes);
+    assertThat(read.patients().estimate()).isEqualTo(sketches.patients().estimate());
+    assertThat(read.emailDomains().top()).isEqualTo(sketches.emailDomains().top());
+    assertThat(read.eventTypes().top()).isEqualTo(sketches.eventTypes().top());
+  }
+
+  @Test
+  void mergedBucketsCoverBothBuckets() {
+    EventSketches first = new EventSketches(4);
+    EventSketches second = new EventSketches(4);
+    first.record("PATIENT_CREATED", "patient-1", "one@a.example");
+    second.record("PATIENT_CREATED", "patient-2", "two@a.example");
+    second.record("PATIENT_DELETED", "patient-1", "one@a.example");
+
+    first.merge(second);
+
+    assertThat(first.patients().estimate()).isEqualTo(2);
+    assertThat(first.emailDomains().top()).containsExactly(new TopK.Entry("a.example", 3));
+    assertThat(first.eventTypes().total()).isEqualTo(3);
+  }
+
+  @Test
+  void otherFormatVersionsAreRejected() {
+    byte[] bytes = new EventSketches(4).toBytes();
+    bytes[0] = 2;
+
+    assertThatThrownBy(() -> EventSketches.fromBytes(bytes))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("version 2");
+  }
+}
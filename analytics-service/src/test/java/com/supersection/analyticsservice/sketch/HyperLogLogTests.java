@@ -0,0 +1,76 @@
+package com.supersection.analyticsservice.sketch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class HyperLogLogTests {
+
+  // 1.04 / sqrt(2^12)
+  private static final double STANDARD_ERROR = 0.016;
+
+  @ParameterizedTest
+  @ValueSource(ints = {100, 1_000, 10_000, 100_000, 1_000_000})
+  void estimatesAreWithinThreeStandardErrors(int distinct) {
+    HyperLogLog sketch = new HyperLogLog();
+    for (int i = 0; i < distinct; i++) {
+      sketch.add("patient-" + i);
+      // Repeats never change the estimate
+      sketch.add("patient-" + i);
+    }
+
+    assertThat((double) sketch.estimate())
+        .isCloseTo(distinct, within(3 * STANDARD_ERROR * distinct));
+  }
+
+  @Test
+  void mergingHalvesGivesTheSameSketchAsAddingEverything() {
+    HyperLogLog all = new HyperLogLog();
+    HyperLogLog first = new HyperLogLog();
+    HyperLogLog second = new HyperLogLog();
+    for (int i = 0; i < 50_000; i++) {
+      all.add("patient-" + i);
+      (i % 2 == 0 ? first : second).add("patient-" + i);
+    }
+
+    first.merge(second);
+
+    assertThat(bytes(first)).isEqualTo(bytes(all));
+    assertThat(first.estimate()).isEqualTo(all.estimate());
+  }
+
+  @Test
+  void aSerializedSketchReadsBackUnchanged() {
+    HyperLogLog sketch = new HyperLogLog(10);
+    for (int i = 0; i < 5_000; i++) {
+      sketch.add("patient-" + i);
+    }
+
+    HyperLogLog read = HyperLogLog.readFrom(ByteBuffer.wrap(bytes(sketch)));
+
+    assertThat(bytes(read)).isEqualTo(bytes(sketch));
+    assertThat(read.estimate()).isEqualTo(sketch.estimate());
+  }
+
+  @Test
+  void sketchesOfDifferentPrecisionAreRejected() {
+    assertThatThrownBy(() -> new HyperLogLog(3)).isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new HyperLogLog(19)).isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new HyperLogLog(12).merge(new HyperLogLog(10)))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> HyperLogLog.readFrom(ByteBuffer.wrap(new byte[] {30})))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static byte[] bytes(HyperLogLog sketch) {
+    ByteBuffer buffer = ByteBuffer.allocate(sketch.serializedSize());
+    sketch.writeTo(buffer);
+    return buffer.array();
+  }
+}
@@ -0,0 +1,109 @@
+package com.supersection.analyticsservice.sketch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+
+class TopKTests {
+
+  @Test
+  void theHeaviestItemsAreKeptInOrderWithTheirCounts() {
+    TopK sketch = new TopK(3, false);
+    addSkewed(sketch, 0, 1);
+
+    assertThat(sketch.top())
+        .extracting(TopK.Entry::item)
+        .containsExactly("domain-0", "domain-1", "domain-2");
+    assertThat(sketch.top().getFirst().estimate()).isGreaterThanOrEqualTo(1_000);
+  }
+
+  @Test
+  void itemsDifferingOnlyInCaseAreOneItemWhenIgnoringCase() {
+    TopK sketch = new TopK(2, true);
+    sketch.add("Clinic.example");
+    sketch.add("patient@clinic.EXAMPLE", 8, 22);
+
+    assertThat(sketch.top()).containsExactly(new TopK.Entry("Clinic.example", 2));
+  }
+
+  @Test
+  void mergingHalvesRanksTheUnionByTheMergedCounts() {
+    TopK all = new TopK(3, false);
+    TopK first = new TopK(3, false);
+    TopK second = new TopK(3, false);
+    addSkewed(all, 0, 1);
+    addSkewed(first, 0, 2);
+    addSkewed(second, 1, 2);
+
+    first.merge(second);
+
+    assertThat(first.total()).isEqualTo(all.total());
+    assertThat(first.top())
+        .extracting(TopK.Entry::item)
+        .containsExactlyElementsOf(all.top().stream().map(TopK.Entry::item).toList());
+    // Re-estimated against the merged counts, which are the counts of the whole stream
+    double bound = Math.E / CountMinSketch.DEFAULT_WIDTH * all.total();
+    for (int domain = 0; domain < 3; domain++) {
+      long count = 1_000 / (domain + 1);
+      assertThat(first.top().get(domain).estimate()).isBetween(count, count + (long) bound);
+    }
+  }
+
+  @Test
+  void aSerializedSketchReadsBackUnchanged() {
+    TopK sketch = new TopK(3, true);
+    addSkewed(sketch, 0, 1);
+
+    TopK read = TopK.readFrom(ByteBuffer.wrap(bytes(sketch)));
+
+    assertThat(read.top()).isEqualTo(sketch.top());
+    assertThat(read.total()).isEqualTo(sketch.total());
+    assertThat(bytes(read)).isEqualTo(bytes(sketch));
+  }
+
+  @Test
+  void sketchesOfDifferentShapeAreRejected() {
+    assertThatThrownBy(() -> new TopK(0, false)).isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new TopK(3, false).merge(new TopK(4, false)))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new TopK(3, false).merge(new TopK(3, true)))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void moreCandidatesThanKAreRejectedAsCorrupt() {
+    TopK sketch = new TopK(3, false);
+    addSkewed(sketch, 0, 1);
+    byte[] bytes = bytes(sketch);
+    // The candidate count follows k, the case flag and the Count-Min sketch
+    int sizeAt = Integer.BYTES + 1 + (2 * Integer.BYTES + Long.BYTES
+        + CountMinSketch.DEFAULT_WIDTH * CountMinSketch.DEFAULT_DEPTH * Integer.BYTES);
+    ByteBuffer.wrap(bytes).putInt(sizeAt, 4);
+
+    assertThatThrownBy(() -> TopK.readFrom(ByteBuffer.wrap(bytes)))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("Corrupt");
+  }
+
+  // Adds every step-th occurrence, from the start-th, of a stream where
+  // domain-i occurs 1000 / (i + 1) times
+  private static void addSkewed(TopK sketch, int start, int step) {
+    int occurrence = 0;
+    for (int domain = 0; domain < 200; domain++) {
+      for (int n = 0; n < 1_000 / (domain + 1); n++) {
+        if (occurrence++ % step == start) {
+          sketch.add("domain-" + domain);
+        }
+      }
+    }
+  }
+
+  private static byte[] bytes(TopK sketch) {
+    ByteBuffer buffer = ByteBuffer.allocate(sketch.serializedSize());
+    sketch.writeTo(buffer);
+    return buffer.array();
+  }
+}
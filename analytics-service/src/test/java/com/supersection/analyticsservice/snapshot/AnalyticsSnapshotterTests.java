@@ -0,0 +1,113 @@
+package com.supersection.analyticsservice.snapshot;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.supersection.analyticsservice.aggregation.Granularity;
+import com.supersection.analyticsservice.aggregation.PatientEventAggregator;
+import com.supersection.analyticsservice.aggregation.PatientEventSketches;
+
+class AnalyticsSnapshotterTests {
+
+  @TempDir
+  private Path directory;
+
+  @Test
+  void restoredStateAndOffsetsMatchSnapshot() {
+    PatientEventAggregator aggregator = newAggregator();
+    PatientEventSketches sketches = newSketches();
+    AnalyticsSnapshotter snapshotter =
+        new AnalyticsSnapshotter(aggregator, sketches, directory, true);
+
+    long now = System.currentTimeMillis();
+    PartitionProgress first = snapshotter.progress(new TopicPartition("patient", 0));
+    PartitionProgress second = snapshotter.progress(new TopicPartition("patient", 2));
+    first.begin(41);
+    second.begin(7);
+    snapshotter.apply(() -> {
+      aggregator.record("PATIENT_CREATED", now);
+      aggregator.record("PATIENT_UPDATED", now);
+      sketches.record("PATIENT_CREATED", "a", "a@clinic.example", now);
+      sketches.record("PATIENT_UPDATED", "b", "b@clinic.example", now);
+      first.complete(41);
+      second.complete(7);
+    });
+    snapshotter.snapshot();
+
+    PatientEventAggregator restoredAggregator = newAggregator();
+    PatientEventSketches restoredSketches = newSketches();
+    AnalyticsSnapshotter restored =
+        new AnalyticsSnapshotter(restoredAggregator, restoredSketches, directory, true);
+    restored.restore();
+
+    assertThat(restored.resumeOffset(new TopicPartition("patient", 0))).contains(42L);
+    assertThat(restored.resumeOffset(new TopicPartition("patient", 2))).contains(8L);
+    assertThat(restored.resumeOffset(new TopicPartition("patient", 1))).isEmpty();
+    assertThat(restoredAggregator.slidingWindow(Duration.ofHours(1)))
+        .isEqualTo(aggregator.slidingWindow(Duration.ofHours(1)));
+    assertThat(restoredAggregator.registrations(Granularity.HOUR, 1).get(0).count()).isOne();
+    assertThat(restoredSketches.distinctPatients(1).estimate()).isEqualTo(2);
+    assertThat(restoredSketches.topEmailDomains(1, 1).top().get(0).estimate()).isEqualTo(2);
+  }
+
+  @Test
+  void recordsCompletedAboveTheWatermarkAreNotAppliedAgain() {
+    AnalyticsSnapshotter snapshotter =
+        new AnalyticsSnapshotter(newAggregator(), newSketches(), directory, true);
+    TopicPartition partition = new TopicPartition("patient", 0);
+    PartitionProgress progress = snapshotter.progress(partition);
+
+    // 10 and 12 are done, 11 is still on a lane when the snapshot is taken
+    assertThat(progress.begin(10)).isTrue();
+    assertThat(progress.begin(11)).isTrue();
+    assertThat(progress.begin(12)).isTrue();
+    snapshotter.apply(() -> {
+      progress.complete(12);
+      progress.complete(10);
+    });
+    assertThat(progress.watermark()).isEqualTo(11);
+    assertThat(progress.begin(12)).isFalse();
+    snapshotter.snapshot();
+
+    AnalyticsSnapshotter restored =
+        new AnalyticsSnapshotter(newAggregator(), newSketches(), directory, true);
+    restored.restore();
+    assertThat(restored.resumeOffset(partition)).contains(11L);
+
+    PartitionProgress restoredProgress = restored.progress(partition);
+    assertThat(restoredProgress.begin(11)).isTrue();
+    assertThat(restoredProgress.begin(12)).isFalse();
+    assertThat(restoredProgress.begin(13)).isTrue();
+    restoredProgress.complete(11);
+    restoredProgress.complete(13);
+    assertThat(restoredProgress.watermark()).isEqualTo(14);
+  }
+
+  @Test
+  void corruptSnapshotIsIgnored() throws Exception {
+    Files.write(directory.resolve("analytics.snapshot"), new byte[16]);
+
+    PatientEventAggregator aggregator = newAggregator();
+    AnalyticsSnapshotter snapshotter =
+        new AnalyticsSnapshotter(aggregator, newSketches(), directory, true);
+    snapshotter.restore();
+
+    assertThat(snapshotter.resumeOffset(new TopicPartition("patient", 0))).isEmpty();
+    assertThat(aggregator.slidingWindow(Duration.ofHours(1)).total()).isZero();
+  }
+
+  private static PatientEventAggregator newAggregator() {
+    return new PatientEventAggregator(32, 1440, 168);
+  }
+
+  private static PatientEventSketches newSketches() {
+    return new PatientEventSketches(168, 16);
+  }
+}
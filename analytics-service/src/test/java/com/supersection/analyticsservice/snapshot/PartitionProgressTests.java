@@ -0,0 +1,64 @@
+package com.supersection.analyticsservice.snapshot;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class PartitionProgressTests {
+
+  @Test
+  void theWatermarkIsTheLowestOffsetNotCompleted() {
+    PartitionProgress progress = new PartitionProgress(0, List.of());
+    for (long offset = 0; offset < 4; offset++) {
+      assertThat(progress.begin(offset)).isTrue();
+    }
+    assertThat(progress.watermark()).isZero();
+
+    progress.complete(1);
+    progress.complete(3);
+    assertThat(progress.watermark()).isZero();
+    assertThat(progress.completedAbove()).containsExactly(1L, 3L);
+
+    progress.complete(0);
+    assertThat(progress.watermark()).isEqualTo(2);
+    assertThat(progress.completedAbove()).containsExactly(3L);
+
+    progress.complete(2);
+    assertThat(progress.watermark()).isEqualTo(4);
+    assertThat(progress.completedAbove()).isEmpty();
+    assertThat(progress.next()).isEqualTo(4);
+  }
+
+  @Test
+  void recordsAlreadyBegunAreNotBegunAgain() {
+    PartitionProgress progress = new PartitionProgress(0, List.of());
+
+    assertThat(progress.begin(3)).isTrue();
+    assertThat(progress.begin(3)).isFalse();
+    assertThat(progress.begin(2)).isFalse();
+    assertThat(progress.watermark()).isEqualTo(3);
+  }
+
+  @Test
+  void restoredProgressSkipsRecordsCompletedAboveTheWatermark() {
+    PartitionProgress progress = new PartitionProgress(5, List.of(7L));
+    assertThat(progress.watermark()).isEqualTo(5);
+
+    assertThat(progress.begin(4)).isFalse();
+    assertThat(progress.begin(5)).isTrue();
+    assertThat(progress.begin(6)).isTrue();
+    assertThat(progress.begin(7)).isFalse();
+    assertThat(progress.begin(8)).isTrue();
+
+    progress.complete(6);
+    progress.complete(8);
+    assertThat(progress.watermark()).isEqualTo(5);
+    assertThat(progress.completedAbove()).containsExactly(6L, 7L, 8L);
+
+    progress.complete(5);
+    assertThat(progress.watermark()).isEqualTo(9);
+    assertThat(progress.completedAbove()).isEmpty();
+  }
+}
@@ -0,0 +1,142 @@
+package com.supersection.analyticsservice.store;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.assertj.core.groups.Tuple;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.supersection.analyticsservice.dto.StoreQueryResponseDTO;
+
+import patient.events.PatientEvent;
+
+class EventStoreTests {
+
+  private static final TopicPartition PARTITION = new TopicPartition("patient", 0);
+
+  @TempDir
+  private Path directory;
+
+  @Test
+  void checkpointedEventsSurviveARestart() throws Exception {
+    EventStore store = open();
+    append(store, 0, 3);
+    store.close();
+
+    EventStore reopened = open();
+    assertThat(reopened.resumeOffset(PARTITION)).contains(3L);
+    assertThat(counts(reopened)).containsExactly(tuple("PATIENT_CREATED", 3L));
+
+    // Replayed records below the checkpoint are not stored again
+    append(reopened, 0, 5);
+    reopened.checkpoint();
+    assertThat(counts(reopened)).containsExactly(tuple("PATIENT_CREATED", 5L));
+  }
+
+  @Test
+  void anUnreadableCheckpointIsDiscardedAndTheStoreRebuilt() throws Exception {
+    EventStore store = open();
+    append(store, 0, 3);
+    store.close();
+
+    Path checkpoint = directory.resolve("store.checkpoint");
+    byte[] bytes = Files.readAllBytes(checkpoint);
+    bytes[bytes.length / 2] ^= 0x55;
+    Files.write(checkpoint, bytes);
+    Files.writeString(directory.resolve("notes.seg"), "not a segment");
+
+    EventStore reopened = open();
+    assertThat(reopened.resumeOffset(PARTITION)).isEmpty();
+    assertThat(counts(reopened)).isEmpty();
+    assertThat(directory.resolve(LocalDate.now(ZoneOffset.UTC) + ".seg")).doesNotExist();
+    assertThat(directory.resolve("notes.seg")).exists();
+
+    append(reopened, 0, 3);
+    reopened.checkpoint();
+    assertThat(counts(reopened)).containsExactly(tuple("PATIENT_CREATED", 3L));
+  }
+
+  @Test
+  void aSegmentShorterThanItsCheckpointDiscardsTheCheckpoint() throws Exception {
+    EventStore store = open();
+    append(store, 0, 3);
+    store.close();
+
+    Path segment = directory.resolve(LocalDate.now(ZoneOffset.UTC) + ".seg");
+    try (var channel = Files.newByteChannel(segment, StandardOpenOption.WRITE)) {
+      channel.truncate(Files.size(segment) - 1);
+    }
+
+    EventStore reopened = open();
+    assertThat(reopened.resumeOffset(PARTITION)).isEmpty();
+    assertThat(counts(reopened)).isEmpty();
+  }
+
+  @Test
+  void scansRejectBlocksWithoutTheMagicNumber() throws Exception {
+    EventStore store = open();
+    append(store, 0, 3);
+    store.close();
+
+    Path segment = directory.resolve(LocalDate.now(ZoneOffset.UTC) + ".seg");
+    byte[] bytes = Files.readAllBytes(segment);
+    bytes[0] ^= 0x55;
+    Files.write(segment, bytes);
+
+    EventStore reopened = open();
+    assertThatThrownBy(() -> counts(reopened))
+        .isInstanceOf(UncheckedIOException.class)
+        .hasMessageContaining(segment.toString());
+  }
+
+  private EventStore open() throws Exception {
+    EventStore store = new EventStore(directory, 1024, 400, true);
+    store.open();
+    return store;
+  }
+
+  private static void append(EventStore store, long fromOffset, long toOffset) {
+    List<ConsumerRecord<String, byte[]>> records = new ArrayList<>();
+    List<PatientEvent> events = new ArrayList<>();
+    long now = System.currentTimeMillis();
+    for (long offset = fromOffset; offset < toOffset; offset++) {
+      PatientEvent event = PatientEvent.newBuilder()
+          .setPatientId("patient-" + offset)
+          .setEventType("PATIENT_CREATED")
+          .build();
+      records.add(new ConsumerRecord<>(PARTITION.topic(), PARTITION.partition(), offset, now,
+          TimestampType.CREATE_TIME, 0, 0, event.getPatientId(), event.toByteArray(),
+          new RecordHeaders(), Optional.empty()));
+      events.add(event);
+    }
+    store.append(records, events.toArray(PatientEvent[]::new));
+  }
+
+  private static List<Tuple> counts(EventStore store) {
+    Instant now = Instant.now();
+    StoreQueryResponseDTO result = store.count(
+        now.minus(Duration.ofHours(1)), now.plusSeconds(1), TimeGrouping.NONE, true, Set.of());
+    return result.rows().stream()
+        .map(row -> tuple(row.eventType(), row.count()))
+        .toList();
+  }
+}
@@ -1,5 +1,9 @@
 package com.supersection.apigateway.filter;
 
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
@@ -7,18 +11,53 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.supersection.apigateway.util.JwtVerifier;
+import com.supersection.apigateway.util.RevocationList;
+import com.supersection.apigateway.util.ValidatedToken;
 
+import io.jsonwebtoken.JwtException;
+import reactor.core.publisher.Mono;
 
+/**
+ * Rejects requests without a valid bearer token. By default the token is
+ * verified locally against auth-service's published keys and its subject and role are
+ * forwarded as {@code X-User-Email} and {@code X-User-Role}. Setting
+ * {@code auth.jwt.validation-mode} to {@code remote} falls back to asking
+ * auth-service's {@code /validate} endpoint, with validated tokens cached
+ * so a token is only sent to auth-service once while it stays cached.
+ * Either way, tokens on auth-service's revocation list are rejected.
+ */
 @Component
 public class JwtValidationGatewayFilterFactory extends AbstractGatewayFilterFactory<Object> {
 
+  public static final String USER_EMAIL_HEADER = "X-User-Email";
+  public static final String USER_ROLE_HEADER = "X-User-Role";
+
+  private static final Logger log =
+      LoggerFactory.getLogger(JwtValidationGatewayFilterFactory.class);
+
   private final WebClient webClient;
+  private final JwtVerifier jwtVerifier;
+  private final ValidatedTokenCache validatedTokenCache;
+  private final RevocationList revocationList;
+  private final boolean remoteValidation;
 
   public JwtValidationGatewayFilterFactory(
       WebClient.Builder webClientBuilder,
-      @Value("${auth.service.url}") String authServiceUrl
+      @Value("${auth.service.url}") String authServiceUrl,
+      @Value("${auth.jwt.validation-mode:local}") String validationMode,
+      JwtVerifier jwtVerifier,
+      ValidatedTokenCache validatedTokenCache,
+      RevocationList revocationList
   ) {
     this.webClient = webClientBuilder.baseUrl(authServiceUrl).build();
+    this.jwtVerifier = jwtVerifier;
+    this.validatedTokenCache = validatedTokenCache;
+    this.revocationList = revocationList;
+    this.remoteValidation = "remote".equalsIgnoreCase(validationMode);
+    log.info("Validating JWTs {}", remoteValidation ? "via auth-service" : "locally");
   }
 
 
@@ -28,16 +67,62 @@ public class JwtValidationGatewayFilterFactory extends AbstractGatewayFilterFact
       String jwtToken = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
 
       if (jwtToken == null || !jwtToken.startsWith("Bearer ")) {
-        exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
-        return exchange.getResponse().setComplete();
+        return unauthorized(exchange);
       }
 
-      return webClient.get()
-          .uri("/validate")
-          .header(HttpHeaders.AUTHORIZATION, jwtToken)
-          .retrieve()
-          .toBodilessEntity()
-          .then(chain.filter(exchange));
+      Mono<Optional<ValidatedToken>> verified = remoteValidation
+          ? validatedTokenCache
+              .get(jwtToken, () -> validateRemotely(jwtToken))
+              .map(Optional::of)
+          : jwtVerifier.verify(jwtToken.substring(7))
+              .map(Optional::of)
+              .onErrorResume(
+                  e -> e instanceof JwtException || e instanceof IllegalArgumentException,
+                  e -> {
+                    log.debug("Rejected JWT: {}", e.getMessage());
+                    return Mono.just(Optional.empty());
+                  });
+
+      // Cached and locally verified tokens alike may have been revoked since
+      return verified.flatMap(token -> token.isEmpty()
+          ? unauthorized(exchange)
+          : revocationList.isRevoked(token.get().tokenId())
+              .flatMap(revoked -> revoked
+                  ? unauthorized(exchange)
+                  : chain.filter(withIdentityHeaders(exchange, token.get()))));
     };
   }
+
+  private Mono<ValidatedToken> validateRemotely(String jwtToken) {
+    return webClient.get()
+        .uri("/validate")
+        .header(HttpHeaders.AUTHORIZATION, jwtToken)
+        .retrieve()
+        .toBodilessEntity()
+        .map(response -> jwtVerifier.readValidated(jwtToken.substring(7)));
+  }
+
+  private static Mono<Void> unauthorized(ServerWebExchange exchange) {
+    exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
+    return exchange.getResponse().setComplete();
+  }
+
+  // Identity headers are only trusted downstream because the gateway sets them
+  private static ServerWebExchange withIdentityHeaders(
+      ServerWebExchange exchange,
+      ValidatedToken token
+  ) {
+    return exchange.mutate()
+        .request(request -> request.headers(headers -> {
+          headers.remove(USER_EMAIL_HEADER);
+          headers.remove(USER_ROLE_HEADER);
+          if (token.subject() != null) {
+            headers.set(USER_EMAIL_HEADER, token.subject());
+          }
+          if (token.role() != null) {
+            headers.set(USER_ROLE_HEADER, token.role());
+          }
+        }))
+        .build();
+  }
 }
@@ -0,0 +1,94 @@
+package com.supersection.apigateway.filter;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.supersection.apigateway.util.ValidatedToken;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import reactor.core.publisher.Mono;
+
+/**
+ * Size-bounded cache of tokens that passed validation, keyed by the token's
+ * SHA-256 so raw credentials are never held as map keys. An entry lives for
+ * at most {@code max-ttl-ms} and never past the token's own expiry.
+ * Concurrent lookups of a token that is not cached yet share one in-flight
+ * validation, and failed validations are not cached.
+ */
+@Component
+public class ValidatedTokenCache {
+
+  private final AsyncCache<String, ValidatedToken> cache;
+
+  public ValidatedTokenCache(
+      MeterRegistry meterRegistry,
+      @Value("${auth.jwt.cache.max-size:100000}") long maxSize,
+      @Value("${auth.jwt.cache.max-ttl-ms:600000}") long maxTtlMs
+  ) {
+    long maxTtlNanos = TimeUnit.MILLISECONDS.toNanos(maxTtlMs);
+
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfter(new Expiry<String, ValidatedToken>() {
+          @Override
+          public long expireAfterCreate(String key, ValidatedToken token, long currentTime) {
+            if (token.expiresAt() == null) {
+              return maxTtlNanos;
+            }
+            long untilExpiry = TimeUnit.MILLISECONDS.toNanos(
+                token.expiresAt().toEpochMilli() - Instant.now().toEpochMilli());
+            return Math.max(0, Math.min(maxTtlNanos, untilExpiry));
+          }
+
+          @Override
+          public long expireAfterUpdate(
+              String key, ValidatedToken token, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, token, currentTime);
+          }
+
+          @Override
+          public long expireAfterRead(
+              String key, ValidatedToken token, long currentTime, long currentDuration) {
+            return currentDuration;
+          }
+        })
+        .recordStats()
+        .buildAsync();
+
+    // Publishes cache.gets{result=hit|miss}, cache.evictions, cache.puts and cache.load*
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, "gateway.validated-tokens");
+  }
+
+  /**
+   * Returns the cached identity for the token, or runs {@code validation}
+   * once for all callers that miss on the same token at the same time.
+   */
+  public Mono<ValidatedToken> get(String token, Supplier<Mono<ValidatedToken>> validation) {
+    return Mono.fromFuture(
+        cache.get(hash(token), (key, executor) -> validation.get().toFuture()),
+        // One caller cancelling must not cancel the validation others wait on
+        true);
+  }
+
+  private static String hash(String token) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256")
+          .digest(token.getBytes(StandardCharsets.UTF_8));
+      return Base64.getEncoder().encodeToString(digest);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+}
@@ -0,0 +1,112 @@
+package com.supersection.apigateway.util;
+
+import java.security.Key;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.JwkSet;
+import io.jsonwebtoken.security.Jwks;
+import reactor.core.publisher.Mono;
+
+/**
+ * Public keys published by auth-service, refreshed every
+ * {@code refresh-interval-ms} and on demand when a token names a key that is
+ * not cached yet. On-demand refreshes run at most once per
+ * {@code min-refresh-interval-ms}, so tokens with made-up key ids cannot turn
+ * into a flood of JWKS requests, and concurrent refreshes share one fetch,
+ * which gives up after {@code timeout-ms}.
+ */
+@Component
+public class JwksKeyCache {
+
+  private static final Logger log = LoggerFactory.getLogger(JwksKeyCache.class);
+
+  private final WebClient webClient;
+  private final long minRefreshIntervalMs;
+  private final Duration timeout;
+  private final AtomicReference<Mono<Void>> inFlight = new AtomicReference<>();
+
+  private volatile Map<String, Key> keys = Map.of();
+  private volatile long lastRefreshMillis;
+
+  public JwksKeyCache(
+      WebClient.Builder webClientBuilder,
+      @Value("${auth.jwks.url:${auth.service.url}/.well-known/jwks.json}") String jwksUrl,
+      @Value("${auth.jwks.min-refresh-interval-ms:10000}") long minRefreshIntervalMs,
+      @Value("${auth.jwks.timeout-ms:2000}") long timeoutMs
+  ) {
+    this.webClient = webClientBuilder.baseUrl(jwksUrl).build();
+    this.minRefreshIntervalMs = minRefreshIntervalMs;
+    this.timeout = Duration.ofMillis(timeoutMs);
+  }
+
+  public Key get(String keyId) {
+    return keyId == null ? null : keys.get(keyId);
+  }
+
+  @Scheduled(fixedDelayString = "${auth.jwks.refresh-interval-ms:300000}")
+  public void scheduledRefresh() {
+    refresh().subscribe();
+  }
+
+  /**
+   * Fetches the key set unless that was done within the last
+   * {@code min-refresh-interval-ms}.
+   */
+  public Mono<Void> refreshIfStale() {
+    if (System.currentTimeMillis() - lastRefreshMillis < minRefreshIntervalMs) {
+      return Mono.empty();
+    }
+    return refresh();
+  }
+
+  private Mono<Void> refresh() {
+    while (true) {
+      Mono<Void> running = inFlight.get();
+      if (running != null) {
+        return running;
+      }
+
+      Mono<Void> fetch = webClient.get()
+          .retrieve()
+          .bodyToMono(String.class)
+          .timeout(timeout)
+          .doOnNext(this::load)
+          .doOnError(e -> log.warn("Failed to fetch JWKS: {}", e.getMessage()))
+          .onErrorResume(e -> Mono.empty())
+          .doFinally(signal -> inFlight.set(null))
+          .then()
+          .cache();
+
+      if (inFlight.compareAndSet(null, fetch)) {
+        // Counts attempts, so an unreachable auth-service is not retried per request
+        lastRefreshMillis = System.currentTimeMillis();
+        return fetch;
+      }
+    }
+  }
+
+  private void load(String json) {
+    JwkSet jwkSet = Jwks.setParser().build().parse(json);
+
+    Map<String, Key> loaded = new HashMap<>();
+    for (Jwk<?> jwk : jwkSet) {
+      if (jwk.getId() != null) {
+        loaded.put(jwk.getId(), jwk.toKey());
+      }
+    }
+
+    keys = Map.copyOf(loaded);
+    log.debug("Loaded {} JWKS keys", loaded.size());
+  }
+}
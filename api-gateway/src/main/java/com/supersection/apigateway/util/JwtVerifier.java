@@ -0,0 +1,108 @@
+package com.supersection.apigateway.util;
+
+import java.io.IOException;
+import java.security.Key;
+import java.time.Instant;
+import java.util.Base64;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Header;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.ProtectedHeader;
+import reactor.core.publisher.Mono;
+
+/**
+ * Verifies auth-service tokens in-process against the public keys auth-service
+ * publishes, so no secret is shared with the gateway. The parser is built
+ * once and shared, since it is immutable and thread-safe. Expiry allows for
+ * the same clock skew as auth-service, {@code auth.jwt.clock-skew-seconds}.
+ */
+@Component
+public class JwtVerifier {
+
+  private final JwksKeyCache jwksKeyCache;
+  private final JwtParser parser;
+  private final ObjectMapper objectMapper;
+
+  public JwtVerifier(
+      JwksKeyCache jwksKeyCache,
+      ObjectMapper objectMapper,
+      @Value("${auth.jwt.clock-skew-seconds:30}") long clockSkewSeconds
+  ) {
+    this.jwksKeyCache = jwksKeyCache;
+    this.objectMapper = objectMapper;
+    this.parser = Jwts.parser()
+        .keyLocator(this::locateKey)
+        .clockSkewSeconds(clockSkewSeconds)
+        .build();
+  }
+
+  /**
+   * Checks the signature and expiry of the token. A token signed with a key
+   * that is not cached yet triggers one JWKS refresh before it is rejected.
+   *
+   * @return the token's identity, or an error signal with a
+   *     {@link JwtException} if the token is malformed, forged or expired
+   */
+  public Mono<ValidatedToken> verify(String token) {
+    return Mono.fromCallable(() -> parse(token))
+        .onErrorResume(UnknownSigningKeyException.class, e -> jwksKeyCache
+            .refreshIfStale()
+            .then(Mono.fromCallable(() -> parse(token))));
+  }
+
+  /**
+   * Reads the identity from a token without checking its signature. Only
+   * use this on tokens auth-service has already validated.
+   *
+   * @throws JwtException if the payload cannot be decoded
+   */
+  public ValidatedToken readValidated(String token) {
+    String[] parts = token.split("\\.");
+    if (parts.length != 3) {
+      throw new MalformedJwtException("JWT must have three parts");
+    }
+
+    try {
+      JsonNode payload = objectMapper.readTree(Base64.getUrlDecoder().decode(parts[1]));
+      JsonNode exp = payload.get("exp");
+      return new ValidatedToken(
+          payload.path("jti").asText(null),
+          payload.path("sub").asText(null),
+          payload.path("role").asText(null),
+          exp == null ? null : Instant.ofEpochSecond(exp.asLong()));
+    } catch (IOException | IllegalArgumentException e) {
+      throw new MalformedJwtException("Unreadable JWT payload", e);
+    }
+  }
+
+  private ValidatedToken parse(String token) {
+    Claims claims = parser.parseSignedClaims(token).getPayload();
+    return new ValidatedToken(
+        claims.getId(),
+        claims.getSubject(),
+        claims.get("role", String.class),
+        claims.getExpiration() == null ? null : claims.getExpiration().toInstant());
+  }
+
+  private Key locateKey(Header header) {
+    String keyId = header instanceof ProtectedHeader protectedHeader
+        ? protectedHeader.getKeyId()
+        : null;
+
+    Key key = jwksKeyCache.get(keyId);
+    if (key == null) {
+      throw new UnknownSigningKeyException("Unknown signing key " + keyId);
+    }
+    return key;
+  }
+}
@@ -0,0 +1,96 @@
+package com.supersection.apigateway.util;
+
+import java.time.Duration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.supersection.revocation.BloomFilter;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Revoked token ids as published by auth-service. A Bloom filter downloaded
+ * every {@code refresh-interval-ms} rules out almost every token locally;
+ * only ids it cannot rule out are checked with auth-service. If that check
+ * fails or takes longer than {@code timeout-ms} the token is treated as
+ * revoked. Until a filter has been downloaded every token is checked with
+ * auth-service.
+ */
+@Component
+public class RevocationList {
+
+  private static final Logger log = LoggerFactory.getLogger(RevocationList.class);
+
+  private static final Mono<Boolean> NOT_REVOKED = Mono.just(false);
+
+  private final WebClient webClient;
+  private final Duration timeout;
+
+  // Null until the first download
+  private volatile BloomFilter filter;
+  private volatile String etag;
+
+  public RevocationList(
+      WebClient.Builder webClientBuilder,
+      @Value("${auth.revocation.url:${auth.service.url}/revocations}") String revocationUrl,
+      @Value("${auth.revocation.timeout-ms:2000}") long timeoutMs
+  ) {
+    this.webClient = webClientBuilder.baseUrl(revocationUrl).build();
+    this.timeout = Duration.ofMillis(timeoutMs);
+  }
+
+  public Mono<Boolean> isRevoked(String tokenId) {
+    if (tokenId == null) {
+      return NOT_REVOKED;
+    }
+    BloomFilter current = filter;
+    if (current != null && !current.mightContain(tokenId)) {
+      return NOT_REVOKED;
+    }
+
+    return webClient.get()
+        .uri("/{tokenId}", tokenId)
+        .exchangeToMono(response -> response.releaseBody()
+            .thenReturn(response.statusCode() != HttpStatus.NOT_FOUND))
+        .timeout(timeout)
+        .onErrorReturn(true);
+  }
+
+  @Scheduled(fixedDelayString = "${auth.revocation.refresh-interval-ms:30000}")
+  public void refresh() {
+    webClient.get()
+        .uri("/bloom")
+        .headers(headers -> {
+          if (etag != null) {
+            headers.setIfNoneMatch(etag);
+          }
+        })
+        .exchangeToMono(response -> {
+          if (response.statusCode() == HttpStatus.NOT_MODIFIED) {
+            return response.releaseBody();
+          }
+          if (!response.statusCode().is2xxSuccessful()) {
+            return response.createError().then();
+          }
+
+          String newEtag = response.headers().asHttpHeaders().getFirst(HttpHeaders.ETAG);
+          return response.bodyToMono(byte[].class)
+              .doOnNext(bytes -> {
+                filter = BloomFilter.fromBytes(bytes);
+                etag = newEtag;
+              })
+              .then();
+        })
+        .timeout(timeout)
+        .subscribe(
+            ignored -> { },
+            e -> log.warn("Failed to refresh revocation list: {}", e.getMessage()));
+  }
+}
@@ -0,0 +1,10 @@
+package com.supersection.apigateway.util;
+
+import io.jsonwebtoken.JwtException;
+
+public class UnknownSigningKeyException extends JwtException {
+
+  public UnknownSigningKeyException(String message) {
+    super(message);
+  }
+}
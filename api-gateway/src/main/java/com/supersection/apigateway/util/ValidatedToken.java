@@ -0,0 +1,11 @@
+package com.supersection.apigateway.util;
+
+import java.time.Instant;
+
+/**
+ * Identity carried by a token that has already been validated. A null
+ * {@code tokenId} or {@code expiresAt} means the token carries no
+ * {@code jti} or {@code exp} claim.
+ */
+public record ValidatedToken(String tokenId, String subject, String role, Instant expiresAt) {
+}
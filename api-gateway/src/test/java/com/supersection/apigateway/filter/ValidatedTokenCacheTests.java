@@ -0,0 +1,94 @@
+package com.supersection.apigateway.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.supersection.apigateway.util.ValidatedToken;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class ValidatedTokenCacheTests {
+
+  private final ValidatedTokenCache cache =
+      new ValidatedTokenCache(new SimpleMeterRegistry(), 1_000, 600_000);
+  private final AtomicInteger validations = new AtomicInteger();
+
+  @Test
+  void concurrentMissesShareOneValidation() {
+    ValidatedToken token = token(Instant.now().plusSeconds(60));
+
+    List<ValidatedToken> results = Flux.range(0, 20)
+        .flatMap(i -> cache.get("Bearer shared", () -> validate(token, Duration.ofMillis(100))))
+        .collectList()
+        .block(Duration.ofSeconds(5));
+
+    assertThat(results).hasSize(20).containsOnly(token);
+    assertThat(validations).hasValue(1);
+
+    // Served from the cache from now on
+    StepVerifier.create(cache.get("Bearer shared", () -> validate(token, Duration.ZERO)))
+        .expectNext(token)
+        .verifyComplete();
+    assertThat(validations).hasValue(1);
+  }
+
+  @Test
+  void failedValidationsAreNotCached() {
+    ValidatedToken token = token(Instant.now().plusSeconds(60));
+
+    StepVerifier.create(cache.get("Bearer flaky", () -> {
+      validations.incrementAndGet();
+      return Mono.error(new IllegalStateException("auth-service unavailable"));
+    }))
+        .expectError(IllegalStateException.class)
+        .verify();
+
+    StepVerifier.create(cache.get("Bearer flaky", () -> validate(token, Duration.ZERO)))
+        .expectNext(token)
+        .verifyComplete();
+    assertThat(validations).hasValue(2);
+  }
+
+  @Test
+  void entriesDoNotOutliveTheTokensExpiry() {
+    ValidatedToken expired = token(Instant.now().minusSeconds(1));
+
+    cache.get("Bearer expired", () -> validate(expired, Duration.ZERO)).block();
+    cache.get("Bearer expired", () -> validate(expired, Duration.ZERO)).block();
+
+    assertThat(validations).hasValue(2);
+  }
+
+  @Test
+  void cancellingOneCallerDoesNotCancelTheSharedValidation() {
+    ValidatedToken token = token(Instant.now().plusSeconds(60));
+
+    StepVerifier.create(cache.get(
+            "Bearer cancelled", () -> validate(token, Duration.ofMillis(200))))
+        .thenCancel()
+        .verify();
+
+    StepVerifier.create(cache.get("Bearer cancelled", () -> validate(token, Duration.ZERO)))
+        .expectNext(token)
+        .verifyComplete();
+    assertThat(validations).hasValue(1);
+  }
+
+  private Mono<ValidatedToken> validate(ValidatedToken token, Duration latency) {
+    validations.incrementAndGet();
+    return Mono.just(token).delayElement(latency);
+  }
+
+  private static ValidatedToken token(Instant expiresAt) {
+    return new ValidatedToken("token-id", "user@example.com", "ADMIN", expiresAt);
+  }
+}
@@ -0,0 +1,143 @@
+package com.supersection.apigateway.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.security.KeyPair;
+import java.security.interfaces.ECPublicKey;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.SignatureException;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class JwtVerifierTests {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final KeyPair signingKey = Jwts.SIG.ES256.keyPair().build();
+  private final AtomicInteger jwksFetches = new AtomicInteger();
+
+  // What auth-service currently publishes at its JWKS endpoint
+  private volatile Map<String, KeyPair> publishedKeys = Map.of("key-1", signingKey);
+
+  private final JwtVerifier jwtVerifier = new JwtVerifier(
+      new JwksKeyCache(jwksServer(), "http://auth-service/.well-known/jwks.json", 60_000, 2_000),
+      objectMapper,
+      30);
+
+  @Test
+  void tokensSignedWithAPublishedKeyAreVerifiedLocally() {
+    String token = token("key-1", signingKey, Instant.now().plusSeconds(60));
+
+    StepVerifier.create(jwtVerifier.verify(token))
+        .assertNext(verified -> {
+          assertThat(verified.tokenId()).isEqualTo("token-id");
+          assertThat(verified.subject()).isEqualTo("user@example.com");
+          assertThat(verified.role()).isEqualTo("ADMIN");
+        })
+        .verifyComplete();
+    assertThat(jwksFetches).hasValue(1);
+  }
+
+  @Test
+  void expiredAndForgedTokensAreRejected() {
+    StepVerifier.create(jwtVerifier.verify(
+            token("key-1", signingKey, Instant.now().minusSeconds(60))))
+        .expectError(ExpiredJwtException.class)
+        .verify();
+
+    // Right key id, wrong key
+    KeyPair forger = Jwts.SIG.ES256.keyPair().build();
+    StepVerifier.create(jwtVerifier.verify(
+            token("key-1", forger, Instant.now().plusSeconds(60))))
+        .expectError(SignatureException.class)
+        .verify();
+  }
+
+  @Test
+  void tokensExpiredWithinTheClockSkewAreStillAccepted() {
+    StepVerifier.create(jwtVerifier.verify(
+            token("key-1", signingKey, Instant.now().minusSeconds(10))))
+        .expectNextCount(1)
+        .verifyComplete();
+  }
+
+  @Test
+  void unknownKeyIdsRefreshTheKeySetAtMostOncePerInterval() {
+    StepVerifier.create(jwtVerifier.verify(
+            token("key-1", signingKey, Instant.now().plusSeconds(60))))
+        .expectNextCount(1)
+        .verifyComplete();
+
+    KeyPair rotated = Jwts.SIG.ES256.keyPair().build();
+    publishedKeys = Map.of("key-1", signingKey, "key-2", rotated);
+
+    // Within min-refresh-interval-ms of the last fetch, so the new key is not seen yet
+    StepVerifier.create(jwtVerifier.verify(
+            token("key-2", rotated, Instant.now().plusSeconds(60))))
+        .expectError(UnknownSigningKeyException.class)
+        .verify();
+    StepVerifier.create(jwtVerifier.verify(
+            token("made-up", rotated, Instant.now().plusSeconds(60))))
+        .expectError(UnknownSigningKeyException.class)
+        .verify();
+    assertThat(jwksFetches).hasValue(1);
+  }
+
+  @Test
+  void validatedTokensAreReadWithoutVerification() {
+    Instant expiry = Instant.now().plusSeconds(60);
+
+    ValidatedToken read = jwtVerifier.readValidated(token("key-1", signingKey, expiry));
+
+    assertThat(read.subject()).isEqualTo("user@example.com");
+    assertThat(read.expiresAt()).isEqualTo(Instant.ofEpochSecond(expiry.getEpochSecond()));
+    assertThat(jwksFetches).hasValue(0);
+  }
+
+  private static String token(String keyId, KeyPair keyPair, Instant expiresAt) {
+    return Jwts.builder()
+        .header().keyId(keyId).and()
+        .id("token-id")
+        .subject("user@example.com")
+        .claim("role", "ADMIN")
+        .expiration(Date.from(expiresAt))
+        .signWith(keyPair.getPrivate(), Jwts.SIG.ES256)
+        .compact();
+  }
+
+  private WebClient.Builder jwksServer() {
+    return WebClient.builder().exchangeFunction(request -> {
+      jwksFetches.incrementAndGet();
+      List<Object> keys = publishedKeys.entrySet().stream()
+          .<Object>map(entry -> Jwks.builder()
+              .key((ECPublicKey) entry.getValue().getPublic())
+              .id(entry.getKey())
+              .build())
+          .toList();
+      try {
+        return Mono.just(ClientResponse.create(HttpStatus.OK)
+            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .body(objectMapper.writeValueAsString(Map.of("keys", keys)))
+            .build());
+      } catch (Exception e) {
+        return Mono.error(e);
+      }
+    });
+  }
+}
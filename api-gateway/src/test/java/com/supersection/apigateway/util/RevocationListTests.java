@@ -0,0 +1,97 @@
+package com.supersection.apigateway.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.supersection.revocation.BloomFilter;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class RevocationListTests {
+
+  private final List<String> requestedPaths = new CopyOnWriteArrayList<>();
+  private final BloomFilter publishedFilter = new BloomFilter(100, 0.01);
+
+  private final RevocationList revocationList =
+      new RevocationList(authService(), "http://auth-service/revocations", 200);
+
+  @Test
+  void beforeTheFirstDownloadEveryTokenIsCheckedWithAuthService() {
+    StepVerifier.create(revocationList.isRevoked("revoked"))
+        .expectNext(true)
+        .verifyComplete();
+    StepVerifier.create(revocationList.isRevoked("not-revoked"))
+        .expectNext(false)
+        .verifyComplete();
+
+    assertThat(requestedPaths)
+        .containsExactly("/revocations/revoked", "/revocations/not-revoked");
+  }
+
+  @Test
+  void onlyTokensTheFilterCannotRuleOutAreCheckedWithAuthService() {
+    publishedFilter.put("revoked");
+    revocationList.refresh();
+
+    StepVerifier.create(revocationList.isRevoked("not-revoked"))
+        .expectNext(false)
+        .verifyComplete();
+    StepVerifier.create(revocationList.isRevoked("revoked"))
+        .expectNext(true)
+        .verifyComplete();
+
+    assertThat(requestedPaths).containsExactly("/revocations/bloom", "/revocations/revoked");
+  }
+
+  @Test
+  void aFailedCheckTreatsTheTokenAsRevoked() {
+    StepVerifier.create(revocationList.isRevoked("unreachable"))
+        .expectNext(true)
+        .verifyComplete();
+  }
+
+  @Test
+  void aCheckAuthServiceNeverAnswersTreatsTheTokenAsRevoked() {
+    StepVerifier.create(revocationList.isRevoked("silent"))
+        .expectNext(true)
+        .expectComplete()
+        .verify(Duration.ofSeconds(5));
+  }
+
+  private WebClient.Builder authService() {
+    return WebClient.builder().exchangeFunction(request -> {
+      String path = request.url().getPath();
+      requestedPaths.add(path);
+
+      if (path.endsWith("/bloom")) {
+        byte[] bytes = publishedFilter.toBytes();
+        return Mono.just(ClientResponse.create(HttpStatus.OK)
+            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_OCTET_STREAM_VALUE)
+            .header(HttpHeaders.ETAG, "\"1\"")
+            .body(Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(bytes)))
+            .build());
+      }
+      if (path.endsWith("/silent")) {
+        return Mono.never();
+      }
+      if (path.endsWith("/unreachable")) {
+        return Mono.error(new IllegalStateException("connection refused"));
+      }
+      HttpStatus status = path.endsWith("/revoked") ? HttpStatus.OK : HttpStatus.NOT_FOUND;
+      return Mono.just(ClientResponse.create(status).build());
+    });
+  }
+}
@@ -1,6 +1,6 @@
 package com.supersection.authservice.controller;
 
-import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -12,36 +12,51 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.supersection.authservice.dto.LoginRequestDTO;
 import com.supersection.authservice.dto.LoginResponseDTO;
+import com.supersection.authservice.dto.RevokeTokenRequestDTO;
 import com.supersection.authservice.service.AuthService;
+import com.supersection.authservice.service.LoginRateLimiter;
+import com.supersection.authservice.util.ClientIpResolver;
+import com.supersection.authservice.util.JwtValidationResult;
 
 import io.swagger.v3.oas.annotations.Operation;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
 
 
 @RestController
 public class AuthController {
 
   private final AuthService authService;
+  private final LoginRateLimiter loginRateLimiter;
+  private final ClientIpResolver clientIpResolver;
 
-  public AuthController(AuthService authService) {
+  public AuthController(
+      AuthService authService,
+      LoginRateLimiter loginRateLimiter,
+      ClientIpResolver clientIpResolver
+  ) {
     this.authService = authService;
+    this.loginRateLimiter = loginRateLimiter;
+    this.clientIpResolver = clientIpResolver;
   }
 
   @Operation(summary = "Generate JWT token on user login")
   @PostMapping("/login")
-  public ResponseEntity<LoginResponseDTO> postMethodName(
-      @RequestBody LoginRequestDTO loginRequestDTO
+  public CompletableFuture<ResponseEntity<LoginResponseDTO>> postMethodName(
+      @RequestBody LoginRequestDTO loginRequestDTO,
+      HttpServletRequest request
   ) {
 
-    Optional<String> tokenOptional = authService.authenticate(loginRequestDTO);
-
-    if (tokenOptional.isEmpty()) {
-      return ResponseEntity
-          .status(HttpStatus.UNAUTHORIZED)
-          .build();
-    }
+    loginRateLimiter.checkLogin(
+        loginRequestDTO.getEmail(), clientIpResolver.clientIp(request));
 
-    String token = tokenOptional.get();
-    return ResponseEntity.ok(new LoginResponseDTO(token));
+    // The request thread is released while the password is verified
+    return authService.authenticate(loginRequestDTO)
+        .thenApply(tokenOptional -> tokenOptional
+            .map(token -> ResponseEntity.ok(new LoginResponseDTO(token)))
+            .orElseGet(() -> ResponseEntity
+                .status(HttpStatus.UNAUTHORIZED)
+                .build()));
   }
 
 
@@ -61,4 +76,46 @@ public class AuthController {
         : ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
   }
 
+
+  @Operation(summary = "Revoke the caller's JWT token")
+  @PostMapping("/logout")
+  public ResponseEntity<Void> logout(@RequestHeader("Authorization") String authHeader) {
+
+    if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+      return ResponseEntity
+          .status(HttpStatus.UNAUTHORIZED)
+          .build();
+    }
+
+    return authService.revokeToken(authHeader.substring(7))
+        ? ResponseEntity.noContent().build()
+        : ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+  }
+
+
+  @Operation(summary = "Revoke any JWT token (admin only)")
+  @PostMapping("/revoke")
+  public ResponseEntity<Void> revokeToken(
+      @RequestHeader("Authorization") String authHeader,
+      @Valid @RequestBody RevokeTokenRequestDTO revokeTokenRequestDTO
+  ) {
+
+    if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+      return ResponseEntity
+          .status(HttpStatus.UNAUTHORIZED)
+          .build();
+    }
+
+    JwtValidationResult caller = authService.checkToken(authHeader.substring(7));
+    if (!caller.isValid()) {
+      return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+    }
+    if (!"ADMIN".equals(caller.claims().get("role", String.class))) {
+      return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+    }
+
+    return authService.revokeToken(revokeTokenRequestDTO.getToken())
+        ? ResponseEntity.noContent().build()
+        : ResponseEntity.badRequest().build();
+  }
 }
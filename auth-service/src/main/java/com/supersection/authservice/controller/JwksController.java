@@ -0,0 +1,49 @@
+package com.supersection.authservice.controller;
+
+import java.security.interfaces.ECPublicKey;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.supersection.authservice.util.JwtKeyRing;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.PublicJwk;
+import io.swagger.v3.oas.annotations.Operation;
+
+
+@RestController
+public class JwksController {
+
+  // Must stay well below jwt.keys.activation-delay so verifiers see new keys in time
+  private static final Duration MAX_AGE = Duration.ofMinutes(5);
+
+  private final JwtKeyRing keyRing;
+
+  public JwksController(JwtKeyRing keyRing) {
+    this.keyRing = keyRing;
+  }
+
+  @Operation(summary = "Public keys for verifying JWT signatures")
+  @GetMapping("/.well-known/jwks.json")
+  public ResponseEntity<Map<String, List<PublicJwk<?>>>> getJwks() {
+    List<PublicJwk<?>> keys = keyRing.publishedKeys().stream()
+        .<PublicJwk<?>>map(key -> Jwks.builder()
+            .key((ECPublicKey) key.publicKey())
+            .id(key.keyId())
+            .algorithm(Jwts.SIG.ES256.getId())
+            .publicKeyUse("sig")
+            .build())
+        .toList();
+
+    return ResponseEntity.ok()
+        .cacheControl(CacheControl.maxAge(MAX_AGE).cachePublic())
+        .body(Map.of("keys", keys));
+  }
+}
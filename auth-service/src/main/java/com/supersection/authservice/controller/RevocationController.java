@@ -0,0 +1,49 @@
+package com.supersection.authservice.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import com.supersection.authservice.service.TokenRevocationService;
+import com.supersection.authservice.service.TokenRevocationService.PublishedFilter;
+
+import io.swagger.v3.oas.annotations.Operation;
+
+
+@RestController
+public class RevocationController {
+
+  private final TokenRevocationService tokenRevocationService;
+
+  public RevocationController(TokenRevocationService tokenRevocationService) {
+    this.tokenRevocationService = tokenRevocationService;
+  }
+
+  @Operation(summary = "Bloom filter of revoked token ids, for offline pre-checks")
+  @GetMapping("/revocations/bloom")
+  public ResponseEntity<byte[]> getRevocationFilter(WebRequest webRequest) {
+    PublishedFilter filter = tokenRevocationService.publishedFilter();
+
+    if (webRequest.checkNotModified(filter.etag())) {
+      return null;
+    }
+
+    return ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+        .cacheControl(CacheControl.noCache())
+        .eTag(filter.etag())
+        .body(filter.bytes());
+  }
+
+  @Operation(summary = "Exact check for a token id the Bloom filter could not rule out")
+  @GetMapping("/revocations/{tokenId}")
+  public ResponseEntity<Void> getRevocation(@PathVariable String tokenId) {
+    return tokenRevocationService.isRevoked(tokenId)
+        ? ResponseEntity.ok().build()
+        : ResponseEntity.notFound().build();
+  }
+}
@@ -0,0 +1,17 @@
+package com.supersection.authservice.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+public class RevokeTokenRequestDTO {
+  @NotBlank(message = "Token is required")
+  private String token;
+
+
+  public String getToken() {
+    return token;
+  }
+
+  public void setToken(String token) {
+    this.token = token;
+  }
+}
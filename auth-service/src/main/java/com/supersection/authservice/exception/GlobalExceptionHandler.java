@@ -0,0 +1,46 @@
+package com.supersection.authservice.exception;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+
+@ControllerAdvice
+public class GlobalExceptionHandler {
+
+  private static final Logger log = LoggerFactory.getLogger(
+    GlobalExceptionHandler.class
+  );
+
+  @ExceptionHandler(PasswordVerificationOverloadedException.class)
+  public ResponseEntity<Map<String, String>> handlePasswordVerificationOverloadedException(
+      PasswordVerificationOverloadedException ex
+  ) {
+    log.warn("Login rejected under load {}", ex.getMessage());
+
+    Map<String, String> errors = new HashMap<>();
+    errors.put("message", "Too many concurrent logins, try again shortly");
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, "1")
+        .body(errors);
+  }
+
+  @ExceptionHandler(LoginRateLimitedException.class)
+  public ResponseEntity<Map<String, String>> handleLoginRateLimitedException(
+      LoginRateLimitedException ex
+  ) {
+    log.warn("Login rate limited {}", ex.getMessage());
+
+    Map<String, String> errors = new HashMap<>();
+    errors.put("message", "Too many login attempts, try again later");
+    return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+        .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+        .body(errors);
+  }
+}
@@ -0,0 +1,15 @@
+package com.supersection.authservice.exception;
+
+public class LoginRateLimitedException extends RuntimeException {
+
+  private final long retryAfterSeconds;
+
+  public LoginRateLimitedException(String message, long retryAfterSeconds) {
+    super(message);
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+
+  public long getRetryAfterSeconds() {
+    return retryAfterSeconds;
+  }
+}
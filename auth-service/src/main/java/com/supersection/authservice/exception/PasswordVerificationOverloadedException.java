@@ -0,0 +1,8 @@
+package com.supersection.authservice.exception;
+
+public class PasswordVerificationOverloadedException extends RuntimeException {
+
+  public PasswordVerificationOverloadedException(String message) {
+    super(message);
+  }
+}
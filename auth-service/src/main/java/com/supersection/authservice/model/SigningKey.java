@@ -0,0 +1,59 @@
+package com.supersection.authservice.model;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+@Entity
+@Table(name = "signing_keys")
+public class SigningKey {
+  @Id
+  private String keyId;
+
+  // PKCS#8 encoded
+  @Column(nullable = false, length = 1024)
+  private byte[] privateKey;
+
+  // X.509 encoded
+  @Column(nullable = false, length = 1024)
+  private byte[] publicKey;
+
+  @Column(nullable = false)
+  private Instant createdAt;
+
+
+  public String getKeyId() {
+    return keyId;
+  }
+
+  public void setKeyId(String keyId) {
+    this.keyId = keyId;
+  }
+
+  public byte[] getPrivateKey() {
+    return privateKey;
+  }
+
+  public void setPrivateKey(byte[] privateKey) {
+    this.privateKey = privateKey;
+  }
+
+  public byte[] getPublicKey() {
+    return publicKey;
+  }
+
+  public void setPublicKey(byte[] publicKey) {
+    this.publicKey = publicKey;
+  }
+
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+
+  public void setCreatedAt(Instant createdAt) {
+    this.createdAt = createdAt;
+  }
+}
@@ -0,0 +1,33 @@
+package com.supersection.authservice.repository;
+
+import java.time.Instant;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.supersection.authservice.model.RevokedToken;
+
+import jakarta.persistence.QueryHint;
+
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+  /**
+   * Stream the ids of all revoked tokens that have not expired yet. Must be
+   * consumed inside a transaction.
+   */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "10000"))
+  @Query("SELECT r.tokenId FROM RevokedToken r WHERE r.expiresAt > :now")
+  Stream<String> streamUnexpiredTokenIds(@Param("now") Instant now);
+
+  long countByExpiresAtAfter(Instant now);
+
+  @Transactional
+  @Modifying
+  @Query("DELETE FROM RevokedToken r WHERE r.expiresAt <= :now")
+  int deleteExpired(@Param("now") Instant now);
+}
@@ -0,0 +1,21 @@
+package com.supersection.authservice.repository;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.supersection.authservice.model.SigningKey;
+
+public interface SigningKeyRepository extends JpaRepository<SigningKey, String> {
+  /**
+   * Find all keys created after the given instant, newest first.
+   */
+  List<SigningKey> findByCreatedAtAfterOrderByCreatedAtDesc(Instant createdAfter);
+
+  @Transactional
+  @Modifying
+  void deleteByCreatedAtBefore(Instant createdBefore);
+}
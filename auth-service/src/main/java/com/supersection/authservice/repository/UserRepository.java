@@ -4,6 +4,10 @@ import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.supersection.authservice.model.User;
 
@@ -15,4 +19,9 @@ public interface UserRepository extends JpaRepository<User, UUID> {
    * @return an Optional containing the User if found, or empty if not found
    */
   Optional<User> findByEmail(String email);
+
+  @Transactional
+  @Modifying
+  @Query("UPDATE User u SET u.password = :password WHERE u.id = :id")
+  int updatePassword(@Param("id") UUID id, @Param("password") String password);
 }
@@ -1,46 +1,85 @@
 package com.supersection.authservice.service;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import com.supersection.authservice.dto.LoginRequestDTO;
+import com.supersection.authservice.model.User;
 import com.supersection.authservice.util.JwtUtil;
+import com.supersection.authservice.util.JwtValidationResult;
 
-import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Claims;
 
 @Service
 public class AuthService {
 
   private final UserService userService;
-  private final PasswordEncoder passwordEncoder;
+  private final PasswordService passwordService;
   private final JwtUtil jwtUtil;
+  private final TokenRevocationService tokenRevocationService;
 
   public AuthService(
-    UserService userService, PasswordEncoder passwordEncoder, JwtUtil jwtUtil
+    UserService userService,
+    PasswordService passwordService,
+    JwtUtil jwtUtil,
+    TokenRevocationService tokenRevocationService
   ) {
     this.userService = userService;
-    this.passwordEncoder = passwordEncoder;
+    this.passwordService = passwordService;
     this.jwtUtil = jwtUtil;
+    this.tokenRevocationService = tokenRevocationService;
   }
 
 
-  public Optional<String> authenticate(LoginRequestDTO loginRequestDTO) {
-    Optional<String> token = userService
-        .findByEmail(loginRequestDTO.getEmail())
-        .filter(u -> passwordEncoder.matches(loginRequestDTO.getPassword(), u.getPassword()))
-        .map(u -> jwtUtil.generateToken(u.getEmail(), u.getRole()));
+  /**
+   * Checks the credentials off the calling thread and completes with a token
+   * if they match.
+   */
+  public CompletableFuture<Optional<String>> authenticate(LoginRequestDTO loginRequestDTO) {
+    Optional<User> user = userService.findByEmail(loginRequestDTO.getEmail());
 
-    return token;
+    if (user.isEmpty()) {
+      return CompletableFuture.completedFuture(Optional.empty());
+    }
+
+    User u = user.get();
+    return passwordService
+        .matches(loginRequestDTO.getPassword(), u)
+        .thenApply(matches -> matches
+            ? Optional.of(jwtUtil.generateToken(u.getEmail(), u.getRole()))
+            : Optional.empty());
   }
 
   public boolean validateToken(String token) {
-    try {
-      jwtUtil.validateToken(token);
-      return true;
-    } catch (JwtException e) {
+    return checkToken(token).isValid();
+  }
+
+  /**
+   * Validates the token, including whether it has been revoked.
+   */
+  public JwtValidationResult checkToken(String token) {
+    JwtValidationResult result = jwtUtil.validateToken(token);
+    if (result.isValid() && tokenRevocationService.isRevoked(result.claims().getId())) {
+      return JwtValidationResult.revoked();
+    }
+    return result;
+  }
+
+  /**
+   * Revokes a currently valid token until it expires.
+   *
+   * @return false if the token is not valid, or carries no id to revoke by
+   */
+  public boolean revokeToken(String token) {
+    JwtValidationResult result = checkToken(token);
+    if (!result.isValid() || result.claims().getId() == null) {
       return false;
     }
+
+    Claims claims = result.claims();
+    tokenRevocationService.revoke(claims.getId(), claims.getExpiration().toInstant());
+    return true;
   }
 }
@@ -0,0 +1,113 @@
+package com.supersection.authservice.service;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.supersection.authservice.exception.LoginRateLimitedException;
+import com.supersection.authservice.util.TokenBucketRateLimiter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Throttles login attempts per client IP and per email before any database
+ * or BCrypt work is done. Published as {@code auth.login.rate-limit} counters
+ * tagged with the key type and outcome, plus gauges of live buckets. Can be
+ * switched off with {@code auth.rate-limit.enabled} for load tests, which
+ * log in far faster than any client should.
+ */
+@Service
+public class LoginRateLimiter {
+
+  private static final Logger log = LoggerFactory.getLogger(LoginRateLimiter.class);
+
+  private final boolean enabled;
+  private final TokenBucketRateLimiter perIp;
+  private final TokenBucketRateLimiter perEmail;
+  private final Counter ipAllowed;
+  private final Counter ipRejected;
+  private final Counter emailAllowed;
+  private final Counter emailRejected;
+
+  public LoginRateLimiter(
+      MeterRegistry meterRegistry,
+      @Value("${auth.rate-limit.enabled:true}") boolean enabled,
+      @Value("${auth.rate-limit.per-ip.rate-per-minute:60}") double ipRatePerMinute,
+      @Value("${auth.rate-limit.per-ip.burst:20}") int ipBurst,
+      @Value("${auth.rate-limit.per-email.rate-per-minute:10}") double emailRatePerMinute,
+      @Value("${auth.rate-limit.per-email.burst:5}") int emailBurst,
+      @Value("${auth.rate-limit.max-keys:1000000}") int maxKeys
+  ) {
+    this.enabled = enabled;
+    this.perIp = new TokenBucketRateLimiter(ipRatePerMinute, ipBurst, maxKeys);
+    this.perEmail = new TokenBucketRateLimiter(emailRatePerMinute, emailBurst, maxKeys);
+
+    this.ipAllowed = counter(meterRegistry, "ip", "allowed");
+    this.ipRejected = counter(meterRegistry, "ip", "rejected");
+    this.emailAllowed = counter(meterRegistry, "email", "allowed");
+    this.emailRejected = counter(meterRegistry, "email", "rejected");
+
+    Gauge.builder("auth.login.rate-limit.buckets", perIp, TokenBucketRateLimiter::size)
+        .tag("key", "ip")
+        .register(meterRegistry);
+    Gauge.builder("auth.login.rate-limit.buckets", perEmail, TokenBucketRateLimiter::size)
+        .tag("key", "email")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Takes a token from the IP's bucket and then from the email's bucket. An
+   * attempt rejected by IP does not count against the email.
+   *
+   * @throws LoginRateLimitedException if either bucket is empty
+   */
+  public void checkLogin(String email, String clientIp) {
+    if (!enabled) {
+      return;
+    }
+    check(perIp, clientIp, ipAllowed, ipRejected, "client IP");
+    if (email != null) {
+      check(perEmail, email.trim().toLowerCase(Locale.ROOT),
+          emailAllowed, emailRejected, "email");
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${auth.rate-limit.eviction-interval-ms:60000}")
+  public void evictIdleBuckets() {
+    int evicted = perIp.evictIdle() + perEmail.evictIdle();
+    log.debug("Evicted {} idle login rate limit buckets", evicted);
+  }
+
+  private static void check(
+      TokenBucketRateLimiter limiter,
+      String key,
+      Counter allowed,
+      Counter rejected,
+      String keyType
+  ) {
+    long waitNanos = limiter.tryAcquire(key);
+    if (waitNanos == 0) {
+      allowed.increment();
+      return;
+    }
+
+    rejected.increment();
+    throw new LoginRateLimitedException(
+        "Too many login attempts for " + keyType,
+        Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999)));
+  }
+
+  private static Counter counter(MeterRegistry meterRegistry, String key, String outcome) {
+    return Counter.builder("auth.login.rate-limit")
+        .tag("key", key)
+        .tag("outcome", outcome)
+        .register(meterRegistry);
+  }
+}
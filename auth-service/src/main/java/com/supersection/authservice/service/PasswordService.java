@@ -0,0 +1,132 @@
+package com.supersection.authservice.service;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import com.supersection.authservice.exception.PasswordVerificationOverloadedException;
+import com.supersection.authservice.model.User;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Verifies passwords on a dedicated pool of CPU-bound threads, so a login
+ * storm cannot occupy every servlet thread. At most {@code queue-capacity}
+ * verifications wait for a thread; beyond that logins are rejected
+ * immediately instead of queueing up.
+ *
+ * <p>Unless {@code bcrypt-cost} is pinned, the BCrypt cost is the highest one
+ * whose hash takes no longer than {@code target-verification-ms} on this
+ * machine. Passwords stored with a lower cost are rehashed on their next
+ * successful login. Higher costs are kept, so replicas that calibrate to
+ * different costs do not rehash the same users back and forth.
+ */
+@Service
+public class PasswordService {
+
+  private static final Logger log = LoggerFactory.getLogger(PasswordService.class);
+
+  private static final int MIN_COST = 10;
+  private static final int MAX_COST = 16;
+
+  private final UserService userService;
+  private final ThreadPoolExecutor executor;
+  private final BCryptPasswordEncoder encoder;
+  private final int cost;
+
+  public PasswordService(
+      UserService userService,
+      @Value("${auth.password.threads:0}") int threads,
+      @Value("${auth.password.queue-capacity:64}") int queueCapacity,
+      @Value("${auth.password.bcrypt-cost:0}") int bcryptCost,
+      @Value("${auth.password.target-verification-ms:250}") long targetVerificationMs
+  ) {
+    this.userService = userService;
+
+    int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    this.executor = new ThreadPoolExecutor(
+        poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity),
+        Thread.ofPlatform().name("password-hash-", 0).daemon().factory(),
+        new ThreadPoolExecutor.AbortPolicy());
+
+    this.cost = bcryptCost > 0
+        ? bcryptCost
+        : calibrateCost(Duration.ofMillis(targetVerificationMs));
+    this.encoder = new BCryptPasswordEncoder(cost);
+
+    log.info("Verifying passwords on {} threads with BCrypt cost {}", poolSize, cost);
+  }
+
+  /**
+   * Checks the password against the user's stored hash, rehashing it with
+   * the current cost if it matches and was stored with a lower one.
+   *
+   * @throws PasswordVerificationOverloadedException if too many
+   *     verifications are already waiting
+   */
+  public CompletableFuture<Boolean> matches(String rawPassword, User user) {
+    try {
+      return CompletableFuture.supplyAsync(() -> {
+        if (!encoder.matches(rawPassword, user.getPassword())) {
+          return false;
+        }
+        if (costOf(user.getPassword()) < cost) {
+          userService.updatePassword(user, encoder.encode(rawPassword));
+          log.info("Rehashed password for user {} with BCrypt cost {}", user.getId(), cost);
+        }
+        return true;
+      }, executor);
+    } catch (RejectedExecutionException e) {
+      throw new PasswordVerificationOverloadedException(
+          executor.getQueue().size() + " password verifications already queued");
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  // BCrypt hashes look like $2b$12$..., with the cost in the third field
+  private static int costOf(String encodedPassword) {
+    try {
+      return Integer.parseInt(encodedPassword.substring(4, 6));
+    } catch (RuntimeException e) {
+      return -1;
+    }
+  }
+
+  private static int calibrateCost(Duration target) {
+    BCryptPasswordEncoder probe = new BCryptPasswordEncoder(MIN_COST);
+    probe.encode("calibration"); // warm up
+
+    long fastestNanos = Long.MAX_VALUE;
+    for (int i = 0; i < 3; i++) {
+      long start = System.nanoTime();
+      probe.encode("calibration");
+      fastestNanos = Math.min(fastestNanos, System.nanoTime() - start);
+    }
+
+    // Each step up in cost doubles the work
+    int calibrated = MIN_COST;
+    long nanos = fastestNanos;
+    while (calibrated < MAX_COST && nanos * 2 <= target.toNanos()) {
+      calibrated++;
+      nanos *= 2;
+    }
+
+    log.info("BCrypt cost {} takes {} ms, calibrated cost {} for a {} ms target",
+        MIN_COST, fastestNanos / 1_000_000, calibrated, target.toMillis());
+    return calibrated;
+  }
+}
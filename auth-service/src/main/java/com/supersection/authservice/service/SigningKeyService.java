@@ -0,0 +1,124 @@
+package com.supersection.authservice.service;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.supersection.authservice.model.SigningKey;
+import com.supersection.authservice.repository.SigningKeyRepository;
+import com.supersection.authservice.util.JwtKey;
+import com.supersection.authservice.util.JwtKeyRing;
+import com.supersection.authservice.util.JwtUtil;
+
+import io.jsonwebtoken.Jwts;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Rotates the EC keys tokens are signed with. Keys live in the database so
+ * every auth-service instance signs with and publishes the same set.
+ *
+ * <p>A new key is created every {@code rotation-interval} but is only
+ * published, not used for signing, until {@code activation-delay} has passed,
+ * giving verifiers time to fetch it first. A retired key stays published
+ * until every token it signed has expired.
+ */
+@Service
+public class SigningKeyService {
+
+  private static final Logger log = LoggerFactory.getLogger(SigningKeyService.class);
+
+  private final SigningKeyRepository signingKeyRepository;
+  private final JwtKeyRing keyRing;
+  private final Duration rotationInterval;
+  private final Duration activationDelay;
+  private final Duration retention;
+
+  public SigningKeyService(
+      SigningKeyRepository signingKeyRepository,
+      JwtKeyRing keyRing,
+      @Value("${jwt.keys.rotation-interval:24h}") Duration rotationInterval,
+      @Value("${jwt.keys.activation-delay:10m}") Duration activationDelay,
+      @Value("${jwt.clock-skew-seconds:30}") long clockSkewSeconds
+  ) {
+    this.signingKeyRepository = signingKeyRepository;
+    this.keyRing = keyRing;
+    this.rotationInterval = rotationInterval;
+    this.activationDelay = activationDelay;
+    // A key signs for rotation-interval, starting activation-delay after creation
+    this.retention = rotationInterval
+        .plus(activationDelay)
+        .plus(JwtUtil.TOKEN_LIFETIME)
+        .plusSeconds(clockSkewSeconds);
+  }
+
+  @PostConstruct
+  public void init() {
+    refreshKeys();
+  }
+
+  @Scheduled(fixedDelayString = "${jwt.keys.refresh-interval-ms:60000}")
+  public void refreshKeys() {
+    Instant now = Instant.now();
+    List<SigningKey> stored = signingKeyRepository
+        .findByCreatedAtAfterOrderByCreatedAtDesc(now.minus(retention));
+
+    if (stored.isEmpty() || stored.get(0).getCreatedAt().isBefore(now.minus(rotationInterval))) {
+      SigningKey created = signingKeyRepository.save(newSigningKey(now));
+      log.info("Created signing key {}", created.getKeyId());
+      stored = signingKeyRepository
+          .findByCreatedAtAfterOrderByCreatedAtDesc(now.minus(retention));
+    }
+
+    signingKeyRepository.deleteByCreatedAtBefore(now.minus(retention));
+
+    List<JwtKey> published = stored.stream().map(SigningKeyService::toJwtKey).toList();
+    Instant activeBefore = now.minus(activationDelay);
+
+    // Keys are newest first. Before any key is activated (first start) there
+    // are no tokens for verifiers to check yet, so the oldest key is used.
+    JwtKey signingKey = published.stream()
+        .filter(key -> !key.createdAt().isAfter(activeBefore))
+        .findFirst()
+        .orElse(published.get(published.size() - 1));
+
+    keyRing.update(signingKey, published);
+  }
+
+  private static SigningKey newSigningKey(Instant createdAt) {
+    KeyPair keyPair = Jwts.SIG.ES256.keyPair().build();
+
+    SigningKey signingKey = new SigningKey();
+    signingKey.setKeyId(UUID.randomUUID().toString());
+    signingKey.setPrivateKey(keyPair.getPrivate().getEncoded());
+    signingKey.setPublicKey(keyPair.getPublic().getEncoded());
+    signingKey.setCreatedAt(createdAt);
+    return signingKey;
+  }
+
+  private static JwtKey toJwtKey(SigningKey signingKey) {
+    try {
+      KeyFactory keyFactory = KeyFactory.getInstance("EC");
+      PrivateKey privateKey = keyFactory.generatePrivate(
+          new PKCS8EncodedKeySpec(signingKey.getPrivateKey()));
+      PublicKey publicKey = keyFactory.generatePublic(
+          new X509EncodedKeySpec(signingKey.getPublicKey()));
+      return new JwtKey(signingKey.getKeyId(), privateKey, publicKey, signingKey.getCreatedAt());
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Unreadable signing key " + signingKey.getKeyId(), e);
+    }
+  }
+}
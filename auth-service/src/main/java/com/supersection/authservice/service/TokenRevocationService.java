@@ -0,0 +1,122 @@
+package com.supersection.authservice.service;
+
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.supersection.authservice.model.RevokedToken;
+import com.supersection.authservice.repository.RevokedTokenRepository;
+import com.supersection.revocation.BloomFilter;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Revoked token ids (jti claims), kept until the token would have expired
+ * anyway. Lookups go through a Bloom filter first, so the database is only
+ * queried for the few ids the filter cannot rule out. The filter is rebuilt
+ * from the database every {@code refresh-interval-ms}, which also picks up
+ * revocations made on other instances, and is published so other services
+ * can run the same pre-check.
+ */
+@Service
+public class TokenRevocationService {
+
+  private static final Logger log = LoggerFactory.getLogger(TokenRevocationService.class);
+
+  public record PublishedFilter(byte[] bytes, String etag) {
+  }
+
+  private final RevokedTokenRepository revokedTokenRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final long expectedRevocations;
+  private final double falsePositiveRate;
+  // Revoked on this instance and possibly missed by a rebuild in progress
+  private final Set<String> recentRevocations = ConcurrentHashMap.newKeySet();
+
+  private volatile BloomFilter filter;
+  private volatile PublishedFilter publishedFilter;
+
+  public TokenRevocationService(
+      RevokedTokenRepository revokedTokenRepository,
+      TransactionTemplate transactionTemplate,
+      @Value("${auth.revocation.expected-revocations:1000000}") long expectedRevocations,
+      @Value("${auth.revocation.false-positive-rate:0.01}") double falsePositiveRate
+  ) {
+    this.revokedTokenRepository = revokedTokenRepository;
+    this.transactionTemplate = transactionTemplate;
+    this.expectedRevocations = expectedRevocations;
+    this.falsePositiveRate = falsePositiveRate;
+  }
+
+  @PostConstruct
+  public void init() {
+    rebuildFilter();
+  }
+
+  public void revoke(String tokenId, Instant expiresAt) {
+    RevokedToken revokedToken = new RevokedToken();
+    revokedToken.setTokenId(tokenId);
+    revokedToken.setExpiresAt(expiresAt);
+    revokedTokenRepository.save(revokedToken);
+
+    // Effective here at once; published to other services on the next rebuild
+    recentRevocations.add(tokenId);
+    filter.put(tokenId);
+    log.info("Revoked token {}", tokenId);
+  }
+
+  public boolean isRevoked(String tokenId) {
+    return tokenId != null
+        && filter.mightContain(tokenId)
+        && revokedTokenRepository.existsById(tokenId);
+  }
+
+  public PublishedFilter publishedFilter() {
+    return publishedFilter;
+  }
+
+  @Scheduled(
+      initialDelayString = "${auth.revocation.refresh-interval-ms:30000}",
+      fixedDelayString = "${auth.revocation.refresh-interval-ms:30000}")
+  public synchronized void rebuildFilter() {
+    List<String> alreadyStored = List.copyOf(recentRevocations);
+    Instant now = Instant.now();
+    int purged = revokedTokenRepository.deleteExpired(now);
+
+    long count = revokedTokenRepository.countByExpiresAtAfter(now);
+    // Leave headroom for revocations made before the next rebuild
+    BloomFilter rebuilt = new BloomFilter(
+        Math.max(expectedRevocations, count * 2), falsePositiveRate);
+
+    transactionTemplate.executeWithoutResult(status -> {
+      try (Stream<String> tokenIds = revokedTokenRepository.streamUnexpiredTokenIds(now)) {
+        tokenIds.forEach(rebuilt::put);
+      }
+    });
+
+    // Complete before it is used; the second pass catches revocations that
+    // went into the old filter while it was being swapped out
+    recentRevocations.forEach(rebuilt::put);
+    filter = rebuilt;
+    recentRevocations.forEach(rebuilt::put);
+    alreadyStored.forEach(recentRevocations::remove);
+
+    byte[] bytes = rebuilt.toBytes();
+    CRC32 crc = new CRC32();
+    crc.update(bytes);
+
+    publishedFilter = new PublishedFilter(bytes, HexFormat.of().toHexDigits(crc.getValue()));
+    log.debug("Rebuilt revocation filter with {} tokens, purged {}", count, purged);
+  }
+}
@@ -1,22 +1,85 @@
 package com.supersection.authservice.service;
 
+import java.time.Duration;
 import java.util.Optional;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.supersection.authservice.model.User;
 import com.supersection.authservice.repository.UserRepository;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Read-through cache of users by email in front of the repository. Unknown
+ * emails are cached too, for a shorter time, so enumeration traffic does not
+ * reach the database. Entries are evicted when this instance changes a user;
+ * other instances pick up changes within {@code ttl}.
+ */
 @Service
 public class UserService {
 
   private final UserRepository userRepository;
+  private final LoadingCache<String, Optional<User>> usersByEmail;
 
-  public UserService(UserRepository userRepository) {
+  public UserService(
+      UserRepository userRepository,
+      MeterRegistry meterRegistry,
+      @Value("${auth.user-cache.max-size:100000}") long maxSize,
+      @Value("${auth.user-cache.ttl:5m}") Duration ttl,
+      @Value("${auth.user-cache.negative-ttl:1m}") Duration negativeTtl
+  ) {
     this.userRepository = userRepository;
+    this.usersByEmail = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfter(new Expiry<String, Optional<User>>() {
+          @Override
+          public long expireAfterCreate(String email, Optional<User> user, long currentTime) {
+            return (user.isPresent() ? ttl : negativeTtl).toNanos();
+          }
+
+          @Override
+          public long expireAfterUpdate(
+              String email, Optional<User> user, long currentTime, long currentDuration) {
+            return expireAfterCreate(email, user, currentTime);
+          }
+
+          @Override
+          public long expireAfterRead(
+              String email, Optional<User> user, long currentTime, long currentDuration) {
+            return currentDuration;
+          }
+        })
+        .recordStats()
+        .build(userRepository::findByEmail);
+
+    // Publishes cache.gets{result=hit|miss}, cache.evictions and cache.load.duration
+    CaffeineCacheMetrics.monitor(meterRegistry, usersByEmail, "auth.users");
   }
 
   public Optional<User> findByEmail(String email) {
-    return userRepository.findByEmail(email);
+    if (email == null) {
+      return Optional.empty();
+    }
+    return usersByEmail.get(email);
+  }
+
+  public void updatePassword(User user, String encodedPassword) {
+    userRepository.updatePassword(user.getId(), encodedPassword);
+    evict(user.getEmail());
+  }
+
+  /**
+   * Drops the cached entry for an email. Call after any change to a user's
+   * password or role, or after creating a user whose email may be cached as
+   * unknown.
+   */
+  public void evict(String email) {
+    usersByEmail.invalidate(email);
   }
 }
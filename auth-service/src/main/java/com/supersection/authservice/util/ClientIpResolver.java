@@ -0,0 +1,64 @@
+package com.supersection.authservice.util;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+import org.springframework.stereotype.Component;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Finds the address a request came from, for per-client rate limiting.
+ * X-Forwarded-For is only read when the peer is one of the configured
+ * {@code auth.rate-limit.trusted-proxies}, given as addresses or CIDR ranges;
+ * anyone else could put any address in it. The header is then walked from the
+ * right, past further trusted proxies, to the first address none of them is.
+ */
+@Component
+public class ClientIpResolver {
+
+  private final List<IpAddressMatcher> trustedProxies;
+
+  public ClientIpResolver(
+      @Value("${auth.rate-limit.trusted-proxies:}") List<String> trustedProxies
+  ) {
+    this.trustedProxies = trustedProxies.stream()
+        .map(String::trim)
+        .filter(proxy -> !proxy.isEmpty())
+        .map(IpAddressMatcher::new)
+        .toList();
+  }
+
+  public String clientIp(HttpServletRequest request) {
+    String peer = request.getRemoteAddr();
+    String forwardedFor = request.getHeader("X-Forwarded-For");
+    if (forwardedFor == null || forwardedFor.isBlank() || !isTrusted(peer)) {
+      return peer;
+    }
+
+    String[] hops = forwardedFor.split(",");
+    for (int i = hops.length - 1; i >= 0; i--) {
+      String hop = hops[i].trim();
+      if (!isTrusted(hop)) {
+        return hop.isEmpty() ? peer : hop;
+      }
+    }
+    // Every hop is a proxy of ours, so the first one is as close to the client as we get
+    return hops[0].trim();
+  }
+
+  private boolean isTrusted(String address) {
+    for (IpAddressMatcher proxy : trustedProxies) {
+      try {
+        if (proxy.matches(address)) {
+          return true;
+        }
+      } catch (IllegalArgumentException e) {
+        // Not an IP address, so not one of ours
+        return false;
+      }
+    }
+    return false;
+  }
+}
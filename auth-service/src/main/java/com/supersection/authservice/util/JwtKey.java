@@ -0,0 +1,8 @@
+package com.supersection.authservice.util;
+
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.time.Instant;
+
+public record JwtKey(String keyId, PrivateKey privateKey, PublicKey publicKey, Instant createdAt) {
+}
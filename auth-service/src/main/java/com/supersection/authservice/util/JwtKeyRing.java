@@ -0,0 +1,61 @@
+package com.supersection.authservice.util;
+
+import java.security.Key;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Component;
+
+import io.jsonwebtoken.Header;
+import io.jsonwebtoken.ProtectedHeader;
+import io.jsonwebtoken.security.SignatureException;
+
+/**
+ * The keys auth-service currently signs with and publishes. Both are swapped
+ * together in one volatile write, so signing and validation always see a
+ * consistent set.
+ */
+@Component
+public class JwtKeyRing {
+
+  private record Keys(JwtKey signingKey, Map<String, JwtKey> publishedKeys) {
+  }
+
+  private volatile Keys keys = new Keys(null, Map.of());
+
+  public void update(JwtKey signingKey, List<JwtKey> publishedKeys) {
+    this.keys = new Keys(signingKey, publishedKeys.stream()
+        .collect(Collectors.toUnmodifiableMap(JwtKey::keyId, Function.identity())));
+  }
+
+  public JwtKey signingKey() {
+    JwtKey signingKey = keys.signingKey();
+    if (signingKey == null) {
+      throw new IllegalStateException("No signing key loaded yet");
+    }
+    return signingKey;
+  }
+
+  public Collection<JwtKey> publishedKeys() {
+    return keys.publishedKeys().values();
+  }
+
+  /**
+   * Resolves the verification key named by a token's {@code kid} header.
+   *
+   * @throws SignatureException if the token names no published key
+   */
+  public Key locate(Header header) {
+    JwtKey key = header instanceof ProtectedHeader protectedHeader
+        ? keys.publishedKeys().get(protectedHeader.getKeyId())
+        : null;
+
+    if (key == null) {
+      throw new SignatureException("Unknown signing key");
+    }
+    return key.publicKey();
+  }
+}
@@ -1,49 +1,80 @@
 package com.supersection.authservice.util;
 
-import java.nio.charset.StandardCharsets;
-import java.security.Key;
-import java.util.Base64;
+import java.time.Duration;
 import java.util.Date;
-
-import javax.crypto.SecretKey;
+import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
 
 @Component
 public class JwtUtil {
 
-  private final Key secretKey;
+  public static final Duration TOKEN_LIFETIME = Duration.ofHours(10);
+
+  private final JwtKeyRing keyRing;
+  // Immutable and thread-safe, so one parser serves every validation
+  private final JwtParser parser;
 
-  public JwtUtil(@Value("${jwt.secret}") String secret) {
-    byte[] keyBytes = Base64.getDecoder().decode(secret.getBytes(StandardCharsets.UTF_8));
-    this.secretKey = Keys.hmacShaKeyFor(keyBytes);
+  public JwtUtil(
+      JwtKeyRing keyRing,
+      @Value("${jwt.clock-skew-seconds:30}") long clockSkewSeconds
+  ) {
+    this.keyRing = keyRing;
+    this.parser = Jwts.parser()
+        .keyLocator(keyRing::locate)
+        .clockSkewSeconds(clockSkewSeconds)
+        .build();
   }
 
   public String generateToken(String email, String role) {
+    JwtKey signingKey = keyRing.signingKey();
+
     return Jwts.builder()
+        .header().keyId(signingKey.keyId()).and()
+        .id(UUID.randomUUID().toString())
         .subject(email)
         .claim("role", role)
         .issuedAt(new Date())
-        .expiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 10)) // 10 hours
-        .signWith(secretKey)
+        .expiration(new Date(System.currentTimeMillis() + TOKEN_LIFETIME.toMillis()))
+        .signWith(signingKey.privateKey(), Jwts.SIG.ES256)
         .compact();
   }
 
-  public void validateToken(String token) {
+  /**
+   * Verifies the signature and expiry of the token, allowing for the
+   * configured clock skew. Never throws for a bad token.
+   */
+  public JwtValidationResult validateToken(String token) {
+    // Reject obvious garbage before handing it to the parser
+    if (token == null || token.isBlank() || !hasThreeParts(token)) {
+      return JwtValidationResult.malformed();
+    }
+
     try {
-      Jwts.parser().verifyWith((SecretKey) secretKey)
-          .build()
-          .parseSignedClaims(token);
+      return JwtValidationResult.valid(parser.parseSignedClaims(token).getPayload());
+    } catch (ExpiredJwtException e) {
+      return JwtValidationResult.expired();
     } catch (SignatureException e) {
-      throw new JwtException("Invalid JWT signature");
-    } catch (JwtException e) {
-      throw new JwtException("Invalid JWT");
+      return JwtValidationResult.invalidSignature();
+    } catch (JwtException | IllegalArgumentException e) {
+      return JwtValidationResult.malformed();
+    }
+  }
+
+  private static boolean hasThreeParts(String token) {
+    int first = token.indexOf('.');
+    if (first <= 0) {
+      return false;
     }
+    int second = token.indexOf('.', first + 1);
+    return second > first + 1 && second < token.length() - 1
+        && token.indexOf('.', second + 1) < 0;
   }
 }
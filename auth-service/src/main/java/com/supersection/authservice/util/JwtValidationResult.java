@@ -0,0 +1,52 @@
+package com.supersection.authservice.util;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * Outcome of validating a token. Rejections are reported through
+ * {@link Status} instead of exceptions, so callers on the validation hot path
+ * never pay for a stack trace.
+ */
+public record JwtValidationResult(Status status, Claims claims) {
+
+  public enum Status {
+    VALID,
+    EXPIRED,
+    REVOKED,
+    INVALID_SIGNATURE,
+    MALFORMED
+  }
+
+  private static final JwtValidationResult EXPIRED =
+      new JwtValidationResult(Status.EXPIRED, null);
+  private static final JwtValidationResult REVOKED =
+      new JwtValidationResult(Status.REVOKED, null);
+  private static final JwtValidationResult INVALID_SIGNATURE =
+      new JwtValidationResult(Status.INVALID_SIGNATURE, null);
+  private static final JwtValidationResult MALFORMED =
+      new JwtValidationResult(Status.MALFORMED, null);
+
+  public static JwtValidationResult valid(Claims claims) {
+    return new JwtValidationResult(Status.VALID, claims);
+  }
+
+  public static JwtValidationResult expired() {
+    return EXPIRED;
+  }
+
+  public static JwtValidationResult revoked() {
+    return REVOKED;
+  }
+
+  public static JwtValidationResult invalidSignature() {
+    return INVALID_SIGNATURE;
+  }
+
+  public static JwtValidationResult malformed() {
+    return MALFORMED;
+  }
+
+  public boolean isValid() {
+    return status == Status.VALID;
+  }
+}
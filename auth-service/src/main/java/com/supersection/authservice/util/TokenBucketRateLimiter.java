@@ -0,0 +1,108 @@
+package com.supersection.authservice.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Lock-free token buckets keyed by string. Each bucket is a single
+ * {@code long}, the time at which it would be full again (the generic cell
+ * rate algorithm), updated by compare-and-set, so a check is one cache
+ * lookup and one CAS.
+ *
+ * <p>Buckets are held in a Caffeine cache bounded to {@code maxKeys}. When
+ * it is full, its frequency-based admission evicts keys seen once before
+ * keys in active use, so flooding it with junk keys neither throttles other
+ * clients nor resets the bucket of a key under attack.
+ *
+ * <p>A bucket whose refill time has passed is indistinguishable from a new
+ * one, so {@link #evictIdle()} can drop it without losing state. A bucket
+ * is retired by CAS before it leaves the cache, and a check that finds a
+ * retired bucket retries on a fresh one, so no token taken concurrently
+ * with an eviction is lost.
+ */
+public class TokenBucketRateLimiter {
+
+  // Value of a bucket that has been, or is being, removed from the cache
+  private static final long RETIRED = Long.MAX_VALUE;
+
+  private final Cache<String, AtomicLong> buckets;
+  private final long emissionIntervalNanos;
+  private final long burstNanos;
+
+  /**
+   * @param ratePerMinute sustained number of requests allowed per minute
+   * @param burst number of requests allowed back to back by a full bucket
+   * @param maxKeys upper bound on the number of buckets held
+   */
+  public TokenBucketRateLimiter(double ratePerMinute, int burst, int maxKeys) {
+    this.emissionIntervalNanos = (long) (TimeUnit.MINUTES.toNanos(1) / ratePerMinute);
+    this.burstNanos = emissionIntervalNanos * burst;
+    this.buckets = Caffeine.newBuilder()
+        .maximumSize(maxKeys)
+        // Runs atomically with the removal of an evicted entry
+        .<String, AtomicLong>evictionListener((key, bucket, cause) -> bucket.set(RETIRED))
+        .build();
+  }
+
+  /**
+   * Takes one token from the key's bucket.
+   *
+   * @return 0 if the request is allowed, otherwise the nanoseconds until it
+   *     would be
+   */
+  public long tryAcquire(String key) {
+    AtomicLong bucket = bucketFor(key);
+    long now = System.nanoTime();
+
+    while (true) {
+      long fullAt = bucket.get();
+      if (fullAt == RETIRED) {
+        buckets.asMap().remove(key, bucket);
+        bucket = bucketFor(key);
+        continue;
+      }
+
+      long newFullAt = Math.max(fullAt, now) + emissionIntervalNanos;
+      long allowedAt = newFullAt - burstNanos;
+
+      if (allowedAt > now) {
+        return allowedAt - now;
+      }
+      if (bucket.compareAndSet(fullAt, newFullAt)) {
+        return 0;
+      }
+    }
+  }
+
+  /**
+   * Removes buckets that have refilled completely.
+   *
+   * @return the number of buckets removed
+   */
+  public int evictIdle() {
+    long now = System.nanoTime();
+    int evicted = 0;
+
+    for (var entry : buckets.asMap().entrySet()) {
+      AtomicLong bucket = entry.getValue();
+      long fullAt = bucket.get();
+      // Fails if a token was taken since the read, which keeps the bucket
+      if (fullAt <= now && bucket.compareAndSet(fullAt, RETIRED)) {
+        buckets.asMap().remove(entry.getKey(), bucket);
+        evicted++;
+      }
+    }
+    return evicted;
+  }
+
+  public int size() {
+    return (int) buckets.estimatedSize();
+  }
+
+  private AtomicLong bucketFor(String key) {
+    return buckets.get(key, k -> new AtomicLong(Long.MIN_VALUE));
+  }
+}
@@ -0,0 +1,64 @@
+package com.supersection.authservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import com.supersection.authservice.model.User;
+
+class PasswordServiceTests {
+
+  private static final String PASSWORD = "password123";
+
+  private final UserService userService = mock(UserService.class);
+  private final PasswordService passwordService = new PasswordService(userService, 1, 4, 5, 250);
+
+  @AfterEach
+  void shutdown() {
+    passwordService.shutdown();
+  }
+
+  @Test
+  void hashesWithALowerCostAreRehashed() {
+    User user = user(new BCryptPasswordEncoder(4).encode(PASSWORD));
+
+    assertThat(passwordService.matches(PASSWORD, user).join()).isTrue();
+    verify(userService).updatePassword(eq(user), startsWith("$2a$05$"));
+  }
+
+  @Test
+  void hashesWithAHigherCostAreKept() {
+    // As stored by a replica that calibrated to a higher cost
+    User user = user(new BCryptPasswordEncoder(6).encode(PASSWORD));
+
+    assertThat(passwordService.matches(PASSWORD, user).join()).isTrue();
+    verify(userService, never()).updatePassword(any(), any());
+  }
+
+  @Test
+  void wrongPasswordsAreNeverRehashed() {
+    User user = user(new BCryptPasswordEncoder(4).encode(PASSWORD));
+
+    assertThat(passwordService.matches("wrong", user).join()).isFalse();
+    verify(userService, never()).updatePassword(any(), any());
+  }
+
+  private static User user(String encodedPassword) {
+    User user = new User();
+    user.setId(UUID.randomUUID());
+    user.setEmail("hashed@example.com");
+    user.setPassword(encodedPassword);
+    user.setRole("USER");
+    return user;
+  }
+}
@@ -0,0 +1,66 @@
+package com.supersection.authservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.supersection.authservice.repository.RevokedTokenRepository;
+import com.supersection.revocation.BloomFilter;
+
+class TokenRevocationServiceTests {
+
+  private final RevokedTokenRepository revokedTokenRepository = mock(RevokedTokenRepository.class);
+  private final TokenRevocationService tokenRevocationService = new TokenRevocationService(
+      revokedTokenRepository,
+      new TransactionTemplate(mock(PlatformTransactionManager.class)),
+      1_000,
+      0.01);
+
+  @Test
+  void storedRevocationsArePublishedAndCheckedLocallyFirst() {
+    when(revokedTokenRepository.streamUnexpiredTokenIds(any()))
+        .thenReturn(Stream.of("stored-1", "stored-2"));
+    when(revokedTokenRepository.existsById("stored-1")).thenReturn(true);
+
+    tokenRevocationService.rebuildFilter();
+
+    BloomFilter published =
+        BloomFilter.fromBytes(tokenRevocationService.publishedFilter().bytes());
+    assertThat(published.mightContain("stored-1")).isTrue();
+    assertThat(published.mightContain("stored-2")).isTrue();
+
+    assertThat(tokenRevocationService.isRevoked("stored-1")).isTrue();
+    assertThat(tokenRevocationService.isRevoked("never-revoked")).isFalse();
+    verify(revokedTokenRepository, never()).existsById("never-revoked");
+  }
+
+  @Test
+  void revocationsMadeDuringARebuildAreInTheFilterItPublishes() {
+    when(revokedTokenRepository.streamUnexpiredTokenIds(any())).thenReturn(Stream.empty());
+    tokenRevocationService.rebuildFilter();
+    String etag = tokenRevocationService.publishedFilter().etag();
+
+    // Stored after the rebuild's query started, so the query does not return it
+    when(revokedTokenRepository.streamUnexpiredTokenIds(any())).thenAnswer(invocation -> {
+      tokenRevocationService.revoke("revoked-late", Instant.now().plusSeconds(60));
+      return Stream.empty();
+    });
+    when(revokedTokenRepository.existsById("revoked-late")).thenReturn(true);
+    tokenRevocationService.rebuildFilter();
+
+    assertThat(tokenRevocationService.isRevoked("revoked-late")).isTrue();
+    assertThat(tokenRevocationService.publishedFilter().etag()).isNotEqualTo(etag);
+    assertThat(BloomFilter.fromBytes(tokenRevocationService.publishedFilter().bytes())
+        .mightContain("revoked-late")).isTrue();
+  }
+}
@@ -0,0 +1,101 @@
+package com.supersection.authservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.supersection.authservice.model.User;
+import com.supersection.authservice.repository.UserRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class UserServiceTests {
+
+  private static final String EMAIL = "cached@example.com";
+  private static final String UNKNOWN_EMAIL = "unknown@example.com";
+
+  private final UserRepository userRepository = mock(UserRepository.class);
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final UserService userService = new UserService(
+      userRepository, meterRegistry, 100, Duration.ofMinutes(5), Duration.ofMillis(500));
+
+  @Test
+  void knownAndUnknownEmailsAreLoadedOnce() {
+    User user = user();
+    when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+    when(userRepository.findByEmail(UNKNOWN_EMAIL)).thenReturn(Optional.empty());
+
+    for (int i = 0; i < 3; i++) {
+      assertThat(userService.findByEmail(EMAIL)).containsSame(user);
+      assertThat(userService.findByEmail(UNKNOWN_EMAIL)).isEmpty();
+    }
+
+    verify(userRepository, times(1)).findByEmail(EMAIL);
+    verify(userRepository, times(1)).findByEmail(UNKNOWN_EMAIL);
+    assertThat(meterRegistry.get("cache.gets").tag("cache", "auth.users")
+        .tag("result", "hit").functionCounter().count()).isEqualTo(4);
+  }
+
+  @Test
+  void updatingThePasswordReloadsTheUser() {
+    User user = user();
+    when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+
+    userService.findByEmail(EMAIL);
+    userService.updatePassword(user, "rehashed");
+    userService.findByEmail(EMAIL);
+
+    verify(userRepository).updatePassword(user.getId(), "rehashed");
+    verify(userRepository, times(2)).findByEmail(EMAIL);
+  }
+
+  @Test
+  void unknownEmailsExpireAfterTheNegativeTtl() throws Exception {
+    when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.empty());
+
+    assertThat(userService.findByEmail(EMAIL)).isEmpty();
+
+    // The user registers; the cached miss hides them until it expires
+    User user = user();
+    when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+    assertThat(userService.findByEmail(EMAIL)).isEmpty();
+
+    Thread.sleep(700);
+    assertThat(userService.findByEmail(EMAIL)).containsSame(user);
+  }
+
+  @Test
+  void evictingAnEmailDropsTheCachedMiss() {
+    when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.empty());
+    assertThat(userService.findByEmail(EMAIL)).isEmpty();
+
+    User user = user();
+    when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+    userService.evict(EMAIL);
+
+    assertThat(userService.findByEmail(EMAIL)).containsSame(user);
+  }
+
+  @Test
+  void aNullEmailIsNotLookedUp() {
+    assertThat(userService.findByEmail(null)).isEmpty();
+    verify(userRepository, times(0)).findByEmail(null);
+  }
+
+  private static User user() {
+    User user = new User();
+    user.setId(UUID.randomUUID());
+    user.setEmail(EMAIL);
+    user.setPassword("hash");
+    user.setRole("ADMIN");
+    return user;
+  }
+}
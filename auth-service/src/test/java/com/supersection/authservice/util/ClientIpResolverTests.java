@@ -0,0 +1,45 @@
+package com.supersection.authservice.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+class ClientIpResolverTests {
+
+  private final ClientIpResolver resolver =
+      new ClientIpResolver(List.of("10.0.0.0/16", "192.168.1.7"));
+
+  @Test
+  void forwardedForIsIgnoredUnlessThePeerIsATrustedProxy() {
+    assertThat(resolver.clientIp(request("203.0.113.9", "198.51.100.1")))
+        .isEqualTo("203.0.113.9");
+    assertThat(resolver.clientIp(request("203.0.113.9", null))).isEqualTo("203.0.113.9");
+    assertThat(new ClientIpResolver(List.of()).clientIp(request("10.0.0.2", "198.51.100.1")))
+        .isEqualTo("10.0.0.2");
+  }
+
+  @Test
+  void theClientIsTheLastForwardedAddressThatIsNotATrustedProxy() {
+    assertThat(resolver.clientIp(request("10.0.3.4", "198.51.100.1")))
+        .isEqualTo("198.51.100.1");
+    // The leftmost entry is whatever the client chose to send
+    assertThat(resolver.clientIp(request("10.0.3.4", "1.2.3.4, 198.51.100.1, 192.168.1.7")))
+        .isEqualTo("198.51.100.1");
+    assertThat(resolver.clientIp(request("192.168.1.7", "not-an-ip, 10.0.0.9")))
+        .isEqualTo("not-an-ip");
+    assertThat(resolver.clientIp(request("10.0.3.4", "10.0.0.8, 10.0.0.9")))
+        .isEqualTo("10.0.0.8");
+  }
+
+  private static MockHttpServletRequest request(String peer, String forwardedFor) {
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.setRemoteAddr(peer);
+    if (forwardedFor != null) {
+      request.addHeader("X-Forwarded-For", forwardedFor);
+    }
+    return request;
+  }
+}
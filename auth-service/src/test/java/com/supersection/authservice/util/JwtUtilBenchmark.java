@@ -0,0 +1,104 @@
+package com.supersection.authservice.util;
+
+import java.security.KeyPair;
+import java.security.PublicKey;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.SignatureException;
+
+/**
+ * Token validation throughput of {@link JwtUtil} against the previous
+ * implementation, which built a parser per call and rethrew every failure.
+ * Both verify the same ES256 token with the same key, so the gap is only the
+ * parser reuse and the cheaper failure path.
+ *
+ * <pre>
+ * mvn -B test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main JwtUtilBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+  @Param({"valid", "expired", "tampered"})
+  private String tokenKind;
+
+  private JwtUtil jwtUtil;
+  private PublicKey publicKey;
+  private String token;
+
+  @Setup
+  public void setUp() {
+    KeyPair keyPair = Jwts.SIG.ES256.keyPair().build();
+    JwtKey key = new JwtKey("benchmark", keyPair.getPrivate(), keyPair.getPublic(), Instant.now());
+    JwtKeyRing keyRing = new JwtKeyRing();
+    keyRing.update(key, List.of(key));
+
+    jwtUtil = new JwtUtil(keyRing, 0);
+    publicKey = key.publicKey();
+
+    token = token(
+        jwtUtil.generateToken("testuser@test.com", "ADMIN"),
+        Jwts.builder()
+            .header().keyId(key.keyId()).and()
+            .subject("testuser@test.com")
+            .expiration(new Date(System.currentTimeMillis() - 60_000))
+            .signWith(key.privateKey(), Jwts.SIG.ES256)
+            .compact());
+  }
+
+  private String token(String valid, String expired) {
+    return switch (tokenKind) {
+      case "valid" -> valid;
+      case "expired" -> expired;
+      case "tampered" -> valid.substring(0, valid.length() - 4)
+          + (valid.endsWith("AAAA") ? "BBBB" : "AAAA");
+      default -> throw new IllegalArgumentException(tokenKind);
+    };
+  }
+
+  @Benchmark
+  public boolean current() {
+    return jwtUtil.validateToken(token).isValid();
+  }
+
+  @Benchmark
+  public boolean legacy() {
+    try {
+      Jwts.parser().verifyWith(publicKey)
+          .build()
+          .parseSignedClaims(token);
+      return true;
+    } catch (SignatureException e) {
+      return rejected(new JwtException("Invalid JWT signature"));
+    } catch (JwtException e) {
+      return rejected(new JwtException("Invalid JWT"));
+    }
+  }
+
+  private static boolean rejected(JwtException e) {
+    return e.getMessage() == null;
+  }
+}
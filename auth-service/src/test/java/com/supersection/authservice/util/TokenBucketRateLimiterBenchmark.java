@@ -0,0 +1,56 @@
+package com.supersection.authservice.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of one rate limit check spread over many live keys.
+ *
+ * <pre>
+ * mvn -B test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main TokenBucketRateLimiterBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class TokenBucketRateLimiterBenchmark {
+
+  @Param({"100000", "1000000"})
+  private int keyCount;
+
+  private TokenBucketRateLimiter limiter;
+  private String[] keys;
+
+  @Setup
+  public void setUp() {
+    limiter = new TokenBucketRateLimiter(60, 20, keyCount);
+    keys = new String[keyCount];
+    for (int i = 0; i < keyCount; i++) {
+      keys[i] = "user" + i + "@test.com";
+      limiter.tryAcquire(keys[i]);
+    }
+  }
+
+  @Benchmark
+  public long tryAcquire() {
+    return limiter.tryAcquire(keys[ThreadLocalRandom.current().nextInt(keyCount)]);
+  }
+}
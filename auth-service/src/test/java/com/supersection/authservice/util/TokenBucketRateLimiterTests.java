@@ -0,0 +1,109 @@
+package com.supersection.authservice.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+class TokenBucketRateLimiterTests {
+
+  @Test
+  void aBucketAllowsItsBurstAndThenThrottles() {
+    TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 3, 100);
+
+    for (int i = 0; i < 3; i++) {
+      assertThat(limiter.tryAcquire("client")).isZero();
+    }
+    assertThat(limiter.tryAcquire("client")).isPositive();
+    assertThat(limiter.tryAcquire("other-client")).isZero();
+  }
+
+  @Test
+  void floodingWithNewKeysNeitherThrottlesNorResetsOtherKeys() {
+    TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 3, 100);
+
+    // Fill the limiter so that it is already choosing which keys to keep
+    for (int i = 0; i < 200; i++) {
+      limiter.tryAcquire("client-" + i);
+    }
+    for (int i = 0; i < 3; i++) {
+      assertThat(limiter.tryAcquire("victim")).isZero();
+    }
+    for (int i = 0; i < 10_000; i++) {
+      limiter.tryAcquire("junk-" + i);
+      if (i % 10 == 0) {
+        // Still throttled, so its bucket was never evicted and refilled
+        assertThat(limiter.tryAcquire("victim")).isPositive();
+      }
+    }
+
+    assertThat(limiter.tryAcquire("newcomer")).isZero();
+  }
+
+  @Test
+  void onlyRefilledBucketsAreEvicted() throws Exception {
+    // One token every 100ms
+    TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(600, 10, 100);
+
+    limiter.tryAcquire("idle");
+    Thread.sleep(150);
+    while (limiter.tryAcquire("busy") == 0) {
+      // Drain the bucket
+    }
+
+    int evicted = limiter.evictIdle();
+    int size = limiter.size();
+    long busyWait = limiter.tryAcquire("busy");
+
+    assertThat(evicted).isOne();
+    assertThat(size).isOne();
+    assertThat(busyWait).isPositive();
+  }
+
+  @Test
+  void evictionRacingWithChecksNeverGrantsExtraTokens() throws Exception {
+    TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 1, 100_000);
+    int threads = 4;
+    int rounds = 2_000;
+
+    ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+    AtomicBoolean running = new AtomicBoolean(true);
+    try {
+      executor.execute(() -> {
+        while (running.get()) {
+          limiter.evictIdle();
+        }
+      });
+
+      CyclicBarrier barrier = new CyclicBarrier(threads);
+      for (int round = 0; round < rounds; round++) {
+        String key = "key-" + round;
+        List<Future<Long>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+          results.add(executor.submit(() -> {
+            barrier.await();
+            return limiter.tryAcquire(key);
+          }));
+        }
+
+        int granted = 0;
+        for (Future<Long> result : results) {
+          if (result.get() == 0) {
+            granted++;
+          }
+        }
+        assertThat(granted).as(key).isOne();
+      }
+    } finally {
+      running.set(false);
+      executor.shutdownNow();
+    }
+  }
+}
@@ -1,12 +1,24 @@
 package com.supersection.billingservice.grpc;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.supersection.billingservice.model.BillingAccount;
+import com.supersection.billingservice.service.BillingAccountService;
+
+import billing.BillingAccountRequest;
+import billing.BillingBatchResponse;
 import billing.BillingRequest;
 import billing.BillingResponse;
+import billing.BillingResult;
 import billing.BillingServiceGrpc.BillingServiceImplBase;
 
+import io.grpc.Status;
 import io.grpc.stub.StreamObserver;
 import net.devh.boot.grpc.server.service.GrpcService;
 
@@ -15,6 +27,12 @@ public class BillingGrpcService extends BillingServiceImplBase {
 
   private static final Logger log = LoggerFactory.getLogger(BillingGrpcService.class);
 
+  private final BillingAccountService billingAccountService;
+
+  public BillingGrpcService(BillingAccountService billingAccountService) {
+    this.billingAccountService = billingAccountService;
+  }
+
   @Override
   public void createBillingAccount(
       BillingRequest billingRequest,
@@ -22,14 +40,109 @@ public class BillingGrpcService extends BillingServiceImplBase {
   ) {
     log.info("createBillingAccount request received {}", billingRequest.toString());
 
-    // Business logic - e.g. save to database, perform caculates etc.
+    if (billingRequest.getPatientId().isBlank()) {
+      responseObserver.onError(Status.INVALID_ARGUMENT
+          .withDescription("patientId is required")
+          .asRuntimeException());
+      return;
+    }
 
-    BillingResponse response = BillingResponse.newBuilder()
-        .setAccountId("123abc")
-        .setStatus("ACTIVE")
-        .build();
+    try {
+      BillingAccount account = billingAccountService
+          .createAccounts(List.of(billingRequest))
+          .get(0);
+      responseObserver.onNext(toResponse(account));
+      responseObserver.onCompleted();
+    } catch (RuntimeException e) {
+      log.error("createBillingAccount failed: {}", e.getMessage());
+      responseObserver.onError(Status.UNAVAILABLE
+          .withDescription("Billing account store unavailable")
+          .asRuntimeException());
+    }
+  }
+
+  @Override
+  public StreamObserver<BillingRequest> createBillingAccounts(
+      StreamObserver<BillingBatchResponse> responseObserver
+  ) {
+    return new StreamObserver<>() {
+      private final List<BillingRequest> requests = new ArrayList<>();
+
+      @Override
+      public void onNext(BillingRequest billingRequest) {
+        requests.add(billingRequest);
+      }
+
+      @Override
+      public void onError(Throwable t) {
+        log.warn("createBillingAccounts stream aborted by client: {}", t.getMessage());
+      }
 
-    responseObserver.onNext(response);
-    responseObserver.onCompleted();
+      @Override
+      public void onCompleted() {
+        List<BillingRequest> valid = requests.stream()
+            .filter(request -> !request.getPatientId().isBlank())
+            .toList();
+
+        // Store failures are transient for the whole batch, so the client retries it
+        Map<String, BillingAccount> accounts = new HashMap<>();
+        try {
+          billingAccountService.createAccounts(valid)
+              .forEach(account -> accounts.put(account.getPatientId(), account));
+        } catch (RuntimeException e) {
+          log.error("createBillingAccounts failed for {} requests: {}",
+              requests.size(), e.getMessage());
+          responseObserver.onError(Status.UNAVAILABLE
+              .withDescription("Billing account store unavailable")
+              .asRuntimeException());
+          return;
+        }
+
+        BillingBatchResponse.Builder response = BillingBatchResponse.newBuilder();
+        for (BillingRequest request : requests) {
+          BillingAccount account = accounts.get(request.getPatientId());
+          BillingResult.Builder result = BillingResult.newBuilder()
+              .setPatientId(request.getPatientId());
+
+          // A failure for one patient is reported in its result, not as an RPC error;
+          // its code tells the client whether retrying the patient can help
+          if (account == null) {
+            result.setError("patientId is required")
+                .setErrorCode(Status.Code.INVALID_ARGUMENT.value());
+          } else {
+            result.setAccountId(account.getAccountId()).setStatus(account.getStatus());
+          }
+          response.addResults(result);
+        }
+
+        log.info("createBillingAccounts processed {} requests", requests.size());
+        responseObserver.onNext(response.build());
+        responseObserver.onCompleted();
+      }
+    };
+  }
+
+  @Override
+  public void getBillingAccount(
+      BillingAccountRequest billingAccountRequest,
+      StreamObserver<BillingResponse> responseObserver
+  ) {
+    billingAccountService.findByPatientId(billingAccountRequest.getPatientId())
+        .ifPresentOrElse(
+            account -> {
+              responseObserver.onNext(toResponse(account));
+              responseObserver.onCompleted();
+            },
+            () -> responseObserver.onError(Status.NOT_FOUND
+                .withDescription("No billing account for patient "
+                    + billingAccountRequest.getPatientId())
+                .asRuntimeException()));
+  }
+
+  private static BillingResponse toResponse(BillingAccount account) {
+    return BillingResponse.newBuilder()
+        .setAccountId(account.getAccountId())
+        .setStatus(account.getStatus())
+        .build();
   }
 }
@@ -0,0 +1,10 @@
+package com.supersection.billingservice.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.supersection.billingservice.model.BillingAccount;
+
+@Repository
+public interface BillingAccountRepository extends JpaRepository<BillingAccount, String> {
+}
@@ -0,0 +1,133 @@
+package com.supersection.billingservice.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.supersection.billingservice.model.BillingAccount;
+import com.supersection.billingservice.repository.BillingAccountRepository;
+import com.supersection.billingservice.util.AccountIdGenerator;
+
+import billing.BillingRequest;
+
+/**
+ * Idempotent billing account store. Creating an account for a patient that
+ * already has one returns the existing account, so client retries never
+ * produce duplicates. Accounts never change once created, so lookups are
+ * served from a size-bounded cache that needs no invalidation.
+ */
+@Service
+public class BillingAccountService {
+
+  private static final Logger log = LoggerFactory.getLogger(BillingAccountService.class);
+
+  private final BillingAccountRepository billingAccountRepository;
+  private final AccountIdGenerator accountIdGenerator;
+  private final TransactionTemplate transactionTemplate;
+  private final Cache<String, BillingAccount> accountCache;
+
+  public BillingAccountService(
+      BillingAccountRepository billingAccountRepository,
+      AccountIdGenerator accountIdGenerator,
+      TransactionTemplate transactionTemplate,
+      @Value("${billing.account-cache.max-size:500000}") long cacheMaxSize
+  ) {
+    this.billingAccountRepository = billingAccountRepository;
+    this.accountIdGenerator = accountIdGenerator;
+    this.transactionTemplate = transactionTemplate;
+    this.accountCache = Caffeine.newBuilder()
+        .maximumSize(cacheMaxSize)
+        .build();
+  }
+
+  /**
+   * Creates accounts for all requests in one transaction with batched
+   * INSERTs, reusing any account that already exists.
+   *
+   * @return one account per request, in request order
+   */
+  public List<BillingAccount> createAccounts(List<BillingRequest> requests) {
+    List<BillingAccount> accounts;
+    try {
+      accounts = transactionTemplate.execute(status -> createMissingAccounts(requests));
+    } catch (DataIntegrityViolationException e) {
+      // A concurrent call created one of these accounts first; it is visible now
+      log.info("Concurrent billing account creation detected, retrying batch: {}",
+          e.getMessage());
+      accounts = transactionTemplate.execute(status -> createMissingAccounts(requests));
+    }
+
+    // Only cache committed accounts
+    accounts.forEach(account -> accountCache.put(account.getPatientId(), account));
+    return accounts;
+  }
+
+  public Optional<BillingAccount> findByPatientId(String patientId) {
+    BillingAccount cached = accountCache.getIfPresent(patientId);
+    if (cached != null) {
+      return Optional.of(cached);
+    }
+
+    Optional<BillingAccount> account = billingAccountRepository.findById(patientId);
+    account.ifPresent(found -> accountCache.put(patientId, found));
+    return account;
+  }
+
+  private List<BillingAccount> createMissingAccounts(List<BillingRequest> requests) {
+    Map<String, BillingAccount> accounts = new LinkedHashMap<>();
+    List<String> uncached = new ArrayList<>();
+
+    for (BillingRequest request : requests) {
+      BillingAccount cached = accountCache.getIfPresent(request.getPatientId());
+      if (cached != null) {
+        accounts.put(request.getPatientId(), cached);
+      } else {
+        uncached.add(request.getPatientId());
+      }
+    }
+
+    billingAccountRepository.findAllById(uncached)
+        .forEach(existing -> accounts.put(existing.getPatientId(), existing));
+
+    List<BillingAccount> created = new ArrayList<>();
+    for (BillingRequest request : requests) {
+      if (!accounts.containsKey(request.getPatientId())) {
+        BillingAccount account = newAccount(request);
+        accounts.put(request.getPatientId(), account);
+        created.add(account);
+      }
+    }
+
+    billingAccountRepository.saveAll(created);
+    billingAccountRepository.flush();
+    log.info("Created {} billing accounts ({} already existed)",
+        created.size(), requests.size() - created.size());
+
+    return requests.stream()
+        .map(request -> accounts.get(request.getPatientId()))
+        .toList();
+  }
+
+  private BillingAccount newAccount(BillingRequest request) {
+    BillingAccount account = new BillingAccount();
+    account.setPatientId(request.getPatientId());
+    account.setAccountId(accountIdGenerator.nextId());
+    account.setName(request.getName());
+    account.setEmail(request.getEmail());
+    account.setStatus("ACTIVE");
+    account.setCreatedAt(Instant.now());
+    return account;
+  }
+}
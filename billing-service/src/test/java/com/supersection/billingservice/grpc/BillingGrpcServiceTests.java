@@ -0,0 +1,98 @@
+package com.supersection.billingservice.grpc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import com.supersection.billingservice.service.BillingAccountService;
+
+import billing.BillingBatchResponse;
+import billing.BillingRequest;
+import billing.BillingResult;
+
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+
+@SpringBootTest(properties = "grpc.server.port=-1")
+class BillingGrpcServiceTests {
+
+  @Autowired
+  private BillingGrpcService billingGrpcService;
+
+  @MockitoSpyBean
+  private BillingAccountService billingAccountService;
+
+  @Test
+  void invalidRequestsFailOnTheirOwnWithANonRetryableCode() {
+    RecordingObserver responses = createAccounts(
+        request("grpc-batch-a"), request(""), request("grpc-batch-b"));
+
+    assertThat(responses.error).isNull();
+    assertThat(responses.value.getResultsList())
+        .extracting(BillingResult::getPatientId)
+        .containsExactly("grpc-batch-a", "", "grpc-batch-b");
+
+    BillingResult rejected = responses.value.getResults(1);
+    assertThat(rejected.getError()).isNotEmpty();
+    assertThat(rejected.getErrorCode()).isEqualTo(Status.Code.INVALID_ARGUMENT.value());
+    assertThat(responses.value.getResults(0).getAccountId()).isNotEmpty();
+    assertThat(responses.value.getResults(0).getErrorCode()).isZero();
+    assertThat(responses.value.getResults(2).getAccountId()).isNotEmpty();
+  }
+
+  @Test
+  void storeFailuresFailTheWholeCallWithARetryableCode() {
+    doThrow(new DataAccessResourceFailureException("connection refused"))
+        .when(billingAccountService).createAccounts(any());
+
+    RecordingObserver responses = createAccounts(request("grpc-store-down"));
+
+    assertThat(responses.value).isNull();
+    assertThat(Status.fromThrowable(responses.error).getCode())
+        .isEqualTo(Status.Code.UNAVAILABLE);
+  }
+
+  private RecordingObserver createAccounts(BillingRequest... requests) {
+    RecordingObserver responses = new RecordingObserver();
+    StreamObserver<BillingRequest> stream = billingGrpcService.createBillingAccounts(responses);
+    for (BillingRequest request : requests) {
+      stream.onNext(request);
+    }
+    stream.onCompleted();
+    return responses;
+  }
+
+  private static BillingRequest request(String patientId) {
+    return BillingRequest.newBuilder()
+        .setPatientId(patientId)
+        .setName("Batch Tester")
+        .setEmail(patientId + "@example.com")
+        .build();
+  }
+
+  // The service answers synchronously once the stream completes
+  private static class RecordingObserver implements StreamObserver<BillingBatchResponse> {
+    private BillingBatchResponse value;
+    private Throwable error;
+
+    @Override
+    public void onNext(BillingBatchResponse value) {
+      this.value = value;
+    }
+
+    @Override
+    public void onError(Throwable t) {
+      this.error = t;
+    }
+
+    @Override
+    public void onCompleted() {
+    }
+  }
+}
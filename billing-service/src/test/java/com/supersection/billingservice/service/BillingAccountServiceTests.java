@@ -0,0 +1,56 @@
+package com.supersection.billingservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.supersection.billingservice.model.BillingAccount;
+import com.supersection.billingservice.repository.BillingAccountRepository;
+
+import billing.BillingRequest;
+
+@SpringBootTest
+class BillingAccountServiceTests {
+
+  @Autowired
+  private BillingAccountService billingAccountService;
+
+  @Autowired
+  private BillingAccountRepository billingAccountRepository;
+
+  @Test
+  void retriedCreateReturnsExistingAccount() {
+    BillingRequest request = request("patient-retry");
+
+    BillingAccount first = billingAccountService.createAccounts(List.of(request)).get(0);
+    BillingAccount retried = billingAccountService.createAccounts(List.of(request)).get(0);
+
+    assertThat(retried.getAccountId()).isEqualTo(first.getAccountId());
+    assertThat(billingAccountRepository.findById("patient-retry")).isPresent();
+  }
+
+  @Test
+  void batchCreatesOneAccountPerPatient() {
+    List<BillingAccount> accounts = billingAccountService.createAccounts(List.of(
+        request("patient-a"), request("patient-b"), request("patient-a")));
+
+    assertThat(accounts).hasSize(3);
+    assertThat(accounts.get(0).getAccountId()).isEqualTo(accounts.get(2).getAccountId());
+    assertThat(accounts.get(0).getAccountId()).isNotEqualTo(accounts.get(1).getAccountId());
+    assertThat(billingAccountService.findByPatientId("patient-b"))
+        .map(BillingAccount::getAccountId)
+        .contains(accounts.get(1).getAccountId());
+  }
+
+  private static BillingRequest request(String patientId) {
+    return BillingRequest.newBuilder()
+        .setPatientId(patientId)
+        .setName("Billing Tester")
+        .setEmail(patientId + "@example.com")
+        .build();
+  }
+}
@@ -57,6 +57,9 @@ public class CloudStack extends Stack {
     DatabaseInstance patientServiceDB = createDatabase(
         "PatientServiceDB", "patient-service-db"
     );
+    DatabaseInstance billingServiceDB = createDatabase(
+        "BillingServiceDB", "billing-service-db"
+    );
 
     CfnHealthCheck authServiceDBHealthCheck = createDBHealthCheck(
         authServiceDB, "AuthServiceDBHealthCheck"
@@ -64,6 +67,9 @@ public class CloudStack extends Stack {
     CfnHealthCheck patientServiceDBHealthCheck = createDBHealthCheck(
         patientServiceDB, "PatientServiceDBHealthCheck"
     );
+    CfnHealthCheck billingServiceDBHealthCheck = createDBHealthCheck(
+        billingServiceDB, "BillingServiceDBHealthCheck"
+    );
 
     CfnCluster mskCluster = createMskCluster();
 
@@ -74,7 +80,8 @@ public class CloudStack extends Stack {
         "auth-service",
         List.of(4005),
         authServiceDB,
-        Map.of("JWT_SECRET", "your_jwt_secret")
+        // Logins arrive through the api-gateway, from inside the VPC
+        Map.of("AUTH_RATELIMIT_TRUSTEDPROXIES", vpc.getVpcCidrBlock())
     );
 
     authService.getNode().addDependency(authServiceDBHealthCheck);
@@ -84,10 +91,13 @@ public class CloudStack extends Stack {
         "BillingService",
         "billing-service",
         List.of(4001, 9001),
-        null,
+        billingServiceDB,
         null
     );
 
+    billingService.getNode().addDependency(billingServiceDBHealthCheck);
+    billingService.getNode().addDependency(billingServiceDB);
+
     FargateService analyticsService = createFargateService(
         "AnalyticsService",
         "analytics-service",
@@ -105,7 +115,9 @@ public class CloudStack extends Stack {
         patientServiceDB,
         Map.of(
             "BILLING_SERVICE_ADDRESS", "billing-service:4001",
-            "BILLING_SERVICE_GRPC_PORT", "9001"
+            "BILLING_SERVICE_GRPC_PORT", "9001",
+            "AUTH_JWKS_URL", "http://auth-service:4005/.well-known/jwks.json",
+            "AUTH_REVOCATION_URL", "http://auth-service:4005/revocations"
         )
     );
 
@@ -0,0 +1,126 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Measures login throughput and /validate latency while logins run at full
+ * concurrency. Every login comes from one address for one account, so the
+ * stack must run with the login rate limiter off, or almost every login is
+ * throttled. Those 429s are reported apart from real failures. Skipped
+ * unless requested:
+ *
+ * <pre>
+ * AUTH_RATELIMIT_ENABLED=false docker compose -f auth-service/docker-compose.auth-service.yml up -d
+ * mvn test -Dtest=AuthLoadTest -Dloadtest=true [-Dloadtest.url=http://localhost:4004/auth]
+ *     [-Dloadtest.concurrency=64] [-Dloadtest.seconds=30]
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+public class AuthLoadTest {
+
+  private static final String LOGIN_PAYLOAD = """
+      {
+        "email": "adminuser@test.com",
+        "password": "password123"
+      }
+      """;
+
+  private final String baseUrl = System.getProperty("loadtest.url", "http://localhost:4004/auth");
+  private final int concurrency = Integer.getInteger("loadtest.concurrency", 64);
+  private final int seconds = Integer.getInteger("loadtest.seconds", 30);
+
+  private final HttpClient client = HttpClient.newBuilder()
+      .connectTimeout(Duration.ofSeconds(5))
+      .build();
+
+  @Test
+  public void loginStormDoesNotStarveValidate() throws Exception {
+    String token = login().body().replaceAll(".*\"token\"\\s*:\\s*\"([^\"]+)\".*", "$1");
+
+    AtomicInteger loggedIn = new AtomicInteger();
+    AtomicInteger rejected = new AtomicInteger();
+    AtomicInteger throttled = new AtomicInteger();
+    AtomicInteger failed = new AtomicInteger();
+    AtomicLong loginNanos = new AtomicLong();
+    List<Long> validateNanos = Collections.synchronizedList(new ArrayList<>());
+
+    long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+
+    try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < concurrency; i++) {
+        workers.submit(() -> {
+          while (System.nanoTime() < deadline) {
+            long start = System.nanoTime();
+            int status = login().statusCode();
+            loginNanos.addAndGet(System.nanoTime() - start);
+            switch (status) {
+              case 200 -> loggedIn.incrementAndGet();
+              case 503 -> rejected.incrementAndGet();
+              case 429 -> throttled.incrementAndGet();
+              default -> failed.incrementAndGet();
+            }
+          }
+          return null;
+        });
+      }
+
+      workers.submit(() -> {
+        HttpRequest validate = HttpRequest.newBuilder(URI.create(baseUrl + "/validate"))
+            .header("Authorization", "Bearer " + token)
+            .GET()
+            .build();
+        while (System.nanoTime() < deadline) {
+          long start = System.nanoTime();
+          client.send(validate, HttpResponse.BodyHandlers.discarding());
+          validateNanos.add(System.nanoTime() - start);
+          Thread.sleep(10);
+        }
+        return null;
+      });
+    }
+
+    int logins = loggedIn.get() + rejected.get() + throttled.get() + failed.get();
+    List<Long> latencies = new ArrayList<>(validateNanos);
+    Collections.sort(latencies);
+
+    System.out.printf("logins: %d ok (%.1f/s), %d rejected with 503, %d throttled with 429,"
+        + " %d failed, mean %.1f ms%n",
+        loggedIn.get(), loggedIn.get() / (double) seconds, rejected.get(), throttled.get(),
+        failed.get(), logins == 0 ? 0 : loginNanos.get() / 1e6 / logins);
+    if (throttled.get() > 0) {
+      System.out.println("Logins were rate limited; run auth-service with"
+          + " AUTH_RATELIMIT_ENABLED=false to measure throughput");
+    }
+    System.out.printf("validate: %d calls, p50 %.1f ms, p99 %.1f ms, max %.1f ms%n",
+        latencies.size(), percentile(latencies, 0.50), percentile(latencies, 0.99),
+        percentile(latencies, 1.0));
+  }
+
+  private HttpResponse<String> login() throws Exception {
+    HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/login"))
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofString(LOGIN_PAYLOAD))
+        .build();
+    return client.send(request, HttpResponse.BodyHandlers.ofString());
+  }
+
+  private static double percentile(List<Long> sorted, double p) {
+    if (sorted.isEmpty()) {
+      return 0;
+    }
+    int index = (int) Math.ceil(p * sorted.size()) - 1;
+    return sorted.get(Math.max(0, index)) / 1e6;
+  }
+}
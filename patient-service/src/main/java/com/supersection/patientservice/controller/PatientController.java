@@ -1,8 +1,15 @@
 package com.supersection.patientservice.controller;
 
-import java.util.List;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
 import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
 
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -11,12 +18,25 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.supersection.patientservice.dto.PatientBulkImportResponseDTO;
+import com.supersection.patientservice.dto.PatientFilterDTO;
+import com.supersection.patientservice.dto.PatientPageResponseDTO;
 import com.supersection.patientservice.dto.PatientRequestDTO;
 import com.supersection.patientservice.dto.PatientResponseDTO;
 import com.supersection.patientservice.dto.validator.CreatePatientValidationGroup;
+import com.supersection.patientservice.exception.InvalidBulkUploadException;
+import com.supersection.patientservice.mapper.PatientCsvReader;
+import com.supersection.patientservice.service.PatientBulkImportService;
+import com.supersection.patientservice.service.PatientExportService;
 import com.supersection.patientservice.service.PatientService;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -28,17 +48,73 @@ import jakarta.validation.groups.Default;
 @RequestMapping("/patients")
 @Tag(name = "Patient", description = "API for managing Patients")
 public class PatientController {
+  private static final int DEFAULT_PAGE_SIZE = 50;
+  private static final int MAX_PAGE_SIZE = 500;
+  private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+
   private final PatientService patientService;
+  private final PatientExportService patientExportService;
+  private final PatientBulkImportService patientBulkImportService;
+  private final ObjectMapper objectMapper;
 
-  public PatientController(PatientService patientService) {
+  public PatientController(
+      PatientService patientService,
+      PatientExportService patientExportService,
+      PatientBulkImportService patientBulkImportService,
+      ObjectMapper objectMapper
+  ) {
     this.patientService = patientService;
+    this.patientExportService = patientExportService;
+    this.patientBulkImportService = patientBulkImportService;
+    this.objectMapper = objectMapper;
   }
 
   @GetMapping
-  @Operation(summary = "Get Patients")
-  public ResponseEntity<List<PatientResponseDTO>> getPatients() {
-    List<PatientResponseDTO> patients = patientService.getPatients();
-    return ResponseEntity.ok().body(patients);
+  @Operation(summary = "Get Patients, one keyset page at a time")
+  public ResponseEntity<PatientPageResponseDTO> getPatients(
+      PatientFilterDTO filter,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int size
+  ) {
+    int pageSize = Math.clamp(size, 1, MAX_PAGE_SIZE);
+    PatientPageResponseDTO page = patientService.getPatients(filter, cursor, pageSize);
+
+    // A matching If-None-Match is answered with 304 before the page is serialized
+    return ResponseEntity.ok()
+        .eTag(PatientETags.of(page))
+        .cacheControl(CacheControl.noCache())
+        .body(page);
+  }
+
+  @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  @Operation(summary = "Stream every Patient as newline-delimited JSON")
+  public ResponseEntity<StreamingResponseBody> exportPatients(
+      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+  ) {
+    boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+
+    StreamingResponseBody body = out -> {
+      if (gzip) {
+        try (GZIPOutputStream gzipOut = new GZIPOutputStream(out, EXPORT_BUFFER_SIZE, true)) {
+          patientExportService.exportPatients(gzipOut);
+        }
+      } else {
+        patientExportService.exportPatients(new BufferedOutputStream(out, EXPORT_BUFFER_SIZE));
+      }
+    };
+
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_NDJSON);
+    if (gzip) {
+      response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+    }
+    return response.body(body);
+  }
+
+  @GetMapping("/{id}")
+  @Operation(summary = "Get a Patient by ID")
+  public ResponseEntity<PatientResponseDTO> getPatient(@PathVariable UUID id) {
+    return withValidators(patientService.getPatient(id));
   }
 
   @PostMapping
@@ -48,17 +124,50 @@ public class PatientController {
       @RequestBody PatientRequestDTO patientRequestDTO
   ) {
     PatientResponseDTO patientResponseDTO = patientService.createPatient(patientRequestDTO);
-    return ResponseEntity.ok().body(patientResponseDTO);
+    return withValidators(patientResponseDTO);
+  }
+
+  @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+  @Operation(summary = "Import a JSON array of Patients in batches")
+  public ResponseEntity<PatientBulkImportResponseDTO> importPatientsJson(
+      InputStream body
+  ) throws IOException {
+    try (MappingIterator<PatientRequestDTO> rows = objectMapper
+        .readerFor(PatientRequestDTO.class)
+        .readValues(body)) {
+      return ResponseEntity.ok().body(patientBulkImportService.importPatients(rows));
+    } catch (JsonProcessingException e) {
+      throw new InvalidBulkUploadException("Malformed JSON upload: " + e.getOriginalMessage());
+    } catch (RuntimeException e) {
+      // MappingIterator wraps errors hit mid-stream; earlier chunks are already committed
+      if (e.getCause() instanceof JsonProcessingException cause) {
+        throw new InvalidBulkUploadException("Malformed JSON upload: " + cause.getOriginalMessage());
+      }
+      throw e;
+    }
+  }
+
+  @PostMapping(value = "/bulk", consumes = "text/csv")
+  @Operation(summary = "Import a CSV file of Patients in batches")
+  public ResponseEntity<PatientBulkImportResponseDTO> importPatientsCsv(
+      InputStream body
+  ) throws IOException {
+    try (PatientCsvReader rows = new PatientCsvReader(body)) {
+      return ResponseEntity.ok().body(patientBulkImportService.importPatients(rows));
+    }
   }
 
   @PutMapping("/{id}")
   @Operation(summary = "Update a Patient")
   public ResponseEntity<PatientResponseDTO> updatePatient(
       @PathVariable UUID id,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
       @Validated({Default.class}) @RequestBody PatientRequestDTO patientRequestDTO
   ) {
-    PatientResponseDTO patientResponseDTO = patientService.updatePatient(id, patientRequestDTO);
-    return ResponseEntity.ok().body(patientResponseDTO);
+    Set<Long> expectedVersions = PatientETags.versions(ifMatch);
+    PatientResponseDTO patientResponseDTO =
+        patientService.updatePatient(id, patientRequestDTO, expectedVersions);
+    return withValidators(patientResponseDTO);
   }
 
   @DeleteMapping("/{id}")
@@ -67,4 +176,14 @@ public class PatientController {
     patientService.deletePatient(id);
     return ResponseEntity.noContent().build();
   }
+
+  private static ResponseEntity<PatientResponseDTO> withValidators(PatientResponseDTO patient) {
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+        .eTag(PatientETags.of(patient))
+        .cacheControl(CacheControl.noCache());
+    if (patient.getUpdatedAt() != null) {
+      response.lastModified(patient.getUpdatedAt());
+    }
+    return response.body(patient);
+  }
 }
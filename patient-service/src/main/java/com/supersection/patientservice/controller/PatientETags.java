@@ -0,0 +1,66 @@
+package com.supersection.patientservice.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Set;
+
+import com.supersection.patientservice.dto.PatientPageResponseDTO;
+import com.supersection.patientservice.dto.PatientResponseDTO;
+
+/**
+ * Strong ETags derived from patient versions, which change with every
+ * write to a patient, so a representation's ETag is known without
+ * serializing it.
+ */
+final class PatientETags {
+
+  private PatientETags() {
+  }
+
+  static String of(PatientResponseDTO patient) {
+    return "\"" + patient.getVersion() + "\"";
+  }
+
+  /** Changes whenever a patient on the page changes, joins or leaves it. */
+  static String of(PatientPageResponseDTO page) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+    for (PatientResponseDTO patient : page.getPatients()) {
+      digest.update((patient.getId() + ":" + patient.getVersion() + ";")
+          .getBytes(StandardCharsets.UTF_8));
+    }
+    digest.update(String.valueOf(page.getNextCursor()).getBytes(StandardCharsets.UTF_8));
+    return "\"" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+  }
+
+  /**
+   * The patient versions an If-Match header accepts, or null if it accepts
+   * any ({@code *} or no header). Weak ETags never match, per RFC 9110.
+   */
+  static Set<Long> versions(String ifMatch) {
+    if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+      return null;
+    }
+
+    Set<Long> versions = new HashSet<>();
+    for (String tag : ifMatch.split(",")) {
+      String trimmed = tag.trim();
+      if (trimmed.length() < 2 || !trimmed.startsWith("\"") || !trimmed.endsWith("\"")) {
+        continue;
+      }
+      try {
+        versions.add(Long.parseLong(trimmed.substring(1, trimmed.length() - 1)));
+      } catch (NumberFormatException e) {
+        // Not one of ours, so it cannot match
+      }
+    }
+    return versions;
+  }
+}
@@ -0,0 +1,46 @@
+package com.supersection.patientservice.dto;
+
+import java.util.List;
+
+public class PatientBulkImportResponseDTO {
+  private final long imported;
+  private final List<RejectedRow> rejected;
+
+  public PatientBulkImportResponseDTO(long imported, List<RejectedRow> rejected) {
+    this.imported = imported;
+    this.rejected = rejected;
+  }
+
+  public long getImported() {
+    return imported;
+  }
+
+  public List<RejectedRow> getRejected() {
+    return rejected;
+  }
+
+  public static class RejectedRow {
+    // 1-based position of the row in the upload (CSV header excluded)
+    private final long row;
+    private final String email;
+    private final String reason;
+
+    public RejectedRow(long row, String email, String reason) {
+      this.row = row;
+      this.email = email;
+      this.reason = reason;
+    }
+
+    public long getRow() {
+      return row;
+    }
+
+    public String getEmail() {
+      return email;
+    }
+
+    public String getReason() {
+      return reason;
+    }
+  }
+}
@@ -0,0 +1,61 @@
+package com.supersection.patientservice.dto;
+
+import java.time.LocalDate;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+public class PatientFilterDTO {
+  private String name;
+
+  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+  private LocalDate registeredFrom;
+
+  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+  private LocalDate registeredTo;
+
+  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+  private LocalDate dateOfBirthFrom;
+
+  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+  private LocalDate dateOfBirthTo;
+
+  public String getName() {
+    return name;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  public LocalDate getRegisteredFrom() {
+    return registeredFrom;
+  }
+
+  public void setRegisteredFrom(LocalDate registeredFrom) {
+    this.registeredFrom = registeredFrom;
+  }
+
+  public LocalDate getRegisteredTo() {
+    return registeredTo;
+  }
+
+  public void setRegisteredTo(LocalDate registeredTo) {
+    this.registeredTo = registeredTo;
+  }
+
+  public LocalDate getDateOfBirthFrom() {
+    return dateOfBirthFrom;
+  }
+
+  public void setDateOfBirthFrom(LocalDate dateOfBirthFrom) {
+    this.dateOfBirthFrom = dateOfBirthFrom;
+  }
+
+  public LocalDate getDateOfBirthTo() {
+    return dateOfBirthTo;
+  }
+
+  public void setDateOfBirthTo(LocalDate dateOfBirthTo) {
+    this.dateOfBirthTo = dateOfBirthTo;
+  }
+}
@@ -0,0 +1,22 @@
+package com.supersection.patientservice.dto;
+
+import java.util.List;
+
+public class PatientPageResponseDTO {
+  private final List<PatientResponseDTO> patients;
+  private final String nextCursor;
+
+  public PatientPageResponseDTO(List<PatientResponseDTO> patients, String nextCursor) {
+    this.patients = patients;
+    this.nextCursor = nextCursor;
+  }
+
+  public List<PatientResponseDTO> getPatients() {
+    return patients;
+  }
+
+  // null when there are no more pages
+  public String getNextCursor() {
+    return nextCursor;
+  }
+}
@@ -1,11 +1,22 @@
 package com.supersection.patientservice.dto;
 
+import java.time.Instant;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 public class PatientResponseDTO {
   private String id;
   private String name;
   private String email;
   private String address;
   private String dateOfBirth;
+  private String billingStatus;
+
+  // Sent as the ETag and Last-Modified headers, not in the body
+  @JsonIgnore
+  private long version;
+  @JsonIgnore
+  private Instant updatedAt;
 
   public String getId() {
     return id;
@@ -46,4 +57,28 @@ public class PatientResponseDTO {
   public void setDateOfBirth(String dateOfBirth) {
     this.dateOfBirth = dateOfBirth;
   }
+
+  public String getBillingStatus() {
+    return billingStatus;
+  }
+
+  public void setBillingStatus(String billingStatus) {
+    this.billingStatus = billingStatus;
+  }
+
+  public long getVersion() {
+    return version;
+  }
+
+  public void setVersion(long version) {
+    this.version = version;
+  }
+
+  public Instant getUpdatedAt() {
+    return updatedAt;
+  }
+
+  public void setUpdatedAt(Instant updatedAt) {
+    this.updatedAt = updatedAt;
+  }
 }
@@ -5,7 +5,9 @@ import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -50,4 +52,49 @@ public class GlobalExceptionHandler {
     errors.put("message", "Patient not founds");
     return ResponseEntity.badRequest().body(errors);
   }
+
+  @ExceptionHandler(InvalidCursorException.class)
+  public ResponseEntity<Map<String, String>> handleInvalidCursorException(
+      InvalidCursorException ex
+  ) {
+    log.warn("Invalid pagination cursor {}", ex.getMessage());
+
+    Map<String, String> errors = new HashMap<>();
+    errors.put("message", "Invalid pagination cursor");
+    return ResponseEntity.badRequest().body(errors);
+  }
+
+  @ExceptionHandler(InvalidBulkUploadException.class)
+  public ResponseEntity<Map<String, String>> handleInvalidBulkUploadException(
+      InvalidBulkUploadException ex
+  ) {
+    log.warn("Malformed bulk upload {}", ex.getMessage());
+
+    Map<String, String> errors = new HashMap<>();
+    errors.put("message", ex.getMessage());
+    return ResponseEntity.badRequest().body(errors);
+  }
+
+  @ExceptionHandler(PreconditionFailedException.class)
+  public ResponseEntity<Map<String, String>> handlePreconditionFailedException(
+      PreconditionFailedException ex
+  ) {
+    log.warn("Precondition failed {}", ex.getMessage());
+
+    Map<String, String> errors = new HashMap<>();
+    errors.put("message", "Patient has changed; fetch it again and retry");
+    return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(errors);
+  }
+
+  // Another change committed between reading and writing the patient
+  @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+  public ResponseEntity<Map<String, String>> handleOptimisticLockingFailureException(
+      ObjectOptimisticLockingFailureException ex
+  ) {
+    log.warn("Concurrent patient update {}", ex.getMessage());
+
+    Map<String, String> errors = new HashMap<>();
+    errors.put("message", "Patient was changed concurrently; retry");
+    return ResponseEntity.status(HttpStatus.CONFLICT).body(errors);
+  }
 }
@@ -0,0 +1,8 @@
+package com.supersection.patientservice.exception;
+
+public class InvalidBulkUploadException extends RuntimeException {
+
+  public InvalidBulkUploadException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,8 @@
+package com.supersection.patientservice.exception;
+
+public class PreconditionFailedException extends RuntimeException {
+
+  public PreconditionFailedException(String message) {
+    super(message);
+  }
+}
@@ -1,37 +1,109 @@
 package com.supersection.patientservice.grpc;
 
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.supersection.grpc.BillingBatchResponse;
 import com.supersection.grpc.BillingRequest;
 import com.supersection.grpc.BillingResponse;
+import com.supersection.grpc.BillingResult;
 import com.supersection.grpc.BillingServiceGrpc;
 
 import io.grpc.ManagedChannel;
 import io.grpc.ManagedChannelBuilder;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import jakarta.annotation.PreDestroy;
 
+/**
+ * Non-blocking client for billing-service. Concurrent requests are coalesced
+ * into client-streaming CreateBillingAccounts calls of up to
+ * {@code batch.max-size} requests, sent when a batch fills up or
+ * {@code batch.linger-ms} after its first request. Every call carries a
+ * deadline, at most {@code max-in-flight} calls are outstanding at once
+ * (further batches queue until a call finishes, without using up their
+ * attempts), and requests that fail with a transient status are retried
+ * with jittered exponential backoff on a scheduler thread, never on the
+ * caller's thread. At most {@code max-queued} requests wait for a call;
+ * beyond that requests, including retries, fail at once with
+ * RESOURCE_EXHAUSTED, which callers treat as transient.
+ */
 @Service
 public class BillingServiceGrpcClient {
 
-  private final BillingServiceGrpc.BillingServiceBlockingStub blockingStub;
   private static final Logger log = LoggerFactory.getLogger(BillingServiceGrpcClient.class);
 
+  private static final Set<Status.Code> RETRYABLE = EnumSet.of(
+      Status.Code.UNAVAILABLE,
+      Status.Code.DEADLINE_EXCEEDED,
+      Status.Code.RESOURCE_EXHAUSTED
+  );
+
+  private final ManagedChannel channel;
+  private final BillingServiceGrpc.BillingServiceStub asyncStub;
+  private final ScheduledExecutorService scheduler;
+  private final Semaphore inFlight;
+  // Held from enqueue until the request's batch starts its call
+  private final Semaphore queueSlots;
+  private final Queue<List<PendingRequest>> waitingForCall = new ConcurrentLinkedQueue<>();
+  private final long deadlineMs;
+  private final int maxAttempts;
+  private final long initialBackoffMs;
+  private final int maxBatchSize;
+  private final long lingerMs;
+
+  private final Object batchLock = new Object();
+  private List<PendingRequest> batch = new ArrayList<>();
+  private ScheduledFuture<?> lingerTimer;
+
   public BillingServiceGrpcClient(
     @Value("${billing.service.address:localhost}") String serverAddress,
-    @Value("${billing.service.Grpc.port:9001}") int serverPort
+    @Value("${billing.service.Grpc.port:9001}") int serverPort,
+    @Value("${billing.service.deadline-ms:2000}") long deadlineMs,
+    @Value("${billing.service.max-in-flight:256}") int maxInFlight,
+    @Value("${billing.service.max-attempts:4}") int maxAttempts,
+    @Value("${billing.service.initial-backoff-ms:100}") long initialBackoffMs,
+    @Value("${billing.service.batch.max-size:200}") int maxBatchSize,
+    @Value("${billing.service.batch.linger-ms:5}") long lingerMs,
+    @Value("${billing.service.max-queued:10000}") int maxQueued
   ) {
     log.info("Connecting to Billing Service GRPC service at {}:{}", serverAddress, serverPort);
 
-    ManagedChannel channel = ManagedChannelBuilder
+    channel = ManagedChannelBuilder
         .forAddress(serverAddress, serverPort)
         .usePlaintext().build();
 
-    blockingStub = BillingServiceGrpc.newBlockingStub(channel);
+    asyncStub = BillingServiceGrpc.newStub(channel);
+    scheduler = Executors.newSingleThreadScheduledExecutor(
+        Thread.ofPlatform().name("billing-client").daemon().factory());
+    inFlight = new Semaphore(maxInFlight);
+    queueSlots = new Semaphore(maxQueued);
+    this.deadlineMs = deadlineMs;
+    this.maxAttempts = maxAttempts;
+    this.initialBackoffMs = initialBackoffMs;
+    this.maxBatchSize = maxBatchSize;
+    this.lingerMs = lingerMs;
   }
 
-  public BillingResponse createBillingAccount(
+  public CompletableFuture<BillingResponse> createBillingAccountAsync(
       String patientId,
       String name,
       String email
@@ -42,8 +114,181 @@ public class BillingServiceGrpcClient {
             .setEmail(email)
             .build();
 
-    BillingResponse response = blockingStub.createBillingAccount(request);
-    log.info("Received response from billing service via GRPC: {}", response);
-    return response;
+    CompletableFuture<BillingResponse> result = new CompletableFuture<>();
+    enqueue(new PendingRequest(request, 1, result));
+    return result;
+  }
+
+  /**
+   * Whether a failed request may succeed if tried again later, as opposed to
+   * being rejected by billing-service.
+   */
+  public static boolean isTransient(Throwable failure) {
+    return RETRYABLE.contains(Status.fromThrowable(failure).getCode());
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    scheduler.shutdownNow();
+    channel.shutdown();
+  }
+
+  private void enqueue(PendingRequest pending) {
+    if (!queueSlots.tryAcquire()) {
+      log.warn("Billing request queue full, failing request for patient {}",
+          pending.request().getPatientId());
+      pending.result().completeExceptionally(Status.RESOURCE_EXHAUSTED
+          .withDescription("Too many billing requests waiting")
+          .asRuntimeException());
+      return;
+    }
+    List<PendingRequest> full = null;
+
+    synchronized (batchLock) {
+      batch.add(pending);
+      if (batch.size() >= maxBatchSize) {
+        full = takeBatch();
+      } else if (batch.size() == 1) {
+        lingerTimer = scheduler.schedule(this::flushLingering, lingerMs, TimeUnit.MILLISECONDS);
+      }
+    }
+
+    if (full != null) {
+      send(full);
+    }
+  }
+
+  private void flushLingering() {
+    List<PendingRequest> lingering;
+    synchronized (batchLock) {
+      if (batch.isEmpty()) {
+        return;
+      }
+      lingering = takeBatch();
+    }
+    send(lingering);
+  }
+
+  // Caller must hold batchLock
+  private List<PendingRequest> takeBatch() {
+    List<PendingRequest> taken = batch;
+    batch = new ArrayList<>(maxBatchSize);
+    if (lingerTimer != null) {
+      lingerTimer.cancel(false);
+      lingerTimer = null;
+    }
+    return taken;
+  }
+
+  private void send(List<PendingRequest> requests) {
+    waitingForCall.add(requests);
+    sendWaiting();
+  }
+
+  // Called after queueing a batch and after every call finishes, so a batch
+  // never waits for a permit that was released before it was queued
+  private void sendWaiting() {
+    while (!waitingForCall.isEmpty() && inFlight.tryAcquire()) {
+      List<PendingRequest> requests = waitingForCall.poll();
+      if (requests == null) {
+        inFlight.release();
+      } else {
+        queueSlots.release(requests.size());
+        call(requests);
+      }
+    }
+  }
+
+  private void call(List<PendingRequest> requests) {
+    StreamObserver<BillingBatchResponse> responseObserver = new StreamObserver<>() {
+      private BillingBatchResponse response;
+
+      @Override
+      public void onNext(BillingBatchResponse value) {
+        response = value;
+      }
+
+      @Override
+      public void onError(Throwable t) {
+        inFlight.release();
+        sendWaiting();
+        requests.forEach(pending -> retryOrFail(pending, t));
+      }
+
+      @Override
+      public void onCompleted() {
+        inFlight.release();
+        sendWaiting();
+        complete(requests, response);
+      }
+    };
+
+    // Wait-for-ready queues the call through channel reconnect backoff instead of
+    // failing fast, so the deadline alone bounds how long an attempt can take
+    StreamObserver<BillingRequest> requestObserver = asyncStub
+        .withWaitForReady()
+        .withDeadlineAfter(deadlineMs, TimeUnit.MILLISECONDS)
+        .createBillingAccounts(responseObserver);
+
+    requests.forEach(pending -> requestObserver.onNext(pending.request()));
+    requestObserver.onCompleted();
+  }
+
+  private void complete(List<PendingRequest> requests, BillingBatchResponse response) {
+    Map<String, BillingResult> results = new HashMap<>();
+    if (response != null) {
+      response.getResultsList().forEach(result -> results.put(result.getPatientId(), result));
+    }
+    log.debug("Received {} billing results via GRPC", results.size());
+
+    for (PendingRequest pending : requests) {
+      BillingResult result = results.get(pending.request().getPatientId());
+
+      if (result == null) {
+        // Dropped rather than rejected by the server, so worth another attempt
+        retryOrFail(pending, Status.UNAVAILABLE
+            .withDescription("No result returned for patient")
+            .asRuntimeException());
+      } else if (!result.getError().isEmpty()) {
+        retryOrFail(pending, resultStatus(result)
+            .withDescription(result.getError())
+            .asRuntimeException());
+      } else {
+        pending.result().complete(BillingResponse.newBuilder()
+            .setAccountId(result.getAccountId())
+            .setStatus(result.getStatus())
+            .build());
+      }
+    }
+  }
+
+  // Servers that predate errorCode leave it at 0 (OK) for failed results
+  private static Status resultStatus(BillingResult result) {
+    return result.getErrorCode() == Status.Code.OK.value()
+        ? Status.INTERNAL
+        : Status.fromCodeValue(result.getErrorCode());
+  }
+
+  private void retryOrFail(PendingRequest pending, Throwable t) {
+    Status status = Status.fromThrowable(t);
+    if (pending.attempt() >= maxAttempts || !RETRYABLE.contains(status.getCode())) {
+      log.warn("Billing account creation failed for patient {} after {} attempt(s): {}",
+          pending.request().getPatientId(), pending.attempt(), status);
+      pending.result().completeExceptionally(t);
+      return;
+    }
+
+    // Equal jitter: half of an exponentially growing window, plus a random
+    // share of the other half
+    long window = initialBackoffMs << (pending.attempt() - 1);
+    long backoff = ThreadLocalRandom.current().nextLong(window / 2, window + 1);
+    PendingRequest retry = new PendingRequest(
+        pending.request(), pending.attempt() + 1, pending.result());
+    scheduler.schedule(() -> enqueue(retry), backoff, TimeUnit.MILLISECONDS);
+  }
+
+  private record PendingRequest(
+      BillingRequest request, int attempt, CompletableFuture<BillingResponse> result
+  ) {
   }
 }
@@ -1,36 +1,72 @@
 package com.supersection.patientservice.kafka;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
-import com.supersection.patientservice.model.Patient;
+import com.supersection.patientservice.model.OutboxEvent;
 
-import patient.events.PatientEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
+/**
+ * Publishes outbox events keyed by patient ID, so every event of a patient
+ * lands on the same partition in order, and timestamped with when the
+ * change was made rather than when it was relayed. Each acknowledgement or
+ * failure is timed into {@code patient.events.send}; batching and
+ * compression are tuned under {@code spring.kafka.producer}.
+ */
 @Service
 public class KafkaProducer {
 
-  private final KafkaTemplate<String, byte[]> kafkaTemplate;
   private static final Logger log = LoggerFactory.getLogger(KafkaProducer.class);
 
-  public KafkaProducer(KafkaTemplate<String, byte[]> kafkaTemplate) {
+  private final KafkaTemplate<String, byte[]> kafkaTemplate;
+  private final MeterRegistry meterRegistry;
+
+  public KafkaProducer(KafkaTemplate<String, byte[]> kafkaTemplate, MeterRegistry meterRegistry) {
     this.kafkaTemplate = kafkaTemplate;
+    this.meterRegistry = meterRegistry;
   }
 
-  public void sendEvent(Patient patient) {
-    PatientEvent event = PatientEvent.newBuilder()
-        .setPatientId(patient.getId().toString())
-        .setName(patient.getName())
-        .setEmail(patient.getEmail())
-        .setEventType("PATIENT_CREATED")
-        .build();
+  public CompletableFuture<SendResult<String, byte[]>> send(OutboxEvent event) {
+    ProducerRecord<String, byte[]> record = new ProducerRecord<>(
+        event.getTopic(),
+        null,
+        event.getCreatedAt().toEpochMilli(),
+        event.getAggregateId(),
+        event.getPayload());
 
+    long start = System.nanoTime();
+    CompletableFuture<SendResult<String, byte[]>> result;
     try {
-      kafkaTemplate.send("patient", event.toByteArray());
+      result = kafkaTemplate.send(record);
     } catch (Exception e) {
-      log.error("Error sending PatientCreated event: {}", event);
+      // e.g. metadata unavailable within max.block.ms
+      log.error("Error sending outbox event {}: {}", event.getId(), e.getMessage());
+      result = CompletableFuture.failedFuture(e);
+    }
+
+    return result.whenComplete((sent, failure) -> Timer.builder("patient.events.send")
+        .description("Time from handing an event to the producer until the broker acknowledged it")
+        .tag("topic", event.getTopic())
+        .tag("outcome", failure == null ? "success" : "failure")
+        .tag("exception", failure == null ? "none" : rootCause(failure).getClass().getSimpleName())
+        .register(meterRegistry)
+        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+  }
+
+  private static Throwable rootCause(Throwable failure) {
+    Throwable cause = failure;
+    while (cause.getCause() != null && cause.getCause() != cause) {
+      cause = cause.getCause();
     }
+    return cause;
   }
 }
@@ -0,0 +1,129 @@
+package com.supersection.patientservice.kafka;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.supersection.patientservice.model.OutboxEvent;
+import com.supersection.patientservice.repository.OutboxEventRepository;
+
+/**
+ * Drains the outbox to Kafka in creation order (see OutboxEvent). A batch
+ * is leased in a short transaction, sent without waiting between records
+ * and without holding row locks, then acknowledged as a whole; only the
+ * leading run of acknowledged events is deleted, and the rest are sent
+ * again on the next poll (at-least-once). Events behind a failed one have
+ * already been sent by then, so a failure can put a patient's earlier
+ * change on Kafka after a later one, besides duplicating it. Events carry
+ * the patient's version, so consumers can tell.
+ * While the head of the outbox is leased, relays on other replicas publish
+ * nothing, so one relay at a time publishes; a relay that dies mid-batch
+ * is taken over once its lease expires.
+ */
+@Component
+public class OutboxRelay {
+
+  private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+  private final OutboxEventRepository outboxEventRepository;
+  private final KafkaProducer kafkaProducer;
+  private final TransactionTemplate transactionTemplate;
+  private final int batchSize;
+  private final long sendTimeoutMs;
+  private final Duration lease;
+
+  public OutboxRelay(
+      OutboxEventRepository outboxEventRepository,
+      KafkaProducer kafkaProducer,
+      TransactionTemplate transactionTemplate,
+      @Value("${patient.outbox.batch-size:2000}") int batchSize,
+      @Value("${patient.outbox.send-timeout-ms:10000}") long sendTimeoutMs,
+      @Value("${patient.outbox.lease-ms:30000}") long leaseMs
+  ) {
+    this.outboxEventRepository = outboxEventRepository;
+    this.kafkaProducer = kafkaProducer;
+    this.transactionTemplate = transactionTemplate;
+    this.batchSize = batchSize;
+    this.sendTimeoutMs = sendTimeoutMs;
+    this.lease = Duration.ofMillis(leaseMs);
+  }
+
+  @Scheduled(fixedDelayString = "${patient.outbox.poll-interval-ms:200}")
+  public void relay() {
+    // Keep draining while batches come back full so a backlog clears without waiting for the next poll
+    int published;
+    do {
+      published = publishBatch();
+    } while (published == batchSize);
+  }
+
+  private int publishBatch() {
+    List<OutboxEvent> batch = transactionTemplate.execute(status -> leaseBatch());
+    if (batch.isEmpty()) {
+      return 0;
+    }
+
+    List<CompletableFuture<SendResult<String, byte[]>>> sends = batch.stream()
+        .map(kafkaProducer::send)
+        .toList();
+
+    int acknowledged = 0;
+    for (CompletableFuture<SendResult<String, byte[]>> send : sends) {
+      try {
+        send.get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        acknowledged++;
+      } catch (ExecutionException | TimeoutException e) {
+        log.warn("Outbox event {} not acknowledged, will retry: {}",
+            batch.get(acknowledged).getId(), e.getMessage());
+        break;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+
+    int published = acknowledged;
+    transactionTemplate.executeWithoutResult(status -> {
+      outboxEventRepository.deleteAllInBatch(batch.subList(0, published));
+      // Hand the rest back right away rather than waiting out the lease
+      if (published < batch.size()) {
+        outboxEventRepository.updateLease(
+            ids(batch.subList(published, batch.size())), null);
+      }
+    });
+    log.debug("Relayed {} of {} outbox events", acknowledged, batch.size());
+    return acknowledged;
+  }
+
+  private List<OutboxEvent> leaseBatch() {
+    List<OutboxEvent> batch =
+        outboxEventRepository.findByOrderByCreatedAtAscIdAsc(Limit.of(batchSize));
+
+    Instant now = Instant.now();
+    boolean leasedElsewhere = batch.stream().anyMatch(event ->
+        event.getLeaseExpiresAt() != null && event.getLeaseExpiresAt().isAfter(now));
+    if (batch.isEmpty() || leasedElsewhere) {
+      return List.of();
+    }
+
+    outboxEventRepository.updateLease(ids(batch), now.plus(lease));
+    return batch;
+  }
+
+  private static List<Long> ids(List<OutboxEvent> events) {
+    return events.stream().map(OutboxEvent::getId).toList();
+  }
+}
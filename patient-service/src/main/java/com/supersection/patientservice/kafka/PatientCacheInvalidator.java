@@ -0,0 +1,161 @@
+package com.supersection.patientservice.kafka;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.stereotype.Component;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.supersection.patientservice.service.PatientCache;
+
+import patient.events.PatientEvent;
+
+/**
+ * Drops cached patients when any instance publishes a change for them.
+ * Every instance must see every event, so each assigns itself all of the
+ * topic's partitions instead of joining a consumer group, and commits
+ * nothing; replacing a container leaves no group behind on the broker. It
+ * starts from the latest offset, and entries cached before an instance caught
+ * up are bounded by the cache's expiry. Partitions added to the topic are
+ * only picked up on restart.
+ */
+@Component
+public class PatientCacheInvalidator implements SmartLifecycle {
+
+  private static final Logger log = LoggerFactory.getLogger(PatientCacheInvalidator.class);
+
+  private static final Duration POLL_TIMEOUT = Duration.ofSeconds(1);
+  private static final Duration RETRY_DELAY = Duration.ofSeconds(5);
+
+  private final PatientCache patientCache;
+  private final ConsumerFactory<?, ?> consumerFactory;
+  private final boolean enabled;
+
+  private volatile boolean running;
+  private volatile boolean positioned;
+  private volatile Consumer<String, byte[]> consumer;
+  private Thread thread;
+
+  public PatientCacheInvalidator(
+      PatientCache patientCache,
+      ConsumerFactory<?, ?> consumerFactory,
+      @Value("${patient.cache.invalidation.enabled:true}") boolean enabled
+  ) {
+    this.patientCache = patientCache;
+    this.consumerFactory = consumerFactory;
+    this.enabled = enabled;
+  }
+
+  @Override
+  public boolean isAutoStartup() {
+    return enabled;
+  }
+
+  @Override
+  public synchronized void start() {
+    running = true;
+    thread = Thread.ofPlatform().name("patient-cache-invalidator").daemon().start(this::run);
+  }
+
+  @Override
+  public synchronized void stop() {
+    running = false;
+    Consumer<String, byte[]> current = consumer;
+    if (current != null) {
+      current.wakeup();
+    }
+    try {
+      thread.join(POLL_TIMEOUT.multipliedBy(5));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  /**
+   * Whether every partition is assigned and positioned at its latest
+   * offset, so events published from now on will be seen.
+   */
+  public boolean isPositioned() {
+    return positioned;
+  }
+
+  @SuppressWarnings("unchecked")
+  private void run() {
+    Properties overrides = new Properties();
+    overrides.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+    overrides.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+    overrides.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+    overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+
+    try (Consumer<String, byte[]> created = (Consumer<String, byte[]>)
+        consumerFactory.createConsumer(null, null, null, overrides)) {
+      consumer = created;
+      while (running) {
+        try {
+          if (positioned) {
+            created.poll(POLL_TIMEOUT).forEach(this::invalidate);
+          } else if (!assignAll(created)) {
+            Thread.sleep(RETRY_DELAY);
+          }
+        } catch (WakeupException e) {
+          // stop() was called
+        } catch (KafkaException e) {
+          log.warn("Patient cache invalidation failed, retrying: {}", e.getMessage());
+          Thread.sleep(RETRY_DELAY);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      consumer = null;
+      positioned = false;
+    }
+  }
+
+  private boolean assignAll(Consumer<String, byte[]> created) {
+    List<TopicPartition> partitions = created.partitionsFor(PatientEventOutbox.TOPIC, POLL_TIMEOUT)
+        .stream()
+        .map(partition -> new TopicPartition(partition.topic(), partition.partition()))
+        .toList();
+    if (partitions.isEmpty()) {
+      return false;
+    }
+    created.assign(partitions);
+    created.seekToEnd(partitions);
+    // Resolve the end offsets now rather than on the first poll
+    partitions.forEach(partition -> created.position(partition, POLL_TIMEOUT));
+    positioned = true;
+    return true;
+  }
+
+  private void invalidate(ConsumerRecord<String, byte[]> record) {
+    try {
+      String patientId = record.key() != null
+          ? record.key() : PatientEvent.parseFrom(record.value()).getPatientId();
+      patientCache.invalidate(UUID.fromString(patientId));
+    } catch (InvalidProtocolBufferException | IllegalArgumentException e) {
+      log.warn("Ignoring undecodable patient event at {}-{}@{}: {}",
+          record.topic(), record.partition(), record.offset(), e.getMessage());
+    }
+  }
+}
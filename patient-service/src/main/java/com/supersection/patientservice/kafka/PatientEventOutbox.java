@@ -0,0 +1,79 @@
+package com.supersection.patientservice.kafka;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.supersection.patientservice.model.OutboxEvent;
+import com.supersection.patientservice.model.Patient;
+import com.supersection.patientservice.repository.OutboxEventRepository;
+
+import patient.events.PatientEvent;
+
+/**
+ * Records PatientEvents in the outbox table. Must be called inside the
+ * transaction that writes the patient, so the event exists if and only if
+ * the change was committed; {@link OutboxRelay} publishes it afterwards.
+ */
+@Service
+public class PatientEventOutbox {
+
+  static final String TOPIC = "patient";
+
+  static final String PATIENT_CREATED = "PATIENT_CREATED";
+  static final String PATIENT_UPDATED = "PATIENT_UPDATED";
+  static final String PATIENT_DELETED = "PATIENT_DELETED";
+
+  private final OutboxEventRepository outboxEventRepository;
+
+  public PatientEventOutbox(OutboxEventRepository outboxEventRepository) {
+    this.outboxEventRepository = outboxEventRepository;
+  }
+
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void patientCreated(Patient patient) {
+    outboxEventRepository.save(toOutboxEvent(patient, PATIENT_CREATED, patient.getVersion()));
+  }
+
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void patientsCreated(List<Patient> patients) {
+    outboxEventRepository.saveAll(patients.stream()
+        .map(patient -> toOutboxEvent(patient, PATIENT_CREATED, patient.getVersion()))
+        .toList());
+  }
+
+  /** The patient's version must already include this update (flushed). */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void patientUpdated(Patient patient) {
+    outboxEventRepository.save(toOutboxEvent(patient, PATIENT_UPDATED, patient.getVersion()));
+  }
+
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void patientDeleted(Patient patient) {
+    // Deletion does not bump the row's version, but consumers order by it
+    outboxEventRepository.save(
+        toOutboxEvent(patient, PATIENT_DELETED, patient.getVersion() + 1));
+  }
+
+  private OutboxEvent toOutboxEvent(Patient patient, String eventType, long version) {
+    Instant now = Instant.now();
+    PatientEvent event = PatientEvent.newBuilder()
+        .setPatientId(patient.getId().toString())
+        .setName(patient.getName())
+        .setEmail(patient.getEmail())
+        .setEventType(eventType)
+        .setOccurredAt(now.toEpochMilli())
+        .setVersion(version)
+        .build();
+
+    OutboxEvent outboxEvent = new OutboxEvent();
+    outboxEvent.setTopic(TOPIC);
+    outboxEvent.setAggregateId(event.getPatientId());
+    outboxEvent.setPayload(event.toByteArray());
+    outboxEvent.setCreatedAt(now);
+    return outboxEvent;
+  }
+}
@@ -0,0 +1,124 @@
+package com.supersection.patientservice.mapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import com.supersection.patientservice.dto.PatientRequestDTO;
+import com.supersection.patientservice.exception.InvalidBulkUploadException;
+
+/**
+ * Reads patients from CSV one line at a time. The first line must be a header
+ * naming the columns (name, email, address, dateOfBirth, registeredDate) in
+ * any order. Fields may be double-quoted; quoted fields cannot span lines.
+ */
+public class PatientCsvReader implements Iterator<PatientRequestDTO>, AutoCloseable {
+
+  private final BufferedReader reader;
+  private final Map<String, Integer> columns = new HashMap<>();
+  private String nextLine;
+
+  public PatientCsvReader(InputStream in) throws IOException {
+    this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+
+    String header = reader.readLine();
+    if (header == null) {
+      throw new InvalidBulkUploadException("CSV upload is empty");
+    }
+
+    List<String> names = parseLine(header.replace("\uFEFF", ""));
+    for (int i = 0; i < names.size(); i++) {
+      columns.put(names.get(i).trim(), i);
+    }
+
+    for (String required : List.of("name", "email", "address", "dateOfBirth", "registeredDate")) {
+      if (!columns.containsKey(required)) {
+        throw new InvalidBulkUploadException("CSV header is missing column: " + required);
+      }
+    }
+
+    advance();
+  }
+
+  @Override
+  public boolean hasNext() {
+    return nextLine != null;
+  }
+
+  @Override
+  public PatientRequestDTO next() {
+    if (nextLine == null) {
+      throw new NoSuchElementException();
+    }
+
+    List<String> fields = parseLine(nextLine);
+    advance();
+
+    PatientRequestDTO dto = new PatientRequestDTO();
+    dto.setName(field(fields, "name"));
+    dto.setEmail(field(fields, "email"));
+    dto.setAddress(field(fields, "address"));
+    dto.setDateOfBirth(field(fields, "dateOfBirth"));
+    dto.setRegisteredDate(field(fields, "registeredDate"));
+    return dto;
+  }
+
+  @Override
+  public void close() throws IOException {
+    reader.close();
+  }
+
+  private void advance() {
+    try {
+      do {
+        nextLine = reader.readLine();
+      } while (nextLine != null && nextLine.isBlank());
+    } catch (IOException e) {
+      throw new InvalidBulkUploadException("Failed to read CSV upload: " + e.getMessage());
+    }
+  }
+
+  private String field(List<String> fields, String column) {
+    int index = columns.get(column);
+    return index < fields.size() ? fields.get(index) : null;
+  }
+
+  private static List<String> parseLine(String line) {
+    List<String> fields = new ArrayList<>();
+    StringBuilder current = new StringBuilder();
+    boolean quoted = false;
+
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+
+      if (quoted) {
+        if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+          current.append('"');
+          i++;
+        } else if (c == '"') {
+          quoted = false;
+        } else {
+          current.append(c);
+        }
+      } else if (c == '"') {
+        quoted = true;
+      } else if (c == ',') {
+        fields.add(current.toString());
+        current.setLength(0);
+      } else {
+        current.append(c);
+      }
+    }
+
+    fields.add(current.toString());
+    return fields;
+  }
+}
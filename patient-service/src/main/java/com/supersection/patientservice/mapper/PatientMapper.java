@@ -4,6 +4,7 @@ import java.time.LocalDate;
 
 import com.supersection.patientservice.dto.PatientRequestDTO;
 import com.supersection.patientservice.dto.PatientResponseDTO;
+import com.supersection.patientservice.model.BillingStatus;
 import com.supersection.patientservice.model.Patient;
 
 public class PatientMapper {
@@ -15,6 +16,11 @@ public class PatientMapper {
     patientDTO.setEmail(patient.getEmail());
     patientDTO.setAddress(patient.getAddress());
     patientDTO.setDateOfBirth(patient.getDateOfBirth().toString());
+    if (patient.getBillingStatus() != null) {
+      patientDTO.setBillingStatus(patient.getBillingStatus().name());
+    }
+    patientDTO.setVersion(patient.getVersion());
+    patientDTO.setUpdatedAt(patient.getUpdatedAt());
 
     return patientDTO;
   }
@@ -26,6 +32,7 @@ public class PatientMapper {
     patient.setAddress(patientRequestDTO.getAddress());
     patient.setDateOfBirth(LocalDate.parse(patientRequestDTO.getDateOfBirth()));
     patient.setRegisteredDate(LocalDate.parse(patientRequestDTO.getRegisteredDate()));
+    patient.setBillingStatus(BillingStatus.PENDING);
 
     return patient;
   }
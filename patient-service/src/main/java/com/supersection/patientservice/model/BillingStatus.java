@@ -0,0 +1,9 @@
+package com.supersection.patientservice.model;
+
+public enum BillingStatus {
+  // Billing account requested, waiting on billing-service; retried until it answers
+  PENDING,
+  ACTIVE,
+  // Rejected by billing-service; the patient has no billing account
+  FAILED
+}
@@ -0,0 +1,96 @@
+package com.supersection.patientservice.model;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+
+/**
+ * A Kafka message written in the same transaction as the change it
+ * describes, and deleted by the relay once the broker has acknowledged it.
+ * Events are published in order of creation time, then id. Ids come from
+ * per-replica blocks of the sequence, so inserts batch without a sequence
+ * call per row, and only order events created by one replica. A patient's
+ * changes are serialized by its version check, so each is created after
+ * the previous one committed, and only one relay publishes at a time (see
+ * OutboxRelay); as long as replica clocks agree to within the time between
+ * two changes of a patient, its events are published in the order they
+ * were made.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_outbox_event_created_at_id", columnList = "createdAt, id"))
+public class OutboxEvent {
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_event_seq")
+  @SequenceGenerator(name = "outbox_event_seq", allocationSize = 50)
+  private Long id;
+
+  @Column(nullable = false)
+  private String topic;
+
+  @Column(nullable = false)
+  private String aggregateId;
+
+  @Column(nullable = false)
+  private byte[] payload;
+
+  @Column(nullable = false)
+  private Instant createdAt;
+
+  // Set while a relay is publishing the event, see OutboxRelay
+  private Instant leaseExpiresAt;
+
+  public Long getId() {
+    return id;
+  }
+
+  public void setId(Long id) {
+    this.id = id;
+  }
+
+  public String getTopic() {
+    return topic;
+  }
+
+  public void setTopic(String topic) {
+    this.topic = topic;
+  }
+
+  public String getAggregateId() {
+    return aggregateId;
+  }
+
+  public void setAggregateId(String aggregateId) {
+    this.aggregateId = aggregateId;
+  }
+
+  public byte[] getPayload() {
+    return payload;
+  }
+
+  public void setPayload(byte[] payload) {
+    this.payload = payload;
+  }
+
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+
+  public void setCreatedAt(Instant createdAt) {
+    this.createdAt = createdAt;
+  }
+
+  public Instant getLeaseExpiresAt() {
+    return leaseExpiresAt;
+  }
+
+  public void setLeaseExpiresAt(Instant leaseExpiresAt) {
+    this.leaseExpiresAt = leaseExpiresAt;
+  }
+}
@@ -1,18 +1,34 @@
 package com.supersection.patientservice.model;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.UUID;
 
+import org.hibernate.annotations.ColumnDefault;
+
 import io.micrometer.common.lang.NonNull;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotNull;
 
 @Entity
+@Table(indexes = {
+    @Index(name = "idx_patient_registered_date_id", columnList = "registeredDate, id"),
+    @Index(name = "idx_patient_name", columnList = "name"),
+    @Index(name = "idx_patient_date_of_birth", columnList = "dateOfBirth"),
+    @Index(name = "idx_patient_billing_status_updated_at", columnList = "billingStatus, updatedAt")
+})
 public class Patient {
   @Id
   @GeneratedValue(strategy = GenerationType.AUTO)
@@ -35,6 +51,20 @@ public class Patient {
   @NonNull
   private LocalDate registeredDate;
 
+  private String billingAccountId;
+
+  @Enumerated(EnumType.STRING)
+  private BillingStatus billingStatus;
+
+  // Incremented on every update; published with each patient event
+  @Version
+  @ColumnDefault("0")
+  @Column(nullable = false)
+  private long version;
+
+  // Null for rows written before the column existed
+  private Instant updatedAt;
+
   public UUID getId() {
     return id;
   }
@@ -82,4 +112,42 @@ public class Patient {
   public void setRegisteredDate(LocalDate registeredDate) {
     this.registeredDate = registeredDate;
   }
+
+  public String getBillingAccountId() {
+    return billingAccountId;
+  }
+
+  public void setBillingAccountId(String billingAccountId) {
+    this.billingAccountId = billingAccountId;
+  }
+
+  public BillingStatus getBillingStatus() {
+    return billingStatus;
+  }
+
+  public void setBillingStatus(BillingStatus billingStatus) {
+    this.billingStatus = billingStatus;
+  }
+
+  @PrePersist
+  @PreUpdate
+  void touch() {
+    updatedAt = Instant.now();
+  }
+
+  public long getVersion() {
+    return version;
+  }
+
+  public void setVersion(long version) {
+    this.version = version;
+  }
+
+  public Instant getUpdatedAt() {
+    return updatedAt;
+  }
+
+  public void setUpdatedAt(Instant updatedAt) {
+    this.updatedAt = updatedAt;
+  }
 }
@@ -0,0 +1,26 @@
+package com.supersection.patientservice.repository;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import com.supersection.patientservice.model.OutboxEvent;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+  // Row locks keep relays on other replicas from leasing the same batch concurrently
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  List<OutboxEvent> findByOrderByCreatedAtAscIdAsc(Limit limit);
+
+  @Modifying
+  @Query("UPDATE OutboxEvent e SET e.leaseExpiresAt = :leaseExpiresAt WHERE e.id IN :ids")
+  int updateLease(List<Long> ids, Instant leaseExpiresAt);
+}
@@ -0,0 +1,59 @@
+package com.supersection.patientservice.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+import com.supersection.patientservice.exception.InvalidCursorException;
+import com.supersection.patientservice.model.Patient;
+
+/**
+ * Keyset position in the patient listing, ordered by (registeredDate, id).
+ * Clients only ever see the encoded form, so the sort key can change
+ * without breaking the API contract.
+ */
+public class PatientCursor {
+
+  private final LocalDate registeredDate;
+  private final UUID id;
+
+  public PatientCursor(LocalDate registeredDate, UUID id) {
+    this.registeredDate = registeredDate;
+    this.id = id;
+  }
+
+  public static PatientCursor after(Patient patient) {
+    return new PatientCursor(patient.getRegisteredDate(), patient.getId());
+  }
+
+  public static PatientCursor decode(String cursor) {
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      int separator = raw.indexOf('|');
+      if (separator < 0) {
+        throw new InvalidCursorException("Malformed cursor: " + cursor);
+      }
+      return new PatientCursor(
+          LocalDate.parse(raw.substring(0, separator)),
+          UUID.fromString(raw.substring(separator + 1)));
+    } catch (IllegalArgumentException | DateTimeParseException e) {
+      throw new InvalidCursorException("Malformed cursor: " + cursor);
+    }
+  }
+
+  public String encode() {
+    String raw = registeredDate + "|" + id;
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public LocalDate getRegisteredDate() {
+    return registeredDate;
+  }
+
+  public UUID getId() {
+    return id;
+  }
+}
@@ -1,17 +1,66 @@
 package com.supersection.patientservice.repository;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.supersection.patientservice.model.BillingStatus;
 import com.supersection.patientservice.model.Patient;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
-public interface PatientRepostory extends JpaRepository<Patient, UUID> {
+public interface PatientRepostory
+    extends JpaRepository<Patient, UUID>, JpaSpecificationExecutor<Patient> {
   boolean existsByEmail(String email);
 
   // Check if there is another patient in the database
   // with the same Email as we are passing, but with a different ID
   boolean existsByEmailAndIdNot(String email, UUID id);
+
+  // Bumps the version like any other change, so ETags of the patient change too
+  @Transactional
+  @Modifying
+  @Query("""
+      UPDATE Patient p
+      SET p.billingAccountId = :billingAccountId, p.billingStatus = :billingStatus,
+          p.version = p.version + 1, p.updatedAt = :updatedAt
+      WHERE p.id = :id
+      """)
+  int updateBillingAccount(
+      UUID id, String billingAccountId, BillingStatus billingStatus, Instant updatedAt);
+
+  // Rows written before updatedAt existed count as not updated since
+  @Query("""
+      SELECT p FROM Patient p
+      WHERE p.billingStatus = :billingStatus
+        AND (p.updatedAt IS NULL OR p.updatedAt < :updatedBefore)
+      ORDER BY p.updatedAt
+      """)
+  List<Patient> findByBillingStatusNotUpdatedSince(
+      BillingStatus billingStatus, Instant updatedBefore, Limit limit);
+
+  @Query("SELECT p.email FROM Patient p WHERE p.email IN :emails")
+  Set<String> findExistingEmails(Collection<String> emails);
+
+  // Forward-only cursor over the whole table; must be consumed inside a transaction
+  @QueryHints({
+      @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+      @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  @Query("SELECT p FROM Patient p ORDER BY p.registeredDate, p.id")
+  Stream<Patient> streamAll();
 }
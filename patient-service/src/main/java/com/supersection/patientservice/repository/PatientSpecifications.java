@@ -0,0 +1,70 @@
+package com.supersection.patientservice.repository;
+
+import java.time.LocalDate;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.supersection.patientservice.dto.PatientFilterDTO;
+import com.supersection.patientservice.model.Patient;
+
+public class PatientSpecifications {
+
+  // Stable sort key for keyset pagination, backed by idx_patient_registered_date_id
+  public static final Sort KEYSET_SORT = Sort.by("registeredDate", "id");
+
+  public static Specification<Patient> matching(PatientFilterDTO filter) {
+    return Specification.where(nameStartsWith(filter.getName()))
+        .and(registeredBetween(filter.getRegisteredFrom(), filter.getRegisteredTo()))
+        .and(bornBetween(filter.getDateOfBirthFrom(), filter.getDateOfBirthTo()));
+  }
+
+  public static Specification<Patient> after(PatientCursor cursor) {
+    if (cursor == null) {
+      return null;
+    }
+
+    return (root, query, cb) -> cb.or(
+        cb.greaterThan(root.get("registeredDate"), cursor.getRegisteredDate()),
+        cb.and(
+            cb.equal(root.get("registeredDate"), cursor.getRegisteredDate()),
+            cb.greaterThan(root.get("id"), cursor.getId())));
+  }
+
+  // Case-sensitive so the database can answer it with a range scan on idx_patient_name
+  private static Specification<Patient> nameStartsWith(String prefix) {
+    if (prefix == null || prefix.isBlank()) {
+      return null;
+    }
+
+    String pattern = prefix
+        .replace("\\", "\\\\")
+        .replace("%", "\\%")
+        .replace("_", "\\_") + "%";
+    return (root, query, cb) -> cb.like(root.get("name"), pattern, '\\');
+  }
+
+  private static Specification<Patient> registeredBetween(LocalDate from, LocalDate to) {
+    return between("registeredDate", from, to);
+  }
+
+  private static Specification<Patient> bornBetween(LocalDate from, LocalDate to) {
+    return between("dateOfBirth", from, to);
+  }
+
+  private static Specification<Patient> between(String attribute, LocalDate from, LocalDate to) {
+    if (from == null && to == null) {
+      return null;
+    }
+
+    return (root, query, cb) -> {
+      if (from == null) {
+        return cb.lessThanOrEqualTo(root.get(attribute), to);
+      }
+      if (to == null) {
+        return cb.greaterThanOrEqualTo(root.get(attribute), from);
+      }
+      return cb.between(root.get(attribute), from, to);
+    };
+  }
+}
@@ -0,0 +1,28 @@
+package com.supersection.patientservice.security;
+
+import java.time.Duration;
+
+import org.springframework.boot.http.client.ClientHttpRequestFactoryBuilder;
+import org.springframework.boot.http.client.ClientHttpRequestFactorySettings;
+import org.springframework.web.client.RestClient;
+
+/**
+ * Clients for auth-service, which never wait on it longer than a timeout.
+ * They use HttpURLConnection, whose timeouts surface as
+ * {@code RestClientException}s like any other failure to reach the service.
+ */
+final class AuthServiceClients {
+
+  private AuthServiceClients() {
+  }
+
+  static RestClient create(RestClient.Builder builder, String baseUrl, Duration timeout) {
+    return builder
+        .requestFactory(ClientHttpRequestFactoryBuilder.simple().build(
+            ClientHttpRequestFactorySettings.defaults()
+                .withConnectTimeout(timeout)
+                .withReadTimeout(timeout)))
+        .baseUrl(baseUrl)
+        .build();
+  }
+}
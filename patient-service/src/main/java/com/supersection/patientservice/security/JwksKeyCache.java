@@ -0,0 +1,118 @@
+package com.supersection.patientservice.security;
+
+import java.security.Key;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.JwkSet;
+import io.jsonwebtoken.security.Jwks;
+
+/**
+ * Public keys published by auth-service, refreshed every
+ * {@code refresh-interval-ms} and on demand when a token names a key that is
+ * not cached yet, at most once per {@code min-refresh-interval-ms}. On-demand
+ * refreshes run in the background, so request threads only ever use the keys
+ * already cached, and a fetch gives up after {@code timeout-ms}.
+ */
+@Component
+@ConditionalOnProperty("auth.jwks.url")
+public class JwksKeyCache {
+
+  private static final Logger log = LoggerFactory.getLogger(JwksKeyCache.class);
+
+  private final RestClient restClient;
+  private final long minRefreshIntervalMs;
+  private final AtomicBoolean refreshing = new AtomicBoolean();
+
+  private volatile Map<String, Key> keys = Map.of();
+  private volatile long lastRefreshMillis;
+
+  @Autowired
+  public JwksKeyCache(
+      RestClient.Builder restClientBuilder,
+      @Value("${auth.jwks.url}") String jwksUrl,
+      @Value("${auth.jwks.min-refresh-interval-ms:10000}") long minRefreshIntervalMs,
+      @Value("${auth.jwks.timeout-ms:2000}") long timeoutMs
+  ) {
+    this(AuthServiceClients.create(restClientBuilder, jwksUrl, Duration.ofMillis(timeoutMs)),
+        minRefreshIntervalMs);
+  }
+
+  JwksKeyCache(RestClient restClient, long minRefreshIntervalMs) {
+    this.restClient = restClient;
+    this.minRefreshIntervalMs = minRefreshIntervalMs;
+  }
+
+  public Key get(String keyId) {
+    return keyId == null ? null : keys.get(keyId);
+  }
+
+  /**
+   * Starts fetching the key set in the background unless that was attempted
+   * within the last {@code min-refresh-interval-ms} or a fetch is running.
+   */
+  public void refreshIfStale() {
+    if (System.currentTimeMillis() - lastRefreshMillis >= minRefreshIntervalMs
+        && startRefresh()) {
+      Thread.ofVirtual().name("jwks-refresh").start(this::fetch);
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${auth.jwks.refresh-interval-ms:300000}")
+  public void refresh() {
+    if (startRefresh()) {
+      fetch();
+    }
+  }
+
+  private boolean startRefresh() {
+    if (!refreshing.compareAndSet(false, true)) {
+      return false;
+    }
+    // Counts attempts, so an unreachable auth-service is not retried per request
+    lastRefreshMillis = System.currentTimeMillis();
+    return true;
+  }
+
+  private void fetch() {
+    try {
+      load();
+    } finally {
+      refreshing.set(false);
+    }
+  }
+
+  private void load() {
+    String json;
+    try {
+      json = restClient.get().retrieve().body(String.class);
+    } catch (RestClientException e) {
+      log.warn("Failed to fetch JWKS: {}", e.getMessage());
+      return;
+    }
+
+    JwkSet jwkSet = Jwks.setParser().build().parse(json);
+    Map<String, Key> loaded = new HashMap<>();
+    for (Jwk<?> jwk : jwkSet) {
+      if (jwk.getId() != null) {
+        loaded.put(jwk.getId(), jwk.toKey());
+      }
+    }
+
+    keys = Map.copyOf(loaded);
+    log.debug("Loaded {} JWKS keys", loaded.size());
+  }
+}
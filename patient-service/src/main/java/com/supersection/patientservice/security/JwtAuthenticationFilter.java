@@ -0,0 +1,117 @@
+package com.supersection.patientservice.security;
+
+import java.io.IOException;
+import java.security.Key;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Header;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.ProtectedHeader;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Requires a bearer token signed by auth-service on every {@code /patients}
+ * request. Tokens are verified offline against the cached JWKS and revocation
+ * list, so this normally adds no call to auth-service. Until the revocation
+ * list has first been downloaded, requests get 503. Only active when
+ * {@code auth.jwks.url} is set, which also requires {@code auth.revocation.url}.
+ */
+@Component
+@ConditionalOnProperty("auth.jwks.url")
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+  private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
+
+  private final JwksKeyCache jwksKeyCache;
+  private final RevocationList revocationList;
+  private final JwtParser parser;
+
+  public JwtAuthenticationFilter(JwksKeyCache jwksKeyCache, RevocationList revocationList) {
+    this.jwksKeyCache = jwksKeyCache;
+    this.revocationList = revocationList;
+    this.parser = Jwts.parser()
+        .keyLocator(this::locateKey)
+        .build();
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return !request.getRequestURI().startsWith("/patients");
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request,
+      HttpServletResponse response,
+      FilterChain filterChain
+  ) throws ServletException, IOException {
+    String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
+
+    if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+      response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+      return;
+    }
+    // Until the first download revocations could only be checked per request
+    if (!revocationList.isLoaded()) {
+      response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+      response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+      return;
+    }
+    if (!isValid(authHeader.substring(7))) {
+      response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+      return;
+    }
+
+    filterChain.doFilter(request, response);
+  }
+
+  private boolean isValid(String token) {
+    Claims claims;
+    try {
+      claims = parser.parseSignedClaims(token).getPayload();
+    } catch (UnknownSigningKeyException e) {
+      // The key may have been published after our last refresh. Keys are
+      // published well before they sign anything, so this is rare enough to
+      // reject the token rather than hold the request until the fetch is done.
+      jwksKeyCache.refreshIfStale();
+      log.debug("Rejected JWT: {}", e.getMessage());
+      return false;
+    } catch (JwtException | IllegalArgumentException e) {
+      log.debug("Rejected JWT: {}", e.getMessage());
+      return false;
+    }
+
+    return !revocationList.isRevoked(claims.getId());
+  }
+
+  private Key locateKey(Header header) {
+    String keyId = header instanceof ProtectedHeader protectedHeader
+        ? protectedHeader.getKeyId()
+        : null;
+
+    Key key = jwksKeyCache.get(keyId);
+    if (key == null) {
+      throw new UnknownSigningKeyException("Unknown signing key " + keyId);
+    }
+    return key;
+  }
+
+  private static class UnknownSigningKeyException extends JwtException {
+
+    UnknownSigningKeyException(String message) {
+      super(message);
+    }
+  }
+}
@@ -0,0 +1,126 @@
+package com.supersection.patientservice.security;
+
+import java.time.Duration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.supersection.revocation.BloomFilter;
+
+/**
+ * Revoked token ids as published by auth-service. A Bloom filter downloaded
+ * every {@code refresh-interval-ms} rules out almost every token locally;
+ * only ids it cannot rule out are checked with auth-service, once per
+ * download, and a check that fails or takes longer than {@code timeout-ms}
+ * treats the token as revoked. Until a filter has been downloaded every
+ * token is treated as revoked, and callers should turn requests away with
+ * {@link #isLoaded} rather than reject the token.
+ */
+@Component
+@ConditionalOnProperty("auth.jwks.url")
+public class RevocationList {
+
+  private static final Logger log = LoggerFactory.getLogger(RevocationList.class);
+
+  private static final int MAX_CHECKED = 10_000;
+
+  private final RestClient restClient;
+
+  // Answers for ids the current filter could not rule out
+  private final Cache<String, Boolean> checked = Caffeine.newBuilder()
+      .maximumSize(MAX_CHECKED)
+      .build();
+
+  // Null until the first download
+  private volatile BloomFilter filter;
+  private volatile String etag;
+
+  @Autowired
+  public RevocationList(
+      RestClient.Builder restClientBuilder,
+      @Value("${auth.revocation.url}") String revocationUrl,
+      @Value("${auth.revocation.timeout-ms:2000}") long timeoutMs
+  ) {
+    this(AuthServiceClients.create(
+        restClientBuilder, revocationUrl, Duration.ofMillis(timeoutMs)));
+  }
+
+  RevocationList(RestClient restClient) {
+    this.restClient = restClient;
+  }
+
+  /** Whether a filter has been downloaded yet. */
+  public boolean isLoaded() {
+    return filter != null;
+  }
+
+  public boolean isRevoked(String tokenId) {
+    if (tokenId == null) {
+      return false;
+    }
+    BloomFilter current = filter;
+    if (current == null) {
+      return true;
+    }
+    if (!current.mightContain(tokenId)) {
+      return false;
+    }
+
+    Boolean revoked = checked.getIfPresent(tokenId);
+    if (revoked != null) {
+      return revoked;
+    }
+    try {
+      revoked = restClient.get()
+          .uri("/{tokenId}", tokenId)
+          .exchange((request, response) -> response.getStatusCode() != HttpStatus.NOT_FOUND);
+    } catch (RestClientException e) {
+      log.warn("Revocation check failed for token {}: {}", tokenId, e.getMessage());
+      return true;
+    }
+    // Kept only while this filter is current, which is no staler than the filter itself
+    if (filter == current) {
+      checked.put(tokenId, revoked);
+    }
+    return revoked;
+  }
+
+  @Scheduled(fixedDelayString = "${auth.revocation.refresh-interval-ms:30000}")
+  public void refresh() {
+    ResponseEntity<byte[]> response;
+    try {
+      response = restClient.get()
+          .uri("/bloom")
+          .headers(headers -> {
+            if (etag != null) {
+              headers.setIfNoneMatch(etag);
+            }
+          })
+          .retrieve()
+          .toEntity(byte[].class);
+    } catch (RestClientException e) {
+      log.warn("Failed to refresh revocation list: {}", e.getMessage());
+      return;
+    }
+
+    if (response.getStatusCode() == HttpStatus.NOT_MODIFIED || response.getBody() == null) {
+      return;
+    }
+
+    filter = BloomFilter.fromBytes(response.getBody());
+    etag = response.getHeaders().getFirst(HttpHeaders.ETAG);
+    checked.invalidateAll();
+  }
+}
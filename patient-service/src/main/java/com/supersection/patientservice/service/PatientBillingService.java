@@ -0,0 +1,123 @@
+package com.supersection.patientservice.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.supersection.grpc.BillingResponse;
+import com.supersection.patientservice.grpc.BillingServiceGrpcClient;
+import com.supersection.patientservice.model.BillingStatus;
+import com.supersection.patientservice.model.Patient;
+import com.supersection.patientservice.repository.PatientRepostory;
+
+/**
+ * Creates billing accounts off the request path. Calls are only issued once
+ * the transaction that created the patients commits, and each result is
+ * written back to the patient's billing columns on the application task
+ * executor, never on a gRPC thread. A patient stays PENDING when
+ * billing-service could not be reached or the result could not be written,
+ * and is requested again by a periodic sweep once it has been PENDING for
+ * {@code pending-timeout-ms}; billing account creation is idempotent, so a
+ * repeated request is harmless. Billing writes publish no event, so other
+ * instances may serve the old billing status from their caches until the
+ * entries expire.
+ */
+@Service
+public class PatientBillingService {
+
+  private static final Logger log = LoggerFactory.getLogger(PatientBillingService.class);
+
+  private final BillingServiceGrpcClient billingServiceGrpcClient;
+  private final PatientRepostory patientRepostory;
+  private final PatientCache patientCache;
+  private final Executor executor;
+  private final Duration pendingTimeout;
+  private final int sweepBatchSize;
+
+  public PatientBillingService(
+      BillingServiceGrpcClient billingServiceGrpcClient,
+      PatientRepostory patientRepostory,
+      PatientCache patientCache,
+      @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+      Executor executor,
+      @Value("${patient.billing.pending-timeout-ms:300000}") long pendingTimeoutMs,
+      @Value("${patient.billing.sweep-batch-size:500}") int sweepBatchSize
+  ) {
+    this.billingServiceGrpcClient = billingServiceGrpcClient;
+    this.patientRepostory = patientRepostory;
+    this.patientCache = patientCache;
+    this.executor = executor;
+    this.pendingTimeout = Duration.ofMillis(pendingTimeoutMs);
+    this.sweepBatchSize = sweepBatchSize;
+  }
+
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void requestBillingAccounts(List<Patient> patients) {
+    List<Patient> created = List.copyOf(patients);
+
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        created.forEach(patient -> requestBillingAccount(
+            patient.getId(), patient.getName(), patient.getEmail()));
+      }
+    });
+  }
+
+  @Scheduled(fixedDelayString = "${patient.billing.sweep-interval-ms:60000}")
+  public void retryPendingPatients() {
+    List<Patient> pending = patientRepostory.findByBillingStatusNotUpdatedSince(
+        BillingStatus.PENDING, Instant.now().minus(pendingTimeout), Limit.of(sweepBatchSize));
+    if (pending.isEmpty()) {
+      return;
+    }
+
+    log.info("Requesting billing accounts again for {} patients still pending", pending.size());
+    pending.forEach(patient -> requestBillingAccount(
+        patient.getId(), patient.getName(), patient.getEmail()));
+  }
+
+  private void requestBillingAccount(UUID patientId, String name, String email) {
+    billingServiceGrpcClient
+        .createBillingAccountAsync(patientId.toString(), name, email)
+        .whenCompleteAsync(
+            (response, failure) -> recordResult(patientId, response, failure), executor);
+  }
+
+  private void recordResult(UUID patientId, BillingResponse response, Throwable failure) {
+    if (failure != null && BillingServiceGrpcClient.isTransient(failure)) {
+      log.warn("Billing account for patient {} not created yet, leaving it pending: {}",
+          patientId, failure.getMessage());
+      return;
+    }
+
+    try {
+      if (failure != null) {
+        patientRepostory.updateBillingAccount(
+            patientId, null, BillingStatus.FAILED, Instant.now());
+      } else {
+        patientRepostory.updateBillingAccount(
+            patientId, response.getAccountId(), BillingStatus.ACTIVE, Instant.now());
+      }
+      patientCache.invalidate(patientId);
+    } catch (RuntimeException e) {
+      log.error("Could not record billing result for patient {}, leaving it pending: {}",
+          patientId, e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,220 @@
+package com.supersection.patientservice.service;
+
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.hibernate.JDBCException;
+import org.hibernate.exception.ConstraintViolationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.supersection.patientservice.dto.PatientBulkImportResponseDTO;
+import com.supersection.patientservice.dto.PatientBulkImportResponseDTO.RejectedRow;
+import com.supersection.patientservice.dto.PatientRequestDTO;
+import com.supersection.patientservice.dto.validator.CreatePatientValidationGroup;
+import com.supersection.patientservice.kafka.PatientEventOutbox;
+import com.supersection.patientservice.mapper.PatientMapper;
+import com.supersection.patientservice.model.Patient;
+import com.supersection.patientservice.repository.PatientRepostory;
+
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import jakarta.validation.groups.Default;
+
+/**
+ * Imports patients in fixed-size chunks. Each chunk costs one email lookup,
+ * one batched INSERT round trip for patients and their outbox events (see
+ * hibernate.jdbc.batch_size), and hands the billing calls to
+ * {@link PatientBillingService} without waiting for them, so memory use is
+ * bounded by the chunk size rather than the upload size. A chunk the
+ * database rejects is retried one row per transaction to find the rows at
+ * fault.
+ */
+@Service
+public class PatientBulkImportService {
+
+  private static final Logger log = LoggerFactory.getLogger(PatientBulkImportService.class);
+
+  private final PatientRepostory patientRepostory;
+  private final PatientBillingService patientBillingService;
+  private final PatientEventOutbox patientEventOutbox;
+  private final TransactionTemplate transactionTemplate;
+  private final EntityManager entityManager;
+  private final Validator validator;
+  private final int chunkSize;
+
+  public PatientBulkImportService(
+      PatientRepostory patientRepostory,
+      PatientBillingService patientBillingService,
+      PatientEventOutbox patientEventOutbox,
+      TransactionTemplate transactionTemplate,
+      EntityManager entityManager,
+      Validator validator,
+      @Value("${patient.bulk-import.chunk-size:1000}") int chunkSize
+  ) {
+    this.patientRepostory = patientRepostory;
+    this.patientBillingService = patientBillingService;
+    this.patientEventOutbox = patientEventOutbox;
+    this.transactionTemplate = transactionTemplate;
+    this.entityManager = entityManager;
+    this.validator = validator;
+    this.chunkSize = chunkSize;
+  }
+
+  public PatientBulkImportResponseDTO importPatients(Iterator<PatientRequestDTO> rows) {
+    List<RejectedRow> rejected = new ArrayList<>();
+    List<PatientRequestDTO> chunk = new ArrayList<>(chunkSize);
+    long imported = 0;
+    long firstRow = 1;
+
+    while (rows.hasNext()) {
+      chunk.add(rows.next());
+
+      if (chunk.size() == chunkSize || !rows.hasNext()) {
+        imported += importChunk(chunk, firstRow, rejected);
+        firstRow += chunk.size();
+        chunk.clear();
+      }
+    }
+
+    log.info("Bulk import finished: {} imported, {} rejected", imported, rejected.size());
+    return new PatientBulkImportResponseDTO(imported, rejected);
+  }
+
+  private int importChunk(
+      List<PatientRequestDTO> chunk, long firstRow, List<RejectedRow> rejected
+  ) {
+    List<PatientRequestDTO> candidates = new ArrayList<>(chunk.size());
+    List<Long> candidateRows = new ArrayList<>(chunk.size());
+    Set<String> chunkEmails = new HashSet<>();
+
+    for (int i = 0; i < chunk.size(); i++) {
+      PatientRequestDTO dto = chunk.get(i);
+      long row = firstRow + i;
+
+      String violation = validate(dto);
+      if (violation != null) {
+        rejected.add(new RejectedRow(row, dto.getEmail(), violation));
+        continue;
+      }
+
+      if (!chunkEmails.add(dto.getEmail())) {
+        rejected.add(new RejectedRow(row, dto.getEmail(), "Duplicate email in upload"));
+        continue;
+      }
+
+      // Mapping parses the dates; entities are mapped again when saved
+      try {
+        PatientMapper.toModel(dto);
+        candidates.add(dto);
+        candidateRows.add(row);
+      } catch (DateTimeParseException e) {
+        rejected.add(new RejectedRow(row, dto.getEmail(), "Invalid date: " + e.getParsedString()));
+      }
+    }
+
+    if (candidates.isEmpty()) {
+      return 0;
+    }
+
+    try {
+      return save(candidates, candidateRows, rejected);
+    } catch (DataIntegrityViolationException e) {
+      // Lost a race with a concurrent create, or some row broke a database
+      // constraint; only a row-by-row retry tells which rows and why
+      log.warn("Bulk import chunk starting at row {} failed, retrying row by row: {}",
+          firstRow, e.getMessage());
+      return saveRowByRow(candidates, candidateRows, rejected);
+    }
+  }
+
+  private int saveRowByRow(
+      List<PatientRequestDTO> candidates, List<Long> candidateRows, List<RejectedRow> rejected
+  ) {
+    int saved = 0;
+    for (int i = 0; i < candidates.size(); i++) {
+      PatientRequestDTO dto = candidates.get(i);
+      try {
+        saved += save(List.of(dto), List.of(candidateRows.get(i)), rejected);
+      } catch (DataIntegrityViolationException e) {
+        rejected.add(new RejectedRow(candidateRows.get(i), dto.getEmail(), describe(dto, e)));
+      }
+    }
+    return saved;
+  }
+
+  // Rows rejected inside a transaction are only reported once it commits
+  private int save(
+      List<PatientRequestDTO> candidates, List<Long> candidateRows, List<RejectedRow> rejected
+  ) {
+    List<RejectedRow> alreadyRegistered = new ArrayList<>();
+    List<Patient> saved = transactionTemplate.execute(
+        status -> saveNewPatients(candidates, candidateRows, alreadyRegistered));
+    rejected.addAll(alreadyRegistered);
+    return saved.size();
+  }
+
+  // Entities are mapped afresh for every attempt, as a rolled back attempt
+  // leaves them with generated ids
+  private List<Patient> saveNewPatients(
+      List<PatientRequestDTO> candidates, List<Long> candidateRows, List<RejectedRow> rejected
+  ) {
+    Set<String> existing = patientRepostory.findExistingEmails(
+        candidates.stream().map(PatientRequestDTO::getEmail).toList());
+
+    List<Patient> toSave = new ArrayList<>(candidates.size());
+    for (int i = 0; i < candidates.size(); i++) {
+      PatientRequestDTO dto = candidates.get(i);
+      if (existing.contains(dto.getEmail())) {
+        rejected.add(new RejectedRow(candidateRows.get(i), dto.getEmail(),
+            "Email address already exists"));
+      } else {
+        toSave.add(PatientMapper.toModel(dto));
+      }
+    }
+
+    List<Patient> saved = patientRepostory.saveAll(toSave);
+    patientEventOutbox.patientsCreated(saved);
+    patientBillingService.requestBillingAccounts(saved);
+
+    // Send the batched INSERTs now and keep the persistence context chunk-sized
+    patientRepostory.flush();
+    entityManager.clear();
+    return saved;
+  }
+
+  private String describe(PatientRequestDTO dto, DataIntegrityViolationException e) {
+    if (patientRepostory.existsByEmail(dto.getEmail())) {
+      return "Email address already exists";
+    }
+    if (e.getCause() instanceof ConstraintViolationException violation
+        && violation.getConstraintName() != null) {
+      return "Violates constraint " + violation.getConstraintName();
+    }
+    if (e.getCause() instanceof JDBCException jdbc) {
+      return "Rejected by the database (SQLState " + jdbc.getSQLState() + ")";
+    }
+    return "Rejected by the database";
+  }
+
+  private String validate(PatientRequestDTO dto) {
+    Set<ConstraintViolation<PatientRequestDTO>> violations = validator.validate(
+        dto, Default.class, CreatePatientValidationGroup.class);
+
+    if (violations.isEmpty()) {
+      return null;
+    }
+
+    ConstraintViolation<PatientRequestDTO> first = violations.iterator().next();
+    return first.getPropertyPath() + ": " + first.getMessage();
+  }
+}
@@ -0,0 +1,68 @@
+package com.supersection.patientservice.service;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.supersection.patientservice.dto.PatientResponseDTO;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Size-bounded read-through cache of patients by id. Entries are dropped
+ * after this instance's own changes commit, when any instance's change
+ * event arrives on the {@code patient} topic, and in any case
+ * {@code expire-after-write-ms} after loading, which bounds staleness if an
+ * event is lost or delayed. Cached DTOs are shared and must not be
+ * modified. Hit and miss counts are published as {@code cache.gets}.
+ */
+@Component
+public class PatientCache {
+
+  private final Cache<UUID, PatientResponseDTO> patients;
+
+  public PatientCache(
+      @Value("${patient.cache.max-size:100000}") long maxSize,
+      @Value("${patient.cache.expire-after-write-ms:60000}") long expireAfterWriteMs,
+      MeterRegistry meterRegistry
+  ) {
+    this.patients = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(Duration.ofMillis(expireAfterWriteMs))
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, patients, "patients");
+  }
+
+  /**
+   * The cached patient, or the one {@code loader} returns. Concurrent misses
+   * for one id share a single load, and an invalidation that arrives during
+   * the load waits for it and then removes its result, so a load never
+   * outlives a change it raced with.
+   */
+  public PatientResponseDTO get(UUID id, Supplier<PatientResponseDTO> loader) {
+    return patients.get(id, key -> loader.get());
+  }
+
+  public void invalidate(UUID id) {
+    patients.invalidate(id);
+  }
+
+  /** Invalidates once the current transaction commits, when readers can see the change. */
+  public void invalidateAfterCommit(UUID id) {
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        invalidate(id);
+      }
+    });
+  }
+}
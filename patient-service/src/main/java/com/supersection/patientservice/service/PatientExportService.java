@@ -0,0 +1,70 @@
+package com.supersection.patientservice.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.supersection.patientservice.dto.PatientResponseDTO;
+import com.supersection.patientservice.mapper.PatientMapper;
+import com.supersection.patientservice.model.Patient;
+import com.supersection.patientservice.repository.PatientRepostory;
+
+import jakarta.persistence.EntityManager;
+
+@Service
+public class PatientExportService {
+
+  private static final int FLUSH_EVERY = 1000;
+
+  private final PatientRepostory patientRepostory;
+  private final EntityManager entityManager;
+  private final ObjectWriter patientWriter;
+
+  public PatientExportService(
+      PatientRepostory patientRepostory,
+      EntityManager entityManager,
+      ObjectMapper objectMapper
+  ) {
+    this.patientRepostory = patientRepostory;
+    this.entityManager = entityManager;
+    this.patientWriter = objectMapper.writerFor(PatientResponseDTO.class);
+  }
+
+  /**
+   * Writes every patient as newline-delimited JSON, row by row as the
+   * database cursor advances, so heap use does not depend on table size.
+   *
+   * @param out the response stream; flushed periodically but not closed
+   * @return the number of patients written
+   */
+  @Transactional(readOnly = true)
+  public long exportPatients(OutputStream out) throws IOException {
+    long count = 0;
+
+    try (Stream<Patient> patients = patientRepostory.streamAll()) {
+      Iterator<Patient> iterator = patients.iterator();
+
+      while (iterator.hasNext()) {
+        Patient patient = iterator.next();
+        out.write(patientWriter.writeValueAsBytes(PatientMapper.toDTO(patient)));
+        out.write('\n');
+
+        // Keep the persistence context from growing with the result set
+        entityManager.detach(patient);
+
+        if (++count % FLUSH_EVERY == 0) {
+          out.flush();
+        }
+      }
+    }
+
+    out.flush();
+    return count;
+  }
+}
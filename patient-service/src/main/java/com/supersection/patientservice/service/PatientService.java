@@ -2,45 +2,82 @@ package com.supersection.patientservice.service;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.supersection.patientservice.dto.PatientFilterDTO;
+import com.supersection.patientservice.dto.PatientPageResponseDTO;
 import com.supersection.patientservice.dto.PatientRequestDTO;
 import com.supersection.patientservice.dto.PatientResponseDTO;
 import com.supersection.patientservice.exception.EmailAlreadyExistsException;
 import com.supersection.patientservice.exception.PatientNotFoundException;
-import com.supersection.patientservice.grpc.BillingServiceGrpcClient;
-import com.supersection.patientservice.kafka.KafkaProducer;
+import com.supersection.patientservice.exception.PreconditionFailedException;
+import com.supersection.patientservice.kafka.PatientEventOutbox;
 import com.supersection.patientservice.mapper.PatientMapper;
 import com.supersection.patientservice.model.Patient;
+import com.supersection.patientservice.repository.PatientCursor;
 import com.supersection.patientservice.repository.PatientRepostory;
+import com.supersection.patientservice.repository.PatientSpecifications;
 
 @Service
 public class PatientService {
 
   private final PatientRepostory patientRepostory;
-  private final BillingServiceGrpcClient billingServiceGrpcClient;
-  private final KafkaProducer kafkaProducer;
+  private final PatientBillingService patientBillingService;
+  private final PatientEventOutbox patientEventOutbox;
+  private final PatientCache patientCache;
 
   public PatientService(
       PatientRepostory patientRepostory,
-      BillingServiceGrpcClient billingServiceGrpcClient,
-      KafkaProducer kafkaProducer
+      PatientBillingService patientBillingService,
+      PatientEventOutbox patientEventOutbox,
+      PatientCache patientCache
   ) {
     this.patientRepostory = patientRepostory;
-    this.billingServiceGrpcClient = billingServiceGrpcClient;
-    this.kafkaProducer = kafkaProducer;
+    this.patientBillingService = patientBillingService;
+    this.patientEventOutbox = patientEventOutbox;
+    this.patientCache = patientCache;
   }
 
+  public PatientResponseDTO getPatient(UUID id) {
+    return patientCache.get(id, () -> patientRepostory.findById(id)
+        .map(PatientMapper::toDTO)
+        .orElseThrow(() -> new PatientNotFoundException("Patient not found with ID: " + id)));
+  }
+
+
+  public PatientPageResponseDTO getPatients(
+      PatientFilterDTO filter, String cursor, int size
+  ) {
+    PatientCursor position = cursor == null || cursor.isBlank()
+        ? null : PatientCursor.decode(cursor);
 
-  public List<PatientResponseDTO> getPatients() {
-    List<Patient> patients = patientRepostory.findAll();
+    Specification<Patient> spec = PatientSpecifications.matching(filter)
+        .and(PatientSpecifications.after(position));
 
-    return patients.stream()
-        .map(patient -> PatientMapper.toDTO(patient)).toList();
+    // Fetch one extra row to know whether another page exists without a count query
+    List<Patient> patients = patientRepostory.findBy(spec, query -> query
+        .sortBy(PatientSpecifications.KEYSET_SORT)
+        .limit(size + 1)
+        .all());
+
+    boolean hasMore = patients.size() > size;
+    List<Patient> page = hasMore ? patients.subList(0, size) : patients;
+
+    String nextCursor = hasMore
+        ? PatientCursor.after(page.get(page.size() - 1)).encode() : null;
+
+    return new PatientPageResponseDTO(
+        page.stream().map(patient -> PatientMapper.toDTO(patient)).toList(),
+        nextCursor);
   }
 
+  @Transactional
   public PatientResponseDTO createPatient(PatientRequestDTO patientRequestDTO) {
     if (patientRepostory.existsByEmail(patientRequestDTO.getEmail())) {
       throw new EmailAlreadyExistsException(
@@ -50,36 +87,74 @@ public class PatientService {
     Patient newPatient = patientRepostory.save(
         PatientMapper.toModel(patientRequestDTO));
 
-    billingServiceGrpcClient.createBillingAccount(
-        newPatient.getId().toString(), newPatient.getName(), newPatient.getEmail()
-    );
+    // Responds with billingStatus PENDING; the account is created after commit
+    patientBillingService.requestBillingAccounts(List.of(newPatient));
 
-    kafkaProducer.sendEvent(newPatient);
+    patientEventOutbox.patientCreated(newPatient);
 
     return PatientMapper.toDTO(newPatient);
   }
 
+  @Transactional
   public PatientResponseDTO updatePatient(
     UUID id, PatientRequestDTO patientRequestDTO
+  ) {
+    return updatePatient(id, patientRequestDTO, null);
+  }
+
+  /**
+   * Updates the patient if its current version is one of
+   * {@code expectedVersions}, typically from an If-Match header; null skips
+   * the check. A change committed concurrently also fails the check.
+   */
+  @Transactional
+  public PatientResponseDTO updatePatient(
+    UUID id, PatientRequestDTO patientRequestDTO, Set<Long> expectedVersions
   ) {
     Patient patient = patientRepostory.findById(id).orElseThrow(
         () -> new PatientNotFoundException("Patient not found with ID: " + id));
 
+    if (expectedVersions != null && !expectedVersions.contains(patient.getVersion())) {
+      throw new PreconditionFailedException(
+          "Patient " + id + " is at version " + patient.getVersion());
+    }
+
     if (patientRepostory.existsByEmailAndIdNot(patientRequestDTO.getEmail(), id)) {
       throw new EmailAlreadyExistsException(
           "A patient with this emai already exists: " + patientRequestDTO.getEmail());
     }
 
+    long previousVersion = patient.getVersion();
     patient.setName(patientRequestDTO.getName());
     patient.setEmail(patientRequestDTO.getEmail());
     patient.setAddress(patientRequestDTO.getAddress());
     patient.setDateOfBirth(LocalDate.parse(patientRequestDTO.getDateOfBirth()));
 
-    Patient updatedPatient = patientRepostory.save(patient);
+    // Flush so the event carries the incremented version; an update that
+    // changes nothing is not flushed and publishes no event
+    Patient updatedPatient;
+    try {
+      updatedPatient = patientRepostory.saveAndFlush(patient);
+    } catch (ObjectOptimisticLockingFailureException e) {
+      if (expectedVersions != null) {
+        throw new PreconditionFailedException("Patient " + id + " changed concurrently");
+      }
+      throw e;
+    }
+    if (updatedPatient.getVersion() != previousVersion) {
+      patientEventOutbox.patientUpdated(updatedPatient);
+      patientCache.invalidateAfterCommit(id);
+    }
+
     return PatientMapper.toDTO(updatedPatient);
   }
 
+  @Transactional
   public void deletePatient(UUID id) {
-    patientRepostory.deleteById(id);
+    patientRepostory.findById(id).ifPresent(patient -> {
+      patientRepostory.delete(patient);
+      patientEventOutbox.patientDeleted(patient);
+      patientCache.invalidateAfterCommit(id);
+    });
   }
 }
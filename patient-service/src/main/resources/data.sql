@@ -6,9 +6,21 @@ CREATE TABLE IF NOT EXISTS patient
     email           VARCHAR(255) UNIQUE NOT NULL,
     address         VARCHAR(255)        NOT NULL,
     date_of_birth   DATE                NOT NULL,
-    registered_date DATE                NOT NULL
+    registered_date DATE                NOT NULL,
+    billing_account_id VARCHAR(255),
+    billing_status  VARCHAR(20),
+    version         BIGINT DEFAULT 0    NOT NULL,
+    updated_at      TIMESTAMP WITH TIME ZONE
 );
 
+-- Indexes backing keyset pagination and the listing filters
+CREATE INDEX IF NOT EXISTS idx_patient_registered_date_id ON patient (registered_date, id);
+CREATE INDEX IF NOT EXISTS idx_patient_name ON patient (name);
+CREATE INDEX IF NOT EXISTS idx_patient_date_of_birth ON patient (date_of_birth);
+
+-- Backs the sweep that retries billing accounts still pending
+CREATE INDEX IF NOT EXISTS idx_patient_billing_status_updated_at ON patient (billing_status, updated_at);
+
 -- Insert well-known UUIDs for specific patients
 INSERT INTO patient (id, name, email, address, date_of_birth, registered_date)
 SELECT '123e4567-e89b-12d3-a456-426614174000',
@@ -0,0 +1,147 @@
+package com.supersection.patientservice.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.supersection.patientservice.dto.PatientRequestDTO;
+import com.supersection.patientservice.service.PatientBillingService;
+import com.supersection.patientservice.service.PatientService;
+
+@SpringBootTest(properties = "grpc.server.port=-1")
+@AutoConfigureMockMvc
+@EmbeddedKafka(topics = "patient", partitions = 1,
+    bootstrapServersProperty = "spring.kafka.bootstrap-servers")
+class PatientControllerTests {
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private PatientService patientService;
+
+  @MockitoBean
+  private PatientBillingService patientBillingService;
+
+  @Test
+  void anUnchangedPatientIsNotSentAgain() throws Exception {
+    String id = createPatient("ETag Reader", "etag_reader@example.com");
+
+    String eTag = mockMvc.perform(get("/patients/{id}", id))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+    mockMvc.perform(get("/patients/{id}", id).header(HttpHeaders.IF_NONE_MATCH, eTag))
+        .andExpect(status().isNotModified());
+
+    mockMvc.perform(put("/patients/{id}", id)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(update("ETag Reader 1", "etag_reader@example.com")))
+        .andExpect(status().isOk());
+    mockMvc.perform(get("/patients/{id}", id).header(HttpHeaders.IF_NONE_MATCH, eTag))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+  }
+
+  @Test
+  void updatesWithAStaleIfMatchAreRejected() throws Exception {
+    String id = createPatient("ETag Writer", "etag_writer@example.com");
+
+    mockMvc.perform(put("/patients/{id}", id)
+            .header(HttpHeaders.IF_MATCH, "\"0\"")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(update("ETag Writer 1", "etag_writer@example.com")))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+
+    // Another client still holding version 0
+    mockMvc.perform(put("/patients/{id}", id)
+            .header(HttpHeaders.IF_MATCH, "\"0\"")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(update("ETag Writer 2", "etag_writer@example.com")))
+        .andExpect(status().isPreconditionFailed());
+
+    assertThat(patientService.getPatient(UUID.fromString(id)).getName())
+        .isEqualTo("ETag Writer 1");
+  }
+
+  @Test
+  void ifMatchAcceptsAnyVersionForAStarButNeverForAWeakTag() throws Exception {
+    String id = createPatient("ETag Star", "etag_star@example.com");
+
+    mockMvc.perform(put("/patients/{id}", id)
+            .header(HttpHeaders.IF_MATCH, "W/\"0\"")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(update("ETag Star 1", "etag_star@example.com")))
+        .andExpect(status().isPreconditionFailed());
+
+    mockMvc.perform(put("/patients/{id}", id)
+            .header(HttpHeaders.IF_MATCH, "*")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(update("ETag Star 1", "etag_star@example.com")))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+
+    mockMvc.perform(put("/patients/{id}", id)
+            .header(HttpHeaders.IF_MATCH, "\"7\", \"1\"")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(update("ETag Star 2", "etag_star@example.com")))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.ETAG, "\"2\""));
+  }
+
+  @Test
+  void thePageETagChangesWhenAPatientOnThePageChanges() throws Exception {
+    createPatient("ETag Page A", "etag_page_a@example.com");
+    String changed = createPatient("ETag Page B", "etag_page_b@example.com");
+
+    String before = mockMvc.perform(get("/patients").param("name", "ETag Page "))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    mockMvc.perform(get("/patients").param("name", "ETag Page ")
+            .header(HttpHeaders.IF_NONE_MATCH, before))
+        .andExpect(status().isNotModified());
+
+    mockMvc.perform(put("/patients/{id}", changed)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(update("ETag Page B", "etag_page_b_updated@example.com")))
+        .andExpect(status().isOk());
+
+    String after = mockMvc.perform(get("/patients").param("name", "ETag Page ")
+            .header(HttpHeaders.IF_NONE_MATCH, before))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    assertThat(after).isNotNull().isNotEqualTo(before);
+  }
+
+  private String createPatient(String name, String email) {
+    PatientRequestDTO request = new PatientRequestDTO();
+    request.setName(name);
+    request.setEmail(email);
+    request.setAddress("1 ETag Street");
+    request.setDateOfBirth("1990-01-01");
+    request.setRegisteredDate("2024-01-01");
+    return patientService.createPatient(request).getId();
+  }
+
+  private static String update(String name, String email) {
+    return """
+        {"name": "%s", "email": "%s", "address": "1 ETag Street", "dateOfBirth": "1990-01-01"}
+        """.formatted(name, email);
+  }
+}
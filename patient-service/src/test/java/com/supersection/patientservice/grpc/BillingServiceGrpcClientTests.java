@@ -0,0 +1,163 @@
+package com.supersection.patientservice.grpc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.supersection.grpc.BillingBatchResponse;
+import com.supersection.grpc.BillingRequest;
+import com.supersection.grpc.BillingResponse;
+import com.supersection.grpc.BillingResult;
+import com.supersection.grpc.BillingServiceGrpc;
+
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+
+class BillingServiceGrpcClientTests {
+
+  private final FakeBillingService billingService = new FakeBillingService();
+  private Server server;
+  private BillingServiceGrpcClient client;
+
+  @AfterEach
+  void stop() {
+    client.shutdown();
+    server.shutdownNow();
+  }
+
+  @Test
+  void transientPerItemErrorsAreRetriedAndRejectionsAreNot() throws Exception {
+    start(256);
+    billingService.failuresLeft.put("patient-busy", new AtomicInteger(2));
+
+    CompletableFuture<BillingResponse> busy =
+        client.createBillingAccountAsync("patient-busy", "Busy", "busy@example.com");
+    CompletableFuture<BillingResponse> rejected =
+        client.createBillingAccountAsync("patient-rejected", "Rejected", "rejected@example.com");
+
+    assertThat(busy.get(5, TimeUnit.SECONDS).getAccountId()).isEqualTo("ACC-patient-busy");
+    assertThat(billingService.attempts("patient-busy")).isEqualTo(3);
+
+    assertThatThrownBy(() -> rejected.get(5, TimeUnit.SECONDS))
+        .isInstanceOf(ExecutionException.class)
+        .satisfies(e -> assertThat(Status.fromThrowable(e.getCause()).getCode())
+            .isEqualTo(Status.Code.INVALID_ARGUMENT));
+    assertThat(billingService.attempts("patient-rejected")).isOne();
+  }
+
+  @Test
+  void batchesWaitForACallSlotInsteadOfFailing() throws Exception {
+    start(1);
+    billingService.delayMs = 100;
+
+    // Each request lingers into its own batch, and only one call may be in flight
+    List<CompletableFuture<BillingResponse>> responses = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      responses.add(client.createBillingAccountAsync(
+          "patient-" + i, "Queued", "queued_" + i + "@example.com"));
+      Thread.sleep(20);
+    }
+
+    for (int i = 0; i < 5; i++) {
+      assertThat(responses.get(i).get(5, TimeUnit.SECONDS).getAccountId())
+          .isEqualTo("ACC-patient-" + i);
+      assertThat(billingService.attempts("patient-" + i)).isOne();
+    }
+  }
+
+  @Test
+  void requestsBeyondTheQueueFailFastAsTransient() throws Exception {
+    start(1, 1, 2);
+    billingService.delayMs = 200;
+
+    // The first batch takes the only call slot, the next two fill the queue
+    List<CompletableFuture<BillingResponse>> responses = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      responses.add(client.createBillingAccountAsync(
+          "patient-" + i, "Queued", "queued_" + i + "@example.com"));
+    }
+
+    assertThatThrownBy(() -> responses.get(3).get(1, TimeUnit.SECONDS))
+        .isInstanceOf(ExecutionException.class)
+        .satisfies(e -> assertThat(BillingServiceGrpcClient.isTransient(e.getCause())).isTrue());
+    assertThat(billingService.attempts("patient-3")).isZero();
+    for (int i = 0; i < 3; i++) {
+      assertThat(responses.get(i).get(5, TimeUnit.SECONDS).getAccountId())
+          .isEqualTo("ACC-patient-" + i);
+    }
+  }
+
+  private void start(int maxInFlight) throws Exception {
+    start(maxInFlight, 200, 10_000);
+  }
+
+  private void start(int maxInFlight, int maxBatchSize, int maxQueued) throws Exception {
+    server = ServerBuilder.forPort(0).addService(billingService).build().start();
+    client = new BillingServiceGrpcClient(
+        "localhost", server.getPort(), 2000, maxInFlight, 4, 10, maxBatchSize, 5, maxQueued);
+  }
+
+  private static class FakeBillingService extends BillingServiceGrpc.BillingServiceImplBase {
+    private final Map<String, AtomicInteger> failuresLeft = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> attempts = new ConcurrentHashMap<>();
+    private volatile long delayMs;
+
+    int attempts(String patientId) {
+      return attempts.getOrDefault(patientId, new AtomicInteger()).get();
+    }
+
+    @Override
+    public StreamObserver<BillingRequest> createBillingAccounts(
+        StreamObserver<BillingBatchResponse> responseObserver
+    ) {
+      BillingBatchResponse.Builder response = BillingBatchResponse.newBuilder();
+
+      return new StreamObserver<>() {
+        @Override
+        public void onNext(BillingRequest request) {
+          String patientId = request.getPatientId();
+          attempts.computeIfAbsent(patientId, id -> new AtomicInteger()).incrementAndGet();
+
+          BillingResult.Builder result = BillingResult.newBuilder().setPatientId(patientId);
+          AtomicInteger failures = failuresLeft.get(patientId);
+          if (patientId.equals("patient-rejected")) {
+            result.setError("rejected").setErrorCode(Status.Code.INVALID_ARGUMENT.value());
+          } else if (failures != null && failures.getAndDecrement() > 0) {
+            result.setError("busy").setErrorCode(Status.Code.UNAVAILABLE.value());
+          } else {
+            result.setAccountId("ACC-" + patientId).setStatus("ACTIVE");
+          }
+          response.addResults(result);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+        }
+
+        @Override
+        public void onCompleted() {
+          try {
+            Thread.sleep(delayMs);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          responseObserver.onNext(response.build());
+          responseObserver.onCompleted();
+        }
+      };
+    }
+  }
+}
@@ -0,0 +1,148 @@
+package com.supersection.patientservice.kafka;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import patient.events.PatientEvent;
+
+/**
+ * Patient event publishing throughput against an embedded broker with six
+ * partitions, sending a batch and waiting for all of it as the outbox relay
+ * does. {@code baseline} is the previous producer: no key, default settings
+ * and 500-event batches. The others use the keys, acks and idempotence of
+ * {@code spring.kafka.producer} with the linger, compression and batch size
+ * in their name. Events/s is the {@code events} counter; the bytes sent per
+ * event and the compression ratio are printed when each trial ends.
+ *
+ * <pre>
+ * mvn -B test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main KafkaProducerBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class KafkaProducerBenchmark {
+
+  private static final String TOPIC = "patient";
+  private static final int PATIENTS = 100_000;
+
+  @Param({"baseline", "linger10-lz4-500", "linger2-lz4-2000", "linger2-zstd-2000"})
+  private String producer;
+
+  private EmbeddedKafkaKraftBroker broker;
+  private Producer<String, byte[]> kafkaProducer;
+  private boolean keyed;
+  private int batchSize;
+  private String[] keys;
+  private byte[][] payloads;
+  private int next;
+
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  @State(Scope.Thread)
+  public static class Sent {
+    public long events;
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    broker = new EmbeddedKafkaKraftBroker(1, 6, TOPIC);
+    broker.afterPropertiesSet();
+
+    Map<String, Object> config = new HashMap<>();
+    config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+    if (producer.equals("baseline")) {
+      batchSize = 500;
+    } else {
+      String[] settings = producer.split("-");
+      keyed = true;
+      batchSize = Integer.parseInt(settings[2]);
+      config.put(ProducerConfig.ACKS_CONFIG, "all");
+      config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+      config.put(ProducerConfig.BATCH_SIZE_CONFIG, 64 * 1024);
+      config.put(ProducerConfig.LINGER_MS_CONFIG, settings[0].substring("linger".length()));
+      config.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, settings[1]);
+    }
+    kafkaProducer = new KafkaProducer<>(
+        config, new StringSerializer(), new ByteArraySerializer());
+
+    // Roughly the size of a real event, about 130 bytes
+    keys = new String[PATIENTS];
+    payloads = new byte[PATIENTS][];
+    for (int i = 0; i < PATIENTS; i++) {
+      keys[i] = UUID.randomUUID().toString();
+      payloads[i] = PatientEvent.newBuilder()
+          .setPatientId(keys[i])
+          .setName("Patient Number " + i)
+          .setEmail("patient.number." + i + "@example.com")
+          .setEventType(PatientEventOutbox.PATIENT_CREATED)
+          .setOccurredAt(System.currentTimeMillis())
+          .setVersion(0)
+          .build()
+          .toByteArray();
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    System.out.printf("%n%s: %.1f bytes sent per event, compression ratio %.2f%n", producer,
+        metric("outgoing-byte-total") / metric("record-send-total"),
+        metric("compression-rate-avg"));
+    kafkaProducer.close();
+    broker.destroy();
+  }
+
+  @Benchmark
+  public void sendBatch(Sent sent) throws Exception {
+    List<Future<?>> sends = new ArrayList<>(batchSize);
+    for (int i = 0; i < batchSize; i++) {
+      int patient = next++ % PATIENTS;
+      sends.add(kafkaProducer.send(new ProducerRecord<>(
+          TOPIC, keyed ? keys[patient] : null, payloads[patient])));
+    }
+    for (Future<?> send : sends) {
+      send.get();
+    }
+    sent.events += batchSize;
+  }
+
+  private double metric(String name) {
+    return kafkaProducer.metrics().entrySet().stream()
+        .filter(metric -> metric.getKey().name().equals(name)
+            && metric.getKey().group().equals("producer-metrics"))
+        .map(Map.Entry::getValue)
+        .mapToDouble(metric -> ((Number) metric.metricValue()).doubleValue())
+        .findFirst()
+        .orElse(Double.NaN);
+  }
+}
@@ -0,0 +1,124 @@
+package com.supersection.patientservice.kafka;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.awaitility.Awaitility.await;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import com.supersection.patientservice.dto.PatientRequestDTO;
+import com.supersection.patientservice.dto.PatientResponseDTO;
+import com.supersection.patientservice.model.OutboxEvent;
+import com.supersection.patientservice.repository.OutboxEventRepository;
+import com.supersection.patientservice.service.PatientBillingService;
+import com.supersection.patientservice.service.PatientService;
+
+import patient.events.PatientEvent;
+
+@SpringBootTest(properties = "grpc.server.port=-1")
+@EmbeddedKafka(topics = "patient", partitions = 1,
+    bootstrapServersProperty = "spring.kafka.bootstrap-servers")
+class OutboxRelayTests {
+
+  @Autowired
+  private PatientService patientService;
+
+  @Autowired
+  private OutboxEventRepository outboxEventRepository;
+
+  @Autowired
+  private EmbeddedKafkaBroker embeddedKafka;
+
+  @MockitoBean
+  private PatientBillingService patientBillingService;
+
+  @Test
+  void patientChangesArePublishedFromOutboxKeyedByPatient() throws Exception {
+    PatientRequestDTO request = new PatientRequestDTO();
+    request.setName("Outbox Tester");
+    request.setEmail("outbox_tester@example.com");
+    request.setAddress("1 Relay Road");
+    request.setDateOfBirth("1990-01-01");
+    request.setRegisteredDate("2024-01-01");
+
+    PatientResponseDTO created = patientService.createPatient(request);
+    UUID id = UUID.fromString(created.getId());
+
+    request.setAddress("2 Relay Road");
+    patientService.updatePatient(id, request);
+    // Changes nothing, so publishes nothing
+    patientService.updatePatient(id, request);
+    patientService.deletePatient(id);
+
+    Map<String, Object> props = KafkaTestUtils.consumerProps("outbox-test", "false", embeddedKafka);
+    props.put("auto.offset.reset", "earliest");
+    try (Consumer<String, byte[]> consumer = new DefaultKafkaConsumerFactory<>(
+        props, new StringDeserializer(), new ByteArrayDeserializer()).createConsumer()) {
+      embeddedKafka.consumeFromAnEmbeddedTopic(consumer, "patient");
+
+      // Other tests publish to the same topic, so only this patient's events count
+      List<PatientEvent> events = new ArrayList<>();
+      await().atMost(Duration.ofSeconds(10)).until(() -> {
+        for (ConsumerRecord<String, byte[]> record
+            : KafkaTestUtils.getRecords(consumer, Duration.ofMillis(200))) {
+          if (created.getId().equals(record.key())) {
+            events.add(PatientEvent.parseFrom(record.value()));
+          }
+        }
+        return events.size() >= 3;
+      });
+
+      assertThat(events)
+          .extracting(PatientEvent::getEventType, PatientEvent::getVersion)
+          .containsExactly(
+              tuple("PATIENT_CREATED", 0L),
+              tuple("PATIENT_UPDATED", 1L),
+              tuple("PATIENT_DELETED", 2L));
+      assertThat(events.get(1).getOccurredAt()).isPositive();
+    }
+
+    // The relay deletes events after the broker acknowledged them, possibly after we read them
+    await().atMost(Duration.ofSeconds(10))
+        .untilAsserted(() -> assertThat(outboxEventRepository.count()).isZero());
+  }
+
+  @Test
+  void eventsLeasedByAnotherRelayAreLeftAlone() throws Exception {
+    OutboxEvent event = new OutboxEvent();
+    event.setTopic("patient");
+    event.setAggregateId(UUID.randomUUID().toString());
+    event.setPayload(PatientEvent.newBuilder().setEventType("PATIENT_CREATED").build().toByteArray());
+    event.setCreatedAt(Instant.now());
+    event.setLeaseExpiresAt(Instant.now().plus(Duration.ofHours(1)));
+    Long id = outboxEventRepository.save(event).getId();
+
+    Thread.sleep(1_000);
+    assertThat(outboxEventRepository.existsById(id)).isTrue();
+
+    // As if the other relay's lease ran out
+    OutboxEvent expired = outboxEventRepository.findById(id).orElseThrow();
+    expired.setLeaseExpiresAt(Instant.now().minusSeconds(1));
+    outboxEventRepository.save(expired);
+
+    await().atMost(Duration.ofSeconds(10))
+        .until(() -> !outboxEventRepository.existsById(id));
+  }
+}
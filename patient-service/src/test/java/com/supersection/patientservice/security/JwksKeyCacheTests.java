@@ -0,0 +1,68 @@
+package com.supersection.patientservice.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.springframework.test.web.client.ExpectedCount.once;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import java.net.ServerSocket;
+import java.security.KeyPair;
+import java.security.interfaces.ECPublicKey;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestClient;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Jwks;
+
+class JwksKeyCacheTests {
+
+  private static final String URL = "http://auth-service/.well-known/jwks.json";
+
+  private final RestClient.Builder restClientBuilder = RestClient.builder();
+  private final MockRestServiceServer authService =
+      MockRestServiceServer.bindTo(restClientBuilder).build();
+
+  @Test
+  void unknownKeysAreFetchedInTheBackgroundAtMostOncePerInterval() {
+    authService.expect(once(), requestTo(URL))
+        .andRespond(withSuccess(jwks("k1"), MediaType.APPLICATION_JSON));
+    JwksKeyCache cache = new JwksKeyCache(restClientBuilder.baseUrl(URL).build(), 60_000);
+
+    cache.refreshIfStale();
+    await().atMost(Duration.ofSeconds(5)).until(() -> cache.get("k1") != null);
+    cache.refreshIfStale();
+
+    authService.verify();
+  }
+
+  @Test
+  void callersDoNotWaitForAnAuthServiceThatNeverAnswers() throws Exception {
+    try (ServerSocket silent = new ServerSocket(0)) {
+      JwksKeyCache cache = new JwksKeyCache(
+          RestClient.builder(), "http://localhost:" + silent.getLocalPort(), 0, 1_000);
+
+      long start = System.nanoTime();
+      cache.refreshIfStale();
+      assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(500));
+
+      start = System.nanoTime();
+      cache.refresh();
+      assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+      assertThat(cache.get("k1")).isNull();
+    }
+  }
+
+  private static String jwks(String keyId) {
+    KeyPair keyPair = Jwts.SIG.ES256.keyPair().build();
+    String jwk = Jwks.json(Jwks.builder()
+        .key((ECPublicKey) keyPair.getPublic())
+        .id(keyId)
+        .build());
+    return "{\"keys\":[" + jwk + "]}";
+  }
+}
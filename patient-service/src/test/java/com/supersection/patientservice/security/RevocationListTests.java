@@ -0,0 +1,111 @@
+package com.supersection.patientservice.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.client.ExpectedCount.once;
+import static org.springframework.test.web.client.ExpectedCount.twice;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withException;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestClient;
+
+import com.supersection.revocation.BloomFilter;
+
+class RevocationListTests {
+
+  private static final String URL = "http://auth-service/revocations";
+
+  private final RestClient.Builder restClientBuilder = RestClient.builder();
+  private final MockRestServiceServer authService =
+      MockRestServiceServer.bindTo(restClientBuilder).build();
+  private final RevocationList revocationList =
+      new RevocationList(restClientBuilder.baseUrl(URL).build());
+
+  @Test
+  void beforeTheFirstDownloadTokensAreRevokedWithoutAskingAuthService() {
+    assertThat(revocationList.isLoaded()).isFalse();
+    assertThat(revocationList.isRevoked("any")).isTrue();
+    authService.verify();
+  }
+
+  @Test
+  void onlyTokensTheFilterCannotRuleOutAreCheckedWithAuthService() {
+    BloomFilter filter = new BloomFilter(100, 0.01);
+    filter.put("revoked");
+    expectFilter(filter, "\"1\"");
+    authService.expect(once(), requestTo(URL + "/revoked")).andRespond(withSuccess());
+
+    revocationList.refresh();
+
+    assertThat(revocationList.isLoaded()).isTrue();
+    assertThat(revocationList.isRevoked("not-revoked")).isFalse();
+    assertThat(revocationList.isRevoked("revoked")).isTrue();
+    // Answered without asking again until the next download
+    assertThat(revocationList.isRevoked("revoked")).isTrue();
+    authService.verify();
+  }
+
+  @Test
+  void aNewFilterForgetsEarlierAnswers() {
+    BloomFilter filter = new BloomFilter(100, 0.01);
+    filter.put("false-positive");
+    expectFilter(filter, "\"1\"");
+    authService.expect(requestTo(URL + "/false-positive"))
+        .andRespond(withStatus(HttpStatus.NOT_FOUND));
+    expectFilter(filter, "\"2\"");
+    authService.expect(requestTo(URL + "/false-positive")).andRespond(withSuccess());
+
+    revocationList.refresh();
+    assertThat(revocationList.isRevoked("false-positive")).isFalse();
+    revocationList.refresh();
+    assertThat(revocationList.isRevoked("false-positive")).isTrue();
+    authService.verify();
+  }
+
+  @Test
+  void aFailedCheckTreatsTheTokenAsRevokedAndIsRetried() {
+    BloomFilter filter = new BloomFilter(100, 0.01);
+    filter.put("unknown");
+    expectFilter(filter, "\"1\"");
+    authService.expect(twice(), requestTo(URL + "/unknown"))
+        .andRespond(withException(new IOException("connection refused")));
+
+    revocationList.refresh();
+
+    assertThat(revocationList.isRevoked("unknown")).isTrue();
+    assertThat(revocationList.isRevoked("unknown")).isTrue();
+    authService.verify();
+  }
+
+  @Test
+  void anAuthServiceThatNeverAnswersIsGivenUpOn() throws Exception {
+    try (ServerSocket silent = new ServerSocket(0)) {
+      RevocationList timingOut = new RevocationList(
+          RestClient.builder(), "http://localhost:" + silent.getLocalPort(), 200);
+
+      long start = System.nanoTime();
+      timingOut.refresh();
+
+      assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+      assertThat(timingOut.isLoaded()).isFalse();
+    }
+  }
+
+  private void expectFilter(BloomFilter filter, String etag) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.setETag(etag);
+    authService.expect(requestTo(URL + "/bloom"))
+        .andRespond(withSuccess(filter.toBytes(), MediaType.APPLICATION_OCTET_STREAM)
+            .headers(headers));
+  }
+}
@@ -0,0 +1,96 @@
+package com.supersection.patientservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import com.supersection.grpc.BillingResponse;
+import com.supersection.patientservice.dto.PatientRequestDTO;
+import com.supersection.patientservice.grpc.BillingServiceGrpcClient;
+import com.supersection.patientservice.model.BillingStatus;
+import com.supersection.patientservice.model.Patient;
+import com.supersection.patientservice.repository.PatientRepostory;
+
+import io.grpc.Status;
+
+@SpringBootTest(properties = {
+    "grpc.server.port=-1",
+    "patient.billing.pending-timeout-ms=0",
+    "patient.billing.sweep-interval-ms=3600000"
+})
+@EmbeddedKafka(topics = "patient", partitions = 1,
+    bootstrapServersProperty = "spring.kafka.bootstrap-servers")
+class PatientBillingServiceTests {
+
+  @Autowired
+  private PatientService patientService;
+
+  @Autowired
+  private PatientBillingService patientBillingService;
+
+  @Autowired
+  private PatientRepostory patientRepostory;
+
+  @MockitoBean
+  private BillingServiceGrpcClient billingServiceGrpcClient;
+
+  @Test
+  void patientsLeftPendingByTransientFailuresAreRequestedAgainBySweep() {
+    when(billingServiceGrpcClient.createBillingAccountAsync(anyString(), anyString(), anyString()))
+        .thenReturn(CompletableFuture.failedFuture(Status.UNAVAILABLE.asRuntimeException()))
+        .thenReturn(CompletableFuture.completedFuture(BillingResponse.newBuilder()
+            .setAccountId("ACC-SWEEP")
+            .setStatus("ACTIVE")
+            .build()));
+
+    UUID id = createPatient("billing_sweep@example.com");
+    verify(billingServiceGrpcClient, times(1))
+        .createBillingAccountAsync(anyString(), anyString(), anyString());
+    assertThat(billingStatus(id)).isEqualTo(BillingStatus.PENDING);
+
+    patientBillingService.retryPendingPatients();
+
+    await().atMost(Duration.ofSeconds(5))
+        .until(() -> billingStatus(id) == BillingStatus.ACTIVE);
+    assertThat(patientRepostory.findById(id).map(Patient::getBillingAccountId))
+        .contains("ACC-SWEEP");
+  }
+
+  @Test
+  void patientsRejectedByBillingServiceAreMarkedFailed() {
+    when(billingServiceGrpcClient.createBillingAccountAsync(anyString(), anyString(), anyString()))
+        .thenReturn(CompletableFuture.failedFuture(Status.INVALID_ARGUMENT.asRuntimeException()));
+
+    UUID id = createPatient("billing_rejected@example.com");
+
+    await().atMost(Duration.ofSeconds(5))
+        .until(() -> billingStatus(id) == BillingStatus.FAILED);
+  }
+
+  private UUID createPatient(String email) {
+    PatientRequestDTO request = new PatientRequestDTO();
+    request.setName("Billing Tester");
+    request.setEmail(email);
+    request.setAddress("1 Ledger Lane");
+    request.setDateOfBirth("1988-08-08");
+    request.setRegisteredDate("2024-03-03");
+    return UUID.fromString(patientService.createPatient(request).getId());
+  }
+
+  private BillingStatus billingStatus(UUID id) {
+    return patientRepostory.findById(id).orElseThrow().getBillingStatus();
+  }
+}
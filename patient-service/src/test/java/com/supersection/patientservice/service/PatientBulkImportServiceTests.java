@@ -0,0 +1,72 @@
+package com.supersection.patientservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import com.supersection.patientservice.dto.PatientBulkImportResponseDTO;
+import com.supersection.patientservice.dto.PatientBulkImportResponseDTO.RejectedRow;
+import com.supersection.patientservice.dto.PatientRequestDTO;
+import com.supersection.patientservice.repository.PatientRepostory;
+
+@SpringBootTest(properties = "grpc.server.port=-1")
+@EmbeddedKafka(topics = "patient", partitions = 1,
+    bootstrapServersProperty = "spring.kafka.bootstrap-servers")
+class PatientBulkImportServiceTests {
+
+  @Autowired
+  private PatientBulkImportService patientBulkImportService;
+
+  @Autowired
+  private PatientRepostory patientRepostory;
+
+  @MockitoBean
+  private PatientBillingService patientBillingService;
+
+  @Test
+  void aChunkTheDatabaseRejectsIsRetriedRowByRow() {
+    patientBulkImportService.importPatients(List.of(row("bulk_existing@example.com")).iterator());
+
+    // Passes validation but not the address column's length
+    PatientRequestDTO tooLong = row("bulk_long@example.com");
+    tooLong.setAddress("x".repeat(300));
+
+    PatientBulkImportResponseDTO response = patientBulkImportService.importPatients(List.of(
+        row("bulk_first@example.com"),
+        tooLong,
+        row("bulk_existing@example.com"),
+        row("bulk_last@example.com")).iterator());
+
+    assertThat(response.getImported()).isEqualTo(2);
+    assertThat(response.getRejected())
+        .extracting(RejectedRow::getRow, RejectedRow::getEmail)
+        .containsExactly(
+            tuple(2L, "bulk_long@example.com"),
+            tuple(3L, "bulk_existing@example.com"));
+    assertThat(response.getRejected().get(0).getReason())
+        .startsWith("Rejected by the database");
+    assertThat(response.getRejected().get(1).getReason())
+        .isEqualTo("Email address already exists");
+
+    assertThat(patientRepostory.existsByEmail("bulk_first@example.com")).isTrue();
+    assertThat(patientRepostory.existsByEmail("bulk_last@example.com")).isTrue();
+    assertThat(patientRepostory.existsByEmail("bulk_long@example.com")).isFalse();
+  }
+
+  private static PatientRequestDTO row(String email) {
+    PatientRequestDTO request = new PatientRequestDTO();
+    request.setName("Bulk Tester");
+    request.setEmail(email);
+    request.setAddress("1 Bulk Street");
+    request.setDateOfBirth("1970-07-07");
+    request.setRegisteredDate("2024-02-02");
+    return request;
+  }
+}
@@ -0,0 +1,115 @@
+package com.supersection.patientservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import com.supersection.patientservice.dto.PatientRequestDTO;
+import com.supersection.patientservice.kafka.PatientCacheInvalidator;
+import com.supersection.patientservice.model.BillingStatus;
+import com.supersection.patientservice.repository.PatientRepostory;
+
+import jakarta.persistence.EntityManagerFactory;
+import patient.events.PatientEvent;
+
+@SpringBootTest(properties = {
+    "grpc.server.port=-1",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@EmbeddedKafka(topics = "patient", partitions = 1,
+    bootstrapServersProperty = "spring.kafka.bootstrap-servers")
+class PatientCacheTests {
+
+  private static final int PATIENTS = 100;
+
+  @Autowired
+  private PatientService patientService;
+
+  @Autowired
+  private PatientRepostory patientRepostory;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  private PatientCacheInvalidator invalidator;
+
+  @Autowired
+  private EmbeddedKafkaBroker embeddedKafka;
+
+  @MockitoBean
+  private PatientBillingService patientBillingService;
+
+  @Test
+  void readsAreServedFromCacheUntilAChangeEventArrives() throws Exception {
+    // The invalidator starts at the latest offset, so wait until it is positioned
+    long positionedBy = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+    while (!invalidator.isPositioned() && System.nanoTime() < positionedBy) {
+      Thread.sleep(50);
+    }
+    assertThat(invalidator.isPositioned()).isTrue();
+
+    List<UUID> ids = new ArrayList<>();
+    for (int i = 0; i < PATIENTS; i++) {
+      PatientRequestDTO request = new PatientRequestDTO();
+      request.setName("Cache Tester " + i);
+      request.setEmail("cache_tester_" + i + "@example.com");
+      request.setAddress(i + " Cache Lane");
+      request.setDateOfBirth("1990-01-01");
+      request.setRegisteredDate("2024-01-01");
+      ids.add(UUID.fromString(patientService.createPatient(request).getId()));
+    }
+
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+    for (int round = 0; round < 100; round++) {
+      for (UUID id : ids) {
+        patientService.getPatient(id);
+      }
+    }
+    // 10,000 reads; creation events arriving meanwhile may force a second load per patient
+    assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2 * PATIENTS);
+
+    // A change made by another instance, which only reaches this one as an event
+    UUID changed = ids.get(0);
+    patientRepostory.updateBillingAccount(
+        changed, "ACC-CACHE", BillingStatus.ACTIVE, Instant.now());
+    assertThat(patientService.getPatient(changed).getBillingStatus()).isEqualTo("PENDING");
+
+    KafkaTemplate<String, byte[]> template = new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(
+        KafkaTestUtils.producerProps(embeddedKafka),
+        new StringSerializer(),
+        new ByteArraySerializer()));
+    template.send("patient", changed.toString(), PatientEvent.newBuilder()
+        .setPatientId(changed.toString())
+        .setEventType("PATIENT_UPDATED")
+        .build()
+        .toByteArray());
+    template.flush();
+
+    long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+    while (!"ACTIVE".equals(patientService.getPatient(changed).getBillingStatus())
+        && System.nanoTime() < deadline) {
+      Thread.sleep(50);
+    }
+    assertThat(patientService.getPatient(changed).getBillingStatus()).isEqualTo("ACTIVE");
+  }
+}
@@ -0,0 +1,86 @@
+package com.supersection.patientservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.supersection.patientservice.dto.PatientResponseDTO;
+import com.supersection.patientservice.model.BillingStatus;
+import com.supersection.patientservice.model.Patient;
+import com.supersection.patientservice.repository.PatientRepostory;
+
+@SpringBootTest(properties = "grpc.server.port=-1")
+@EmbeddedKafka(topics = "patient", partitions = 1,
+    bootstrapServersProperty = "spring.kafka.bootstrap-servers")
+class PatientExportServiceTests {
+
+  private static final int PATIENTS = 2_500;
+
+  @Autowired
+  private PatientExportService patientExportService;
+
+  @Autowired
+  private PatientRepostory patientRepostory;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @MockitoBean
+  private PatientBillingService patientBillingService;
+
+  @Test
+  void everyPatientIsWrittenAsOneJsonLine() throws Exception {
+    List<Patient> patients = new ArrayList<>();
+    for (int i = 0; i < PATIENTS; i++) {
+      Patient patient = new Patient();
+      patient.setName("Export Tester " + i);
+      patient.setEmail("export_tester_" + i + "@example.com");
+      patient.setAddress(i + " Export Avenue");
+      patient.setDateOfBirth(LocalDate.parse("1975-05-05"));
+      patient.setRegisteredDate(LocalDate.parse("2023-01-01"));
+      patient.setBillingStatus(BillingStatus.PENDING);
+      patients.add(patient);
+    }
+    Set<String> exportedIds = patientRepostory.saveAll(patients).stream()
+        .map(patient -> patient.getId().toString())
+        .collect(Collectors.toSet());
+
+    CountingFlushes out = new CountingFlushes();
+    long written = patientExportService.exportPatients(out);
+
+    String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+    assertThat(written).isEqualTo(patientRepostory.count()).isEqualTo(lines.length);
+
+    Set<String> ids = new HashSet<>();
+    for (String line : lines) {
+      ids.add(objectMapper.readValue(line, PatientResponseDTO.class).getId());
+    }
+    assertThat(ids).hasSize(lines.length).containsAll(exportedIds);
+
+    // Flushed every 1000 rows and once at the end, not only when the stream is closed
+    assertThat(out.flushes).isGreaterThanOrEqualTo(3);
+  }
+
+  private static class CountingFlushes extends ByteArrayOutputStream {
+    private int flushes;
+
+    @Override
+    public void flush() {
+      flushes++;
+    }
+  }
+}
@@ -0,0 +1,118 @@
+package com.supersection.patientservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import com.supersection.patientservice.dto.PatientFilterDTO;
+import com.supersection.patientservice.dto.PatientPageResponseDTO;
+import com.supersection.patientservice.dto.PatientRequestDTO;
+import com.supersection.patientservice.dto.PatientResponseDTO;
+import com.supersection.patientservice.exception.InvalidCursorException;
+
+@SpringBootTest(properties = "grpc.server.port=-1")
+@EmbeddedKafka(topics = "patient", partitions = 1,
+    bootstrapServersProperty = "spring.kafka.bootstrap-servers")
+class PatientListingTests {
+
+  private static final String[] REGISTERED_DATES = {
+      "2020-03-01", "2020-03-01", "2020-03-01", "2020-03-02", "2020-03-02",
+      "2020-03-05", "2020-03-05"
+  };
+
+  @Autowired
+  private PatientService patientService;
+
+  @MockitoBean
+  private PatientBillingService patientBillingService;
+
+  @Test
+  void pagesFollowTheKeysetOrderWithoutGapsOrRepeats() {
+    List<Created> created = createPatients("Keyset Tester ");
+
+    PatientFilterDTO filter = new PatientFilterDTO();
+    filter.setName("Keyset Tester ");
+
+    List<String> listed = new ArrayList<>();
+    int pages = 0;
+    String cursor = null;
+    do {
+      PatientPageResponseDTO page = patientService.getPatients(filter, cursor, 2);
+      assertThat(page.getPatients()).hasSizeLessThanOrEqualTo(2);
+      page.getPatients().forEach(patient -> listed.add(patient.getId()));
+      cursor = page.getNextCursor();
+      pages++;
+    } while (cursor != null);
+
+    // Ties on registeredDate are broken by id, which the database orders bytewise
+    List<String> expected = created.stream()
+        .sorted(Comparator.comparing(Created::registeredDate)
+            .thenComparing(patient -> patient.id().toString()))
+        .map(patient -> patient.id().toString())
+        .toList();
+    assertThat(listed).containsExactlyElementsOf(expected);
+    assertThat(pages).isEqualTo(4);
+  }
+
+  @Test
+  void filtersAreAppliedBeforePaging() {
+    List<Created> created = createPatients("Filter Tester ");
+
+    PatientFilterDTO filter = new PatientFilterDTO();
+    filter.setName("Filter Tester ");
+    filter.setRegisteredFrom(LocalDate.parse("2020-03-02"));
+    filter.setRegisteredTo(LocalDate.parse("2020-03-02"));
+
+    PatientPageResponseDTO page = patientService.getPatients(filter, null, 10);
+
+    assertThat(page.getPatients())
+        .extracting(PatientResponseDTO::getId)
+        .containsExactlyInAnyOrderElementsOf(created.stream()
+            .filter(patient -> patient.registeredDate().equals(LocalDate.parse("2020-03-02")))
+            .map(patient -> patient.id().toString())
+            .toList());
+    assertThat(page.getNextCursor()).isNull();
+
+    // The prefix is matched literally, not as a LIKE pattern
+    filter.setName("Filter_Tester ");
+    assertThat(patientService.getPatients(filter, null, 10).getPatients()).isEmpty();
+  }
+
+  @Test
+  void malformedCursorsAreRejected() {
+    PatientFilterDTO filter = new PatientFilterDTO();
+    assertThatThrownBy(() -> patientService.getPatients(filter, "not-a-cursor", 10))
+        .isInstanceOf(InvalidCursorException.class);
+  }
+
+  private List<Created> createPatients(String namePrefix) {
+    List<Created> created = new ArrayList<>();
+    for (int i = 0; i < REGISTERED_DATES.length; i++) {
+      PatientRequestDTO request = new PatientRequestDTO();
+      request.setName(namePrefix + i);
+      request.setEmail(namePrefix.trim().replace(' ', '_').toLowerCase() + i + "@example.com");
+      request.setAddress(i + " Keyset Street");
+      request.setDateOfBirth("1980-01-01");
+      request.setRegisteredDate(REGISTERED_DATES[i]);
+
+      PatientResponseDTO patient = patientService.createPatient(request);
+      created.add(new Created(UUID.fromString(patient.getId()),
+          LocalDate.parse(REGISTERED_DATES[i])));
+    }
+    return created;
+  }
+
+  private record Created(UUID id, LocalDate registeredDate) {
+  }
+}
@@ -0,0 +1,117 @@
+package com.supersection.revocation;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over strings, safe for concurrent adds and lookups. Lookups
+ * hash the string's chars directly and allocate nothing. auth-service
+ * publishes its revocation list in the serialized form (hash count, bit
+ * count, then the bit words), and the services that download it read it
+ * back with this same class.
+ */
+public class BloomFilter {
+
+  private final AtomicLongArray words;
+  private final long bitCount;
+  private final int hashCount;
+
+  /**
+   * Sizes the filter for the expected number of entries and false positive
+   * probability.
+   */
+  public BloomFilter(long expectedEntries, double falsePositiveRate) {
+    long n = Math.max(1, expectedEntries);
+    long bits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+    this.bitCount = Math.max(64, (bits + 63) / 64 * 64);
+    this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+    this.words = new AtomicLongArray((int) (bitCount / 64));
+  }
+
+  private BloomFilter(AtomicLongArray words, int hashCount) {
+    this.words = words;
+    this.bitCount = (long) words.length() * 64;
+    this.hashCount = hashCount;
+  }
+
+  public void put(String value) {
+    long hash1 = hash(value, 0x9E3779B97F4A7C15L);
+    long hash2 = hash(value, 0xC2B2AE3D27D4EB4FL) | 1;
+
+    for (int i = 0; i < hashCount; i++) {
+      long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+      int word = (int) (bit >>> 6);
+      long mask = 1L << bit;
+
+      long current = words.get(word);
+      while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+        current = words.get(word);
+      }
+    }
+  }
+
+  /**
+   * @return false if the value was definitely never added
+   */
+  public boolean mightContain(String value) {
+    long hash1 = hash(value, 0x9E3779B97F4A7C15L);
+    long hash2 = hash(value, 0xC2B2AE3D27D4EB4FL) | 1;
+
+    for (int i = 0; i < hashCount; i++) {
+      long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+      if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public byte[] toBytes() {
+    ByteBuffer buffer = ByteBuffer.allocate(4 + 8 + words.length() * 8);
+    buffer.putInt(hashCount);
+    buffer.putLong(bitCount);
+    for (int i = 0; i < words.length(); i++) {
+      buffer.putLong(words.get(i));
+    }
+    return buffer.array();
+  }
+
+  /**
+   * @throws IllegalArgumentException if the bytes are not a serialized filter
+   */
+  public static BloomFilter fromBytes(byte[] bytes) {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    if (bytes.length < 12) {
+      throw new IllegalArgumentException("Truncated Bloom filter");
+    }
+
+    int hashCount = buffer.getInt();
+    long bitCount = buffer.getLong();
+    if (hashCount < 1 || bitCount < 64 || bitCount % 64 != 0
+        || buffer.remaining() != bitCount / 8) {
+      throw new IllegalArgumentException("Malformed Bloom filter");
+    }
+
+    AtomicLongArray words = new AtomicLongArray((int) (bitCount / 64));
+    for (int i = 0; i < words.length(); i++) {
+      words.set(i, buffer.getLong());
+    }
+    return new BloomFilter(words, hashCount);
+  }
+
+  // FNV-1a over the chars, finished with the MurmurHash3 fmix64 mixer
+  private static long hash(String value, long seed) {
+    long hash = seed ^ 0xCBF29CE484222325L;
+    for (int i = 0; i < value.length(); i++) {
+      hash ^= value.charAt(i);
+      hash *= 0x100000001B3L;
+    }
+
+    hash ^= hash >>> 33;
+    hash *= 0xFF51AFD7ED558CCDL;
+    hash ^= hash >>> 33;
+    hash *= 0xC4CEB9FE1A85EC53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
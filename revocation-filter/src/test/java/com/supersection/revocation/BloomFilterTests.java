@@ -0,0 +1,64 @@
+package com.supersection.revocation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Arrays;
+import java.util.HexFormat;
+
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTests {
+
+  // Filter for 3 entries at 1% holding token-1..3, as published by auth-service.
+  // Services already deployed read exactly these bytes, so they must not change.
+  private static final String SERIALIZED = "0000000f0000000000000040af0b49d3f678be2c";
+
+  @Test
+  void addedValuesAreAlwaysFound() {
+    BloomFilter filter = new BloomFilter(1_000, 0.01);
+    for (int i = 0; i < 1_000; i++) {
+      filter.put("token-" + i);
+    }
+
+    int falsePositives = 0;
+    for (int i = 0; i < 1_000; i++) {
+      assertThat(filter.mightContain("token-" + i)).isTrue();
+    }
+    for (int i = 1_000; i < 11_000; i++) {
+      if (filter.mightContain("token-" + i)) {
+        falsePositives++;
+      }
+    }
+    assertThat(falsePositives).isLessThan(300);
+  }
+
+  @Test
+  void theSerializedFormNeverChanges() {
+    BloomFilter filter = new BloomFilter(3, 0.01);
+    filter.put("token-1");
+    filter.put("token-2");
+    filter.put("token-3");
+
+    assertThat(HexFormat.of().formatHex(filter.toBytes())).isEqualTo(SERIALIZED);
+
+    BloomFilter downloaded = BloomFilter.fromBytes(HexFormat.of().parseHex(SERIALIZED));
+    assertThat(downloaded.mightContain("token-1")).isTrue();
+    assertThat(downloaded.mightContain("token-2")).isTrue();
+    assertThat(downloaded.mightContain("token-3")).isTrue();
+    assertThat(downloaded.toBytes()).isEqualTo(filter.toBytes());
+  }
+
+  @Test
+  void malformedBytesAreRejected() {
+    byte[] serialized = HexFormat.of().parseHex(SERIALIZED);
+
+    assertThatThrownBy(() -> BloomFilter.fromBytes(new byte[8]))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> BloomFilter.fromBytes(
+            Arrays.copyOf(serialized, serialized.length - 1)))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> BloomFilter.fromBytes(new byte[20]))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}